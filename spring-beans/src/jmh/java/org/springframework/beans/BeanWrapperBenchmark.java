@@ -0,0 +1,154 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.beans;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link BeanWrapperImpl} property access as performed for
+ * data binding and row mapping: a new wrapper per target object, setting
+ * simple and nested properties from String values.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class BeanWrapperBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public MutablePropertyValues propertyValues;
+
+		@Setup
+		public void setup() {
+			this.propertyValues = new MutablePropertyValues();
+			this.propertyValues.add("name", "Juergen");
+			this.propertyValues.add("age", "42");
+			this.propertyValues.add("active", "true");
+			this.propertyValues.add("address.city", "Linz");
+			this.propertyValues.add("address.zipCode", "4020");
+		}
+	}
+
+
+	@Benchmark
+	public void setSimpleProperties(Blackhole bh) {
+		Person person = new Person();
+		BeanWrapperImpl bw = new BeanWrapperImpl(person);
+		bw.setPropertyValue("name", "Juergen");
+		bw.setPropertyValue("age", "42");
+		bw.setPropertyValue("active", "true");
+		bh.consume(person);
+	}
+
+	@Benchmark
+	public void setNestedProperty(Blackhole bh) {
+		Person person = new Person();
+		BeanWrapperImpl bw = new BeanWrapperImpl(person);
+		bw.setPropertyValue("address.city", "Linz");
+		bh.consume(person);
+	}
+
+	@Benchmark
+	public void setPropertyValues(BenchmarkData data, Blackhole bh) {
+		Person person = new Person();
+		BeanWrapperImpl bw = new BeanWrapperImpl(person);
+		bw.setPropertyValues(data.propertyValues);
+		bh.consume(person);
+	}
+
+	@Benchmark
+	public void getProperties(Blackhole bh) {
+		BeanWrapperImpl bw = new BeanWrapperImpl(new Person());
+		bh.consume(bw.getPropertyValue("name"));
+		bh.consume(bw.getPropertyValue("address.city"));
+	}
+
+
+	public static class Person {
+
+		private String name;
+
+		private int age;
+
+		private boolean active;
+
+		private Address address = new Address();
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public boolean isActive() {
+			return this.active;
+		}
+
+		public void setActive(boolean active) {
+			this.active = active;
+		}
+
+		public Address getAddress() {
+			return this.address;
+		}
+
+		public void setAddress(Address address) {
+			this.address = address;
+		}
+	}
+
+
+	public static class Address {
+
+		private String city;
+
+		private String zipCode;
+
+		public String getCity() {
+			return this.city;
+		}
+
+		public void setCity(String city) {
+			this.city = city;
+		}
+
+		public String getZipCode() {
+			return this.zipCode;
+		}
+
+		public void setZipCode(String zipCode) {
+			this.zipCode = zipCode;
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.beans.factory.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+/**
+ * Benchmarks for {@link AbstractBeanFactory#getBean} retrieving singleton beans
+ * as well as creating prototype beans with property and constructor injection.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class BeanFactoryGetBeanBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+
+			RootBeanDefinition repository = new RootBeanDefinition(Repository.class);
+			this.beanFactory.registerBeanDefinition("repository", repository);
+
+			RootBeanDefinition singleton = new RootBeanDefinition(Service.class);
+			singleton.getPropertyValues().add("repository", new RuntimeBeanReference("repository"));
+			singleton.getPropertyValues().add("name", "singleton");
+			this.beanFactory.registerBeanDefinition("singletonService", singleton);
+
+			RootBeanDefinition prototype = new RootBeanDefinition(Service.class);
+			prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			prototype.getPropertyValues().add("repository", new RuntimeBeanReference("repository"));
+			prototype.getPropertyValues().add("name", "prototype");
+			this.beanFactory.registerBeanDefinition("prototypeService", prototype);
+
+			RootBeanDefinition constructorPrototype = new RootBeanDefinition(ConstructorService.class);
+			constructorPrototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			constructorPrototype.setAutowireMode(RootBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+			this.beanFactory.registerBeanDefinition("constructorPrototypeService", constructorPrototype);
+
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+
+	@Benchmark
+	public void getSingletonByName(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBean("singletonService"));
+	}
+
+	@Benchmark
+	public void getSingletonByType(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBean(Repository.class));
+	}
+
+	@Benchmark
+	public void createPrototypeWithProperties(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBean("prototypeService"));
+	}
+
+	@Benchmark
+	public void createPrototypeWithConstructor(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBean("constructorPrototypeService"));
+	}
+
+
+	public static class Repository {
+	}
+
+
+	public static class Service {
+
+		private Repository repository;
+
+		private String name;
+
+		public void setRepository(Repository repository) {
+			this.repository = repository;
+		}
+
+		public Repository getRepository() {
+			return this.repository;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+	}
+
+
+	public static class ConstructorService {
+
+		private final Repository repository;
+
+		public ConstructorService(Repository repository) {
+			this.repository = repository;
+		}
+
+		public Repository getRepository() {
+			return this.repository;
+		}
+	}
+
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Incrementally maintained index of bean definition names by type, used by
+ * {@link DefaultListableBeanFactory} to narrow down the bean names that need
+ * to be checked for a by-type lookup.
+ *
+ * <p>Only beans whose type is fully determined by their bean class are indexed,
+ * under that class as well as all of its superclasses and interfaces. All other
+ * beans (e.g. factory methods, {@code FactoryBeans}, beans whose class has not
+ * been resolved yet, beans exposing an instance of a different type) remain
+ * candidates for any type. Candidate names are returned in the registration
+ * order of their bean definitions.
+ *
+ * <p>Lookups and checks for unclassified beans do not lock: modifications are
+ * synchronized among each other and keep every bean in the unindexed entries
+ * or in the entries of all of its indexed types at any point in time (adding
+ * before removing), so that concurrent lookups always see a superset of the
+ * actual candidates.
+ *
+ * @author agent
+ * @since 5.1.4
+ * @see DefaultListableBeanFactory#getBeanNamesForType
+ */
+final class BeanTypeIndex {
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>(256);
+
+	/** Indexed entries by type (excluding Object), keyed by ordinal. */
+	private final Map<Class<?>, NavigableMap<Long, Entry>> entriesByType = new ConcurrentHashMap<>(256);
+
+	/** Entries which are candidates for any type, keyed by ordinal. */
+	private final NavigableMap<Long, Entry> unindexedEntries = new ConcurrentSkipListMap<>();
+
+	/** Guarded by this index. */
+	private long nextOrdinal;
+
+
+	/**
+	 * Add a newly registered bean definition name, after all existing ones.
+	 */
+	public synchronized void add(String beanName) {
+		Entry entry = new Entry(beanName, this.nextOrdinal++);
+		this.unindexedEntries.put(entry.ordinal, entry);
+		Entry existing = this.entries.put(beanName, entry);
+		if (existing != null) {
+			removeFromLists(existing);
+		}
+	}
+
+	/**
+	 * Remove the given bean definition name.
+	 */
+	public synchronized void remove(String beanName) {
+		Entry entry = this.entries.remove(beanName);
+		if (entry != null) {
+			removeFromLists(entry);
+		}
+	}
+
+	/**
+	 * Reset the classification of the given bean after its bean definition
+	 * and its singleton instance (if any) have been reset.
+	 */
+	public synchronized void reset(String beanName) {
+		Entry entry = this.entries.get(beanName);
+		if (entry != null) {
+			unindex(entry);
+			entry.classified = false;
+			entry.exposedType = null;
+			entry.exposedTypeConflict = false;
+		}
+	}
+
+	/**
+	 * Reset the classification of all beans, e.g. after changes to the merged
+	 * bean definitions or to the post-processors that may predict bean types.
+	 */
+	public synchronized void resetAll() {
+		for (Entry entry : this.entries.values()) {
+			entry.classified = false;
+			entry.types = null;
+			this.unindexedEntries.put(entry.ordinal, entry);
+		}
+		this.entriesByType.clear();
+	}
+
+	/**
+	 * Determine whether the given bean still needs to be classified.
+	 */
+	public boolean isUnclassified(String beanName) {
+		Entry entry = this.entries.get(beanName);
+		return (entry != null && !entry.classified);
+	}
+
+	/**
+	 * Classify the given bean.
+	 * @param beanName the name of the bean
+	 * @param beanType the type that the bean is determined to match by its bean
+	 * class alone, or {@code null} if it needs to remain a candidate for any type
+	 */
+	public void classify(String beanName, @Nullable Class<?> beanType) {
+		Entry entry = this.entries.get(beanName);
+		if (entry == null || entry.classified) {
+			return;
+		}
+		synchronized (this) {
+			if (this.entries.get(beanName) != entry || entry.classified) {
+				return;
+			}
+			entry.classified = true;
+			if (beanType == null || entry.exposedTypeConflict ||
+					(entry.exposedType != null && entry.exposedType != beanType)) {
+				return;
+			}
+			Set<Class<?>> types = new LinkedHashSet<>();
+			collectTypes(beanType, types);
+			entry.beanType = beanType;
+			entry.types = types;
+			for (Class<?> type : types) {
+				this.entriesByType.computeIfAbsent(type, key -> new ConcurrentSkipListMap<>()).put(entry.ordinal, entry);
+			}
+			this.unindexedEntries.remove(entry.ordinal);
+		}
+	}
+
+	/**
+	 * Record the type of an instance exposed for the given bean, which takes
+	 * precedence over its bean definition in type matching.
+	 */
+	public synchronized void exposeInstance(String beanName, Class<?> instanceType) {
+		Entry entry = this.entries.get(beanName);
+		if (entry == null) {
+			return;
+		}
+		if (entry.exposedType == null) {
+			entry.exposedType = instanceType;
+		}
+		else if (entry.exposedType != instanceType) {
+			entry.exposedTypeConflict = true;
+		}
+		if (entry.types != null && (entry.exposedTypeConflict || entry.beanType != instanceType)) {
+			unindex(entry);
+		}
+	}
+
+	/**
+	 * Return the names of all beans that may match the given type,
+	 * in the registration order of their bean definitions.
+	 * @param type the raw type to match
+	 * @return the candidate bean names, or {@code null} if the index cannot
+	 * narrow down the candidates for the given type
+	 */
+	@Nullable
+	public String[] getCandidateNames(Class<?> type) {
+		if (Object.class == type || type.isPrimitive() || type.isArray()) {
+			return null;
+		}
+		NavigableMap<Long, Entry> indexedEntries = this.entriesByType.get(type);
+		Iterator<Entry> indexed = (indexedEntries != null ?
+				indexedEntries.values().iterator() : Collections.emptyIterator());
+		Iterator<Entry> unindexed = this.unindexedEntries.values().iterator();
+		List<String> result = new ArrayList<>();
+		Entry nextIndexed = next(indexed);
+		Entry nextUnindexed = next(unindexed);
+		while (nextIndexed != null || nextUnindexed != null) {
+			if (nextUnindexed == null || (nextIndexed != null && nextIndexed.ordinal < nextUnindexed.ordinal)) {
+				result.add(nextIndexed.beanName);
+				nextIndexed = next(indexed);
+			}
+			else {
+				// An entry concurrently being (un)indexed may be seen on both sides
+				if (nextIndexed != null && nextIndexed.ordinal == nextUnindexed.ordinal) {
+					nextIndexed = next(indexed);
+				}
+				result.add(nextUnindexed.beanName);
+				nextUnindexed = next(unindexed);
+			}
+		}
+		return result.toArray(new String[0]);
+	}
+
+
+	private void unindex(Entry entry) {
+		if (entry.types != null) {
+			this.unindexedEntries.put(entry.ordinal, entry);
+			removeFromTypes(entry);
+			entry.types = null;
+		}
+	}
+
+	private void removeFromLists(Entry entry) {
+		if (entry.types != null) {
+			removeFromTypes(entry);
+		}
+		else {
+			this.unindexedEntries.remove(entry.ordinal);
+		}
+	}
+
+	private void removeFromTypes(Entry entry) {
+		if (entry.types != null) {
+			for (Class<?> type : entry.types) {
+				NavigableMap<Long, Entry> indexedEntries = this.entriesByType.get(type);
+				if (indexedEntries != null) {
+					indexedEntries.remove(entry.ordinal);
+					if (indexedEntries.isEmpty()) {
+						this.entriesByType.remove(type);
+					}
+				}
+			}
+		}
+	}
+
+	@Nullable
+	private static Entry next(Iterator<Entry> iterator) {
+		return (iterator.hasNext() ? iterator.next() : null);
+	}
+
+	private static void collectTypes(Class<?> type, Set<Class<?>> types) {
+		if (type != Object.class && types.add(type)) {
+			Class<?> superclass = type.getSuperclass();
+			if (superclass != null) {
+				collectTypes(superclass, types);
+			}
+			for (Class<?> ifc : type.getInterfaces()) {
+				collectTypes(ifc, types);
+			}
+		}
+	}
+
+
+	/**
+	 * Index entry for a single bean definition name.
+	 */
+	private static final class Entry {
+
+		final String beanName;
+
+		final long ordinal;
+
+		volatile boolean classified;
+
+		@Nullable
+		Class<?> beanType;
+
+		/** The type hierarchy that the bean is indexed under, if any. */
+		@Nullable
+		Set<Class<?>> types;
+
+		@Nullable
+		Class<?> exposedType;
+
+		boolean exposedTypeConflict;
+
+		Entry(String beanName, long ordinal) {
+			this.beanName = beanName;
+			this.ordinal = ordinal;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -43,6 +43,7 @@ import org.springframework.beans.TypeConverter;
 import org.springframework.beans.TypeMismatchException;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.BeanNotOfRequiredTypeException;
 import org.springframework.beans.factory.InjectionPoint;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
@@ -757,11 +758,13 @@ class ConstructorResolver {
 							"] - did you specify the correct bean references as arguments?");
 				}
 				try {
+					Set<String> argumentBeanNames = new LinkedHashSet<>(2);
 					Object autowiredArgument = resolveAutowiredArgument(
-							methodParam, beanName, autowiredBeanNames, converter, fallback);
+							methodParam, beanName, argumentBeanNames, converter, fallback);
+					autowiredBeanNames.addAll(argumentBeanNames);
 					args.rawArguments[paramIndex] = autowiredArgument;
 					args.arguments[paramIndex] = autowiredArgument;
-					args.preparedArguments[paramIndex] = new AutowiredArgumentMarker();
+					args.preparedArguments[paramIndex] = getAutowiredArgumentShortcut(methodParam, argumentBeanNames);
 					args.resolveNecessary = true;
 				}
 				catch (BeansException ex) {
@@ -783,6 +786,28 @@ class ConstructorResolver {
 		return args;
 	}
 
+	/**
+	 * Determine how to resolve the given autowired argument for subsequent
+	 * creations of the bean: if a single bean of the parameter type has been
+	 * injected, it can be obtained by name right away.
+	 * @param param the autowired parameter
+	 * @param autowiredBeanNames the names of the beans injected for the parameter
+	 * @return a {@link ShortcutDependencyDescriptor} for the injected bean,
+	 * or an {@link AutowiredArgumentMarker} for regular resolution
+	 */
+	private Object getAutowiredArgumentShortcut(MethodParameter param, Set<String> autowiredBeanNames) {
+		if (autowiredBeanNames.size() == 1) {
+			String autowiredBeanName = autowiredBeanNames.iterator().next();
+			Class<?> paramType = param.getParameterType();
+			if (this.beanFactory.containsBean(autowiredBeanName) &&
+					this.beanFactory.isTypeMatch(autowiredBeanName, paramType)) {
+				return new ShortcutDependencyDescriptor(
+						new DependencyDescriptor(param, true), autowiredBeanName, paramType);
+			}
+		}
+		return new AutowiredArgumentMarker();
+	}
+
 	/**
 	 * Resolve the prepared arguments stored in the given bean definition.
 	 */
@@ -798,6 +823,18 @@ class ConstructorResolver {
 		Object[] resolvedArgs = new Object[argsToResolve.length];
 		for (int argIndex = 0; argIndex < argsToResolve.length; argIndex++) {
 			Object argValue = argsToResolve[argIndex];
+			if (argValue instanceof ShortcutDependencyDescriptor) {
+				// Previously autowired bean: obtain it by name, without conversion.
+				ShortcutDependencyDescriptor shortcut = (ShortcutDependencyDescriptor) argValue;
+				try {
+					resolvedArgs[argIndex] = this.beanFactory.resolveDependency(shortcut, beanName, null, converter);
+					continue;
+				}
+				catch (NoSuchBeanDefinitionException | BeanNotOfRequiredTypeException ex) {
+					// Target bean replaced in the meantime -> regular autowiring below.
+					argValue = new AutowiredArgumentMarker();
+				}
+			}
 			MethodParameter methodParam = MethodParameter.forExecutable(executable, argIndex);
 			GenericTypeResolver.resolveParameterType(methodParam, executable.getDeclaringClass());
 			if (argValue instanceof AutowiredArgumentMarker) {
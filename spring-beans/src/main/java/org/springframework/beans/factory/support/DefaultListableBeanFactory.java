@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,7 +30,10 @@ import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -39,12 +42,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -66,10 +73,13 @@ import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.BeanReference;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotationUtils;
@@ -165,6 +175,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Map of singleton-only bean names, keyed by dependency type. */
 	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
 
+	/** Index of bean definition names by type, narrowing down by-type lookups. */
+	private final BeanTypeIndex beanTypeIndex = new BeanTypeIndex();
+
 	/** List of bean definition names, in registration order. */
 	private volatile List<String> beanDefinitionNames = new ArrayList<>(256);
 
@@ -178,6 +191,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether bean definition metadata may be cached for all beans. */
 	private volatile boolean configurationFrozen = false;
 
+	/** Executor for concurrent pre-instantiation of singletons, if any. */
+	@Nullable
+	private Executor bootstrapExecutor;
+
 
 	/**
 	 * Create a new DefaultListableBeanFactory.
@@ -309,6 +326,42 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.autowireCandidateResolver;
 	}
 
+	/**
+	 * Specify an {@link Executor} for pre-instantiating non-lazy singletons
+	 * concurrently in {@link #preInstantiateSingletons()}.
+	 * <p>Default is none, instantiating all singletons sequentially in
+	 * registration order. If specified, singletons are instantiated as soon
+	 * as the beans they declare a dependency on (through "depends-on" or
+	 * through direct bean references in constructor arguments and property
+	 * values) have been instantiated, allowing independent beans with slow
+	 * initialization to be set up at the same time. Dependencies which are
+	 * only discovered at creation time (e.g. autowired ones) are resolved
+	 * on demand, as usual.
+	 * <p>Note that the creation of each singleton still happens under the
+	 * {@link #getSingletonMutex() singleton mutex}: the executor's threads only
+	 * take turns in creating the singletons which are ready to be created.
+	 * The executor is not used if the calling thread holds the singleton mutex.
+	 * <p>{@link SmartInitializingSingleton} callbacks are still invoked
+	 * sequentially in registration order, after all singletons have been
+	 * instantiated.
+	 * @param bootstrapExecutor the executor to use, or {@code null} for none
+	 * @since 5.1.4
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setBootstrapExecutor(@Nullable Executor bootstrapExecutor) {
+		this.bootstrapExecutor = bootstrapExecutor;
+	}
+
+	/**
+	 * Return the {@link Executor} for pre-instantiating singletons concurrently,
+	 * if any.
+	 * @since 5.1.4
+	 */
+	@Nullable
+	public Executor getBootstrapExecutor() {
+		return this.bootstrapExecutor;
+	}
+
 
 	@Override
 	public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
@@ -318,6 +371,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
+			this.bootstrapExecutor = otherListableFactory.bootstrapExecutor;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(BeanUtils.instantiateClass(getAutowireCandidateResolver().getClass()));
 			// Make resolvable dependencies (e.g. ResourceLoader) available here as well...
@@ -325,6 +379,15 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+	@Override
+	public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+		super.addBeanPostProcessor(beanPostProcessor);
+		if (beanPostProcessor instanceof SmartInstantiationAwareBeanPostProcessor) {
+			// May predict different bean types than before...
+			this.beanTypeIndex.resetAll();
+		}
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of remaining BeanFactory methods
@@ -492,8 +555,11 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<>();
 
-		// Check all bean definitions.
-		for (String beanName : this.beanDefinitionNames) {
+		// Check all bean definitions which may match according to the type index.
+		Class<?> resolvedType = type.resolve();
+		String[] candidateNames = (resolvedType != null ? this.beanTypeIndex.getCandidateNames(resolvedType) : null);
+		Iterable<String> beanNames = (candidateNames != null ? Arrays.asList(candidateNames) : this.beanDefinitionNames);
+		for (String beanName : beanNames) {
 			// Only consider bean as eligible if the bean name
 			// is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
@@ -512,6 +578,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 								(includeNonSingletons ||
 										(dbd != null ? mbd.isSingleton() : isSingleton(beanName))) &&
 								isTypeMatch(beanName, type);
+						if (this.beanTypeIndex.isUnclassified(beanName)) {
+							this.beanTypeIndex.classify(beanName, determineIndexableType(beanName, mbd, isFactoryBean));
+						}
 						if (!matchFound && isFactoryBean) {
 							// In case of FactoryBean, try to match FactoryBean instance itself next.
 							beanName = FACTORY_BEAN_PREFIX + beanName;
@@ -574,6 +643,34 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return StringUtils.toStringArray(result);
 	}
 
+	/**
+	 * Determine the type that the given bean can be indexed under for by-type
+	 * lookups: only applicable if the bean is guaranteed to match exactly the
+	 * types that its resolved bean class is assignable to.
+	 * @param beanName the name of the bean
+	 * @param mbd the merged bean definition for the bean
+	 * @param isFactoryBean whether the bean has been determined to be a FactoryBean
+	 * @return the bean class to index the bean under, or {@code null} if the
+	 * bean needs to be checked for any type
+	 * @see BeanTypeIndex
+	 */
+	@Nullable
+	private Class<?> determineIndexableType(String beanName, RootBeanDefinition mbd, boolean isFactoryBean) {
+		if (isFactoryBean || !mbd.hasBeanClass() || mbd.getFactoryMethodName() != null ||
+				mbd.getDecoratedDefinition() != null) {
+			return null;
+		}
+		Class<?> beanClass = mbd.getBeanClass();
+		if (predictBeanType(beanName, mbd) != beanClass) {
+			return null;
+		}
+		Object beanInstance = getSingleton(beanName, false);
+		if (beanInstance != null && beanInstance.getClass() != beanClass) {
+			return null;
+		}
+		return beanClass;
+	}
+
 	/**
 	 * Check whether the specified bean would need to be eagerly initialized
 	 * in order to determine its type.
@@ -785,6 +882,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	@Override
 	public void clearMetadataCache() {
 		super.clearMetadataCache();
+		this.beanTypeIndex.resetAll();
 		clearByTypeCache();
 	}
 
@@ -820,30 +918,15 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
 		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					getBean(beanName);
+		Executor executor = this.bootstrapExecutor;
+		if (executor != null && !Thread.holdsLock(getSingletonMutex())) {
+			preInstantiateSingletons(beanNames, executor);
+		}
+		else {
+			for (String beanName : beanNames) {
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					preInstantiateSingleton(beanName);
 				}
 			}
 		}
@@ -867,6 +950,152 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * Instantiate the given non-lazy singleton, also triggering the creation of
+	 * the target object in case of an eager-init {@link SmartFactoryBean}.
+	 * @param beanName the name of the singleton
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		if (isFactoryBean(beanName)) {
+			Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+			if (bean instanceof FactoryBean) {
+				final FactoryBean<?> factory = (FactoryBean<?>) bean;
+				boolean isEagerInit;
+				if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+					isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+									((SmartFactoryBean<?>) factory)::isEagerInit,
+							getAccessControlContext());
+				}
+				else {
+					isEagerInit = (factory instanceof SmartFactoryBean &&
+							((SmartFactoryBean<?>) factory).isEagerInit());
+				}
+				if (isEagerInit) {
+					getBean(beanName);
+				}
+			}
+		}
+		else {
+			getBean(beanName);
+		}
+	}
+
+	/**
+	 * Instantiate the non-lazy singletons among the given beans concurrently,
+	 * each one after the singletons it declares a dependency on.
+	 * @param beanNames the names of all beans, in registration order
+	 * @param executor the executor to instantiate the singletons with
+	 * @see #setBootstrapExecutor
+	 */
+	private void preInstantiateSingletons(List<String> beanNames, Executor executor) {
+		Map<String, List<String>> dependencies = new LinkedHashMap<>(beanNames.size());
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				dependencies.put(beanName, getDeclaredDependencies(bd));
+			}
+		}
+
+		Map<String, CompletableFuture<Void>> futures = new HashMap<>(dependencies.size());
+		for (String beanName : dependencies.keySet()) {
+			scheduleSingleton(beanName, dependencies, futures, new HashSet<>(), executor);
+		}
+		try {
+			CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+		}
+		catch (CompletionException ex) {
+			// Rethrow the failure of the first singleton in registration order
+			for (String beanName : dependencies.keySet()) {
+				CompletableFuture<Void> future = futures.get(beanName);
+				if (future.isCompletedExceptionally()) {
+					try {
+						future.join();
+					}
+					catch (CompletionException failure) {
+						Throwable cause = failure.getCause();
+						if (cause instanceof RuntimeException) {
+							throw (RuntimeException) cause;
+						}
+						if (cause instanceof Error) {
+							throw (Error) cause;
+						}
+						throw new BeanCreationException(beanName, "Singleton pre-instantiation failed", cause);
+					}
+				}
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Schedule the instantiation of the given singleton once all of its declared
+	 * dependencies have been instantiated, scheduling those dependencies first.
+	 * <p>A circular dependency does not block: the edge closing the cycle is
+	 * ignored, leaving the circular reference to regular resolution at creation time.
+	 */
+	private CompletableFuture<Void> scheduleSingleton(String beanName, Map<String, List<String>> dependencies,
+			Map<String, CompletableFuture<Void>> futures, Set<String> inProgress, Executor executor) {
+
+		CompletableFuture<Void> future = futures.get(beanName);
+		if (future != null) {
+			return future;
+		}
+		inProgress.add(beanName);
+		List<CompletableFuture<Void>> dependencyFutures = new ArrayList<>();
+		for (String dependency : dependencies.get(beanName)) {
+			if (dependencies.containsKey(dependency) && !inProgress.contains(dependency)) {
+				dependencyFutures.add(scheduleSingleton(dependency, dependencies, futures, inProgress, executor));
+			}
+		}
+		inProgress.remove(beanName);
+		future = CompletableFuture.allOf(dependencyFutures.toArray(new CompletableFuture<?>[0]))
+				.thenRunAsync(() -> preInstantiateSingleton(beanName), executor);
+		futures.put(beanName, future);
+		return future;
+	}
+
+	/**
+	 * Determine the names of the beans that the given bean definition declares
+	 * a dependency on, through "depends-on" or through direct bean references
+	 * in its constructor arguments and property values.
+	 * @param bd the merged bean definition
+	 * @return the canonical names of the dependencies (potentially empty)
+	 */
+	private List<String> getDeclaredDependencies(RootBeanDefinition bd) {
+		List<Object> values = new ArrayList<>();
+		if (bd.hasConstructorArgumentValues()) {
+			ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getIndexedArgumentValues().values()) {
+				values.add(valueHolder.getValue());
+			}
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getGenericArgumentValues()) {
+				values.add(valueHolder.getValue());
+			}
+		}
+		if (bd.hasPropertyValues()) {
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				values.add(pv.getValue());
+			}
+		}
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn == null && values.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<String> dependencies = new ArrayList<>();
+		if (dependsOn != null) {
+			for (String dependency : dependsOn) {
+				dependencies.add(transformedBeanName(dependency));
+			}
+		}
+		for (Object value : values) {
+			if (value instanceof BeanReference) {
+				dependencies.add(transformedBeanName(((BeanReference) value).getBeanName()));
+			}
+		}
+		return dependencies;
+	}
+
+
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
 	//---------------------------------------------------------------------
@@ -939,6 +1168,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 				this.beanDefinitionNames.add(beanName);
 				this.manualSingletonNames.remove(beanName);
 			}
+			this.beanTypeIndex.add(beanName);
 			this.frozenBeanDefinitionNames = null;
 		}
 
@@ -971,6 +1201,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			// Still in startup registration phase
 			this.beanDefinitionNames.remove(beanName);
 		}
+		this.beanTypeIndex.remove(beanName);
 		this.frozenBeanDefinitionNames = null;
 
 		resetBeanDefinition(beanName);
@@ -996,6 +1227,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		// (e.g. the default StaticMessageSource in a StaticApplicationContext).
 		destroySingleton(beanName);
 
+		// Reclassify the bean for by-type lookups.
+		this.beanTypeIndex.reset(beanName);
+
 		// Notify all post-processors that the specified bean definition has been reset.
 		for (BeanPostProcessor processor : getBeanPostProcessors()) {
 			if (processor instanceof MergedBeanDefinitionPostProcessor) {
@@ -1061,6 +1295,19 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		clearByTypeCache();
 	}
 
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		this.beanTypeIndex.exposeInstance(beanName, singletonObject.getClass());
+	}
+
+	@Override
+	protected Object getEarlyBeanReference(String beanName, RootBeanDefinition mbd, Object bean) {
+		Object exposedObject = super.getEarlyBeanReference(beanName, mbd, bean);
+		this.beanTypeIndex.exposeInstance(beanName, exposedObject.getClass());
+		return exposedObject;
+	}
+
 	/**
 	 * Remove any assumptions about by-type mappings.
 	 */
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,16 @@
 
 package org.springframework.beans;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import org.junit.Test;
 
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.tests.sample.beans.TestBean;
 
 import static org.junit.Assert.*;
@@ -219,6 +223,74 @@ public class BeanWrapperTests extends AbstractPropertyAccessorTests {
 	}
 
 
+	@Test
+	public void propertyTypeDescriptorSharedAcrossAccessors() {
+		BeanWrapper accessor1 = createAccessor(new IndexedHolder());
+		BeanWrapper accessor2 = createAccessor(new IndexedHolder());
+		TypeDescriptor td = accessor1.getPropertyTypeDescriptor("list");
+		assertSame(td, accessor2.getPropertyTypeDescriptor("list"));
+		assertEquals(List.class, td.getType());
+		assertEquals(Integer.class, td.getElementTypeDescriptor().getType());
+	}
+
+	@Test
+	public void propertyTypeDescriptorForIndexedProperties() {
+		BeanWrapper accessor = createAccessor(new IndexedHolder());
+		TypeDescriptor listTd = accessor.getPropertyTypeDescriptor("list");
+		assertEquals(Integer.class, accessor.getPropertyTypeDescriptor("list[0]").getType());
+		assertEquals(Long.class, accessor.getPropertyTypeDescriptor("map[key]").getType());
+		assertEquals(Double.class, accessor.getPropertyTypeDescriptor("array[0]").getType());
+
+		// Indexed access does not affect the cached descriptor of the property itself
+		assertSame(listTd, accessor.getPropertyTypeDescriptor("list"));
+		assertEquals(List.class, listTd.getType());
+		assertEquals(Integer.class, listTd.getElementTypeDescriptor().getType());
+		TypeDescriptor mapTd = accessor.getPropertyTypeDescriptor("map");
+		assertEquals(Map.class, mapTd.getType());
+		assertEquals(String.class, mapTd.getMapKeyTypeDescriptor().getType());
+		assertEquals(Long.class, mapTd.getMapValueTypeDescriptor().getType());
+	}
+
+	@Test
+	public void propertyTypeDescriptorForNestedProperties() {
+		BeanWrapper accessor = createAccessor(new IndexedHolder());
+		assertEquals(IndexedHolder.class, accessor.getPropertyTypeDescriptor("nested").getType());
+		assertEquals(Integer.class, accessor.getPropertyTypeDescriptor("nested.list[0]").getType());
+		assertEquals(Long.class, accessor.getPropertyTypeDescriptor("nested.map[key]").getType());
+		assertSame(accessor.getPropertyTypeDescriptor("list"), accessor.getPropertyTypeDescriptor("nested.list"));
+	}
+
+	@Test
+	public void setIndexedAndNestedPropertiesWithCachedTypeDescriptors() {
+		IndexedHolder target = new IndexedHolder();
+		BeanWrapper accessor = createAccessor(target);
+		accessor.setPropertyValue("value", "12");
+		accessor.setPropertyValue("list[0]", "5");
+		accessor.setPropertyValue("map[key]", "7");
+		accessor.setPropertyValue("array[0]", "1.5");
+		accessor.setPropertyValue("nested.list[0]", "3");
+		accessor.setPropertyValue("nested.map[key]", "9");
+
+		assertEquals(12, target.getValue());
+		assertEquals(Integer.valueOf(5), target.getList().get(0));
+		assertEquals(Long.valueOf(7), target.getMap().get("key"));
+		assertEquals(Double.valueOf(1.5), target.getArray()[0]);
+		assertEquals(Integer.valueOf(3), target.getNested().getList().get(0));
+		assertEquals(Long.valueOf(9), target.getNested().getMap().get("key"));
+	}
+
+	@Test
+	public void setIndexedPropertiesWithSameNameOnDifferentClasses() {
+		IndexedHolder target = new IndexedHolder();
+		createAccessor(target).setPropertyValue("list[0]", "5");
+		StringListHolder otherTarget = new StringListHolder();
+		createAccessor(otherTarget).setPropertyValue("list[0]", "5");
+
+		assertEquals(Integer.valueOf(5), target.getList().get(0));
+		assertEquals("5", otherTarget.getList().get(0));
+	}
+
+
 	private interface BaseProperty {
 
 		default String getAliasedName() {
@@ -324,4 +396,77 @@ public class BeanWrapperTests extends AbstractPropertyAccessorTests {
 		}
 	}
 
+
+	@SuppressWarnings("unused")
+	public static class IndexedHolder {
+
+		private int value;
+
+		private List<Integer> list = new ArrayList<>(Collections.singletonList(0));
+
+		private Map<String, Long> map = new HashMap<>();
+
+		private Double[] array = new Double[1];
+
+		private IndexedHolder nested;
+
+		public int getValue() {
+			return this.value;
+		}
+
+		public void setValue(int value) {
+			this.value = value;
+		}
+
+		public List<Integer> getList() {
+			return this.list;
+		}
+
+		public void setList(List<Integer> list) {
+			this.list = list;
+		}
+
+		public Map<String, Long> getMap() {
+			return this.map;
+		}
+
+		public void setMap(Map<String, Long> map) {
+			this.map = map;
+		}
+
+		public Double[] getArray() {
+			return this.array;
+		}
+
+		public void setArray(Double[] array) {
+			this.array = array;
+		}
+
+		public IndexedHolder getNested() {
+			if (this.nested == null) {
+				this.nested = new IndexedHolder();
+			}
+			return this.nested;
+		}
+
+		public void setNested(IndexedHolder nested) {
+			this.nested = nested;
+		}
+	}
+
+
+	@SuppressWarnings("unused")
+	public static class StringListHolder {
+
+		private List<String> list = new ArrayList<>(Collections.singletonList(""));
+
+		public List<String> getList() {
+			return this.list;
+		}
+
+		public void setList(List<String> list) {
+			this.list = list;
+		}
+	}
+
 }
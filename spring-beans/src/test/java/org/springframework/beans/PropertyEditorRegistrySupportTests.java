@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyEditor;
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import org.springframework.beans.propertyeditors.CharacterEditor;
+import org.springframework.beans.propertyeditors.CustomBooleanEditor;
+import org.springframework.beans.propertyeditors.CustomCollectionEditor;
+import org.springframework.beans.propertyeditors.CustomNumberEditor;
+import org.springframework.beans.propertyeditors.FileEditor;
+import org.springframework.beans.propertyeditors.LocaleEditor;
+import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import org.springframework.beans.propertyeditors.UUIDEditor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the lazy default editor registration in
+ * {@link PropertyEditorRegistrySupport}.
+ *
+ * @author agent
+ */
+public class PropertyEditorRegistrySupportTests {
+
+	@Test
+	public void noDefaultEditorsUnlessActivated() {
+		PropertyEditorRegistrySupport registry = new PropertyEditorRegistrySupport();
+		assertNull(registry.getDefaultEditor(int.class));
+		assertNull(registry.getDefaultEditor(Locale.class));
+	}
+
+	@Test
+	public void defaultEditorsCreatedLazily() {
+		PropertyEditorRegistrySupport registry = new PropertyEditorRegistrySupport();
+		registry.registerDefaultEditors();
+
+		PropertyEditor editor = registry.getDefaultEditor(int.class);
+		assertTrue(editor instanceof CustomNumberEditor);
+		assertSame(editor, registry.getDefaultEditor(int.class));
+		assertNotSame(editor, registry.getDefaultEditor(Integer.class));
+		assertTrue(registry.getDefaultEditor(boolean.class) instanceof CustomBooleanEditor);
+		assertTrue(registry.getDefaultEditor(char.class) instanceof CharacterEditor);
+		assertTrue(registry.getDefaultEditor(File.class) instanceof FileEditor);
+		assertTrue(registry.getDefaultEditor(Locale.class) instanceof LocaleEditor);
+		assertTrue(registry.getDefaultEditor(UUID.class) instanceof UUIDEditor);
+		assertTrue(registry.getDefaultEditor(List.class) instanceof CustomCollectionEditor);
+		assertNull(registry.getDefaultEditor(Object.class));
+		assertNull(registry.getDefaultEditor(String.class));
+	}
+
+	@Test
+	public void defaultEditorsCreatedPerRegistry() {
+		PropertyEditorRegistrySupport registry1 = new PropertyEditorRegistrySupport();
+		registry1.registerDefaultEditors();
+		PropertyEditorRegistrySupport registry2 = new PropertyEditorRegistrySupport();
+		registry2.registerDefaultEditors();
+		assertNotSame(registry1.getDefaultEditor(int.class), registry2.getDefaultEditor(int.class));
+	}
+
+	@Test
+	public void configValueEditorsOnlyIfActivated() {
+		PropertyEditorRegistrySupport registry = new PropertyEditorRegistrySupport();
+		registry.registerDefaultEditors();
+		assertNull(registry.getDefaultEditor(String[].class));
+		assertNull(registry.getDefaultEditor(int[].class));
+
+		registry.useConfigValueEditors();
+		assertTrue(registry.getDefaultEditor(String[].class) instanceof StringArrayPropertyEditor);
+		assertTrue(registry.getDefaultEditor(int[].class) instanceof StringArrayPropertyEditor);
+	}
+
+	@Test
+	public void overriddenDefaultEditor() {
+		PropertyEditorRegistrySupport registry = new PropertyEditorRegistrySupport();
+		registry.registerDefaultEditors();
+		PropertyEditor defaultEditor = registry.getDefaultEditor(int.class);
+		PropertyEditor editor = new CustomNumberEditor(Integer.class, true);
+		registry.overrideDefaultEditor(int.class, editor);
+		assertSame(editor, registry.getDefaultEditor(int.class));
+		assertNotSame(defaultEditor, registry.getDefaultEditor(int.class));
+	}
+
+	@Test
+	public void copyDefaultEditorsToInactiveRegistry() {
+		PropertyEditorRegistrySupport source = new PropertyEditorRegistrySupport();
+		PropertyEditorRegistrySupport target = new PropertyEditorRegistrySupport();
+		target.registerDefaultEditors();
+		source.copyDefaultEditorsTo(target);
+		assertNull(target.getDefaultEditor(int.class));
+	}
+
+	@Test
+	public void copyDefaultEditorsToWithEditorsCreatedBefore() {
+		PropertyEditorRegistrySupport source = new PropertyEditorRegistrySupport();
+		source.registerDefaultEditors();
+		PropertyEditor editor = source.getDefaultEditor(int.class);
+		PropertyEditorRegistrySupport target = new PropertyEditorRegistrySupport();
+		source.copyDefaultEditorsTo(target);
+		assertSame(editor, target.getDefaultEditor(int.class));
+	}
+
+	@Test
+	public void copyDefaultEditorsToWithEditorsCreatedAfterwards() {
+		PropertyEditorRegistrySupport source = new PropertyEditorRegistrySupport();
+		source.registerDefaultEditors();
+		source.getDefaultEditor(int.class);
+		PropertyEditorRegistrySupport target = new PropertyEditorRegistrySupport();
+		source.copyDefaultEditorsTo(target);
+
+		// Editors lazily created on either side are not visible on the other side
+		PropertyEditor targetEditor = target.getDefaultEditor(Locale.class);
+		assertNotNull(targetEditor);
+		assertNotSame(targetEditor, source.getDefaultEditor(Locale.class));
+		PropertyEditor sourceEditor = source.getDefaultEditor(UUID.class);
+		assertNotNull(sourceEditor);
+		assertNotSame(sourceEditor, target.getDefaultEditor(UUID.class));
+	}
+
+	@Test
+	public void copyDefaultEditorsToWithConfigValueEditorsActivatedAfterwards() {
+		PropertyEditorRegistrySupport source = new PropertyEditorRegistrySupport();
+		source.registerDefaultEditors();
+		source.getDefaultEditor(int.class);
+		PropertyEditorRegistrySupport target = new PropertyEditorRegistrySupport();
+		source.copyDefaultEditorsTo(target);
+
+		target.useConfigValueEditors();
+		assertTrue(target.getDefaultEditor(String[].class) instanceof StringArrayPropertyEditor);
+		assertNull(source.getDefaultEditor(String[].class));
+	}
+
+	@Test
+	public void copyDefaultEditorsToWithConfigValueEditors() {
+		PropertyEditorRegistrySupport source = new PropertyEditorRegistrySupport();
+		source.registerDefaultEditors();
+		source.useConfigValueEditors();
+		PropertyEditorRegistrySupport target = new PropertyEditorRegistrySupport();
+		source.copyDefaultEditorsTo(target);
+		assertTrue(target.getDefaultEditor(String[].class) instanceof StringArrayPropertyEditor);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,6 +37,8 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import javax.annotation.Priority;
 import javax.security.auth.Subject;
@@ -1501,6 +1503,26 @@ public class DefaultListableBeanFactoryTests {
 		assertThat(bean.getBeanName(), equalTo("bd1"));
 	}
 
+	@Test
+	public void testPrototypeConstructorAutowiringAfterDependencyReplaced() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(TestBeanRecipient.class, RootBeanDefinition.AUTOWIRE_CONSTRUCTOR, false);
+		bd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		lbf.registerBeanDefinition("recipient", bd);
+
+		TestBeanRecipient recipient1 = (TestBeanRecipient) lbf.getBean("recipient");
+		TestBeanRecipient recipient2 = (TestBeanRecipient) lbf.getBean("recipient");
+		assertNotSame(recipient1, recipient2);
+		assertSame(lbf.getBean("tb1"), recipient1.testBean);
+		assertSame(lbf.getBean("tb1"), recipient2.testBean);
+
+		lbf.removeBeanDefinition("tb1");
+		lbf.registerBeanDefinition("tb2", new RootBeanDefinition(TestBean.class));
+		TestBeanRecipient recipient3 = (TestBeanRecipient) lbf.getBean("recipient");
+		assertSame(lbf.getBean("tb2"), recipient3.testBean);
+	}
+
 	@Test
 	public void testGetBeanByTypeWithMultiplePriority() {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
@@ -1924,6 +1946,44 @@ public class DefaultListableBeanFactoryTests {
 		assertEquals("&factoryBean", beanNames[0]);
 	}
 
+	@Test
+	public void testGetBeanNamesForTypeWithChangingBeanDefinitions() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("ntb", new RootBeanDefinition(NestedTestBean.class));
+		lbf.registerBeanDefinition("tb2", new RootBeanDefinition(DerivedTestBean.class));
+		assertArrayEquals(new String[] {"tb1", "tb2"}, lbf.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"ntb"}, lbf.getBeanNamesForType(NestedTestBean.class));
+
+		lbf.registerBeanDefinition("ntb", new RootBeanDefinition(TestBean.class));
+		assertArrayEquals(new String[] {"tb1", "ntb", "tb2"}, lbf.getBeanNamesForType(ITestBean.class));
+		assertEquals(0, lbf.getBeanNamesForType(NestedTestBean.class).length);
+
+		lbf.removeBeanDefinition("tb1");
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(DerivedTestBean.class));
+		assertArrayEquals(new String[] {"ntb", "tb2", "tb1"}, lbf.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"tb2", "tb1"}, lbf.getBeanNamesForType(DerivedTestBean.class));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithExposedInstanceOfDifferentType() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("runnable", new RootBeanDefinition(TestBean.class));
+		assertArrayEquals(new String[] {"tb", "runnable"}, lbf.getBeanNamesForType(ITestBean.class));
+		assertEquals(0, lbf.getBeanNamesForType(Runnable.class).length);
+
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return ("runnable".equals(beanName) ? (Runnable) () -> {} : bean);
+			}
+		});
+		lbf.preInstantiateSingletons();
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"runnable"}, lbf.getBeanNamesForType(Runnable.class));
+	}
+
 	/**
 	 * Verifies that a dependency on a {@link FactoryBean} can <strong>not</strong>
 	 * be autowired <em>by name</em>, as &amp; is an illegal character in
@@ -2371,6 +2431,95 @@ public class DefaultListableBeanFactoryTests {
 		assertTrue(factory.initialized);
 	}
 
+	@Test
+	public void testPreInstantiateSingletonsWithBootstrapExecutor() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		lbf.setBootstrapExecutor(executor);
+		try {
+			RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class);
+			bd1.getPropertyValues().add("spouse", new RuntimeBeanReference("tb2"));
+			lbf.registerBeanDefinition("tb1", bd1);
+			RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+			bd2.getPropertyValues().add("spouse", new RuntimeBeanReference("tb1"));
+			lbf.registerBeanDefinition("tb2", bd2);
+			RootBeanDefinition bd3 = new RootBeanDefinition(TestBean.class);
+			bd3.setDependsOn("tb1");
+			lbf.registerBeanDefinition("tb3", bd3);
+			RootBeanDefinition bd4 = new RootBeanDefinition(TestBean.class);
+			bd4.setLazyInit(true);
+			lbf.registerBeanDefinition("tb4", bd4);
+			lbf.registerBeanDefinition("test", new RootBeanDefinition(EagerInitFactory.class));
+			lbf.preInstantiateSingletons();
+
+			assertTrue(lbf.containsSingleton("tb1"));
+			assertTrue(lbf.containsSingleton("tb2"));
+			assertTrue(lbf.containsSingleton("tb3"));
+			assertFalse(lbf.containsSingleton("tb4"));
+			assertSame(lbf.getBean("tb2"), ((TestBean) lbf.getBean("tb1")).getSpouse());
+			assertSame(lbf.getBean("tb1"), ((TestBean) lbf.getBean("tb2")).getSpouse());
+			assertTrue(((EagerInitFactory) lbf.getBean("&test")).initialized);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testDependsOnCycleWithBootstrapExecutor() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		lbf.setBootstrapExecutor(executor);
+		try {
+			RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class);
+			bd1.setDependsOn("tb2");
+			lbf.registerBeanDefinition("tb1", bd1);
+			RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+			bd2.setDependsOn("tb1");
+			lbf.registerBeanDefinition("tb2", bd2);
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			// expected
+			assertTrue(ex.getMessage().contains("Circular"));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSingletonCreationUnderSingletonMutex() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition bd = new RootBeanDefinition(MutexTestBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue(lbf.getSingletonMutex());
+		lbf.registerBeanDefinition("tb", bd);
+		lbf.preInstantiateSingletons();
+		assertTrue(((MutexTestBean) lbf.getBean("tb")).createdUnderMutex);
+	}
+
+	@Test
+	public void testSingletonCreationUnderSingletonMutexWithBootstrapExecutor() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		for (int i = 0; i < 4; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(MutexTestBean.class);
+			bd.getConstructorArgumentValues().addGenericArgumentValue(lbf.getSingletonMutex());
+			lbf.registerBeanDefinition("tb" + i, bd);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		lbf.setBootstrapExecutor(executor);
+		try {
+			lbf.preInstantiateSingletons();
+			for (int i = 0; i < 4; i++) {
+				assertTrue(((MutexTestBean) lbf.getBean("tb" + i)).createdUnderMutex);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 	@Test
 	public void testPrototypeFactoryBeanNotEagerlyCalledInCaseOfBeanClassName() {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
@@ -3510,6 +3659,16 @@ public class DefaultListableBeanFactoryTests {
 	}
 
 
+	private static class MutexTestBean {
+
+		private final boolean createdUnderMutex;
+
+		public MutexTestBean(Object singletonMutex) {
+			this.createdUnderMutex = Thread.holdsLock(singletonMutex);
+		}
+	}
+
+
 	enum NonPublicEnum {
 
 		VALUE_1, VALUE_2;
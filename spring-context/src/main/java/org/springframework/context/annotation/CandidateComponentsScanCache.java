@@ -0,0 +1,273 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Opt-in file-based cache for the outcome of classpath scanning, storing the
+ * locations of the classes which matched the include filters of a
+ * {@link ClassPathScanningCandidateComponentProvider} for a given package.
+ *
+ * <p>Each entry is keyed by the package search path and the configuration of
+ * the include filters, and stores a fingerprint of the scanned resources (their
+ * locations, sizes and modification dates) as well as of the class files which
+ * the include filters consulted outside of the scanned resources, e.g.
+ * annotation types and their meta-annotations, or superclasses and interfaces.
+ * On subsequent startups with an unchanged fingerprint, only the cached
+ * candidate classes need to be read and parsed; exclude filters and
+ * {@link Conditional @Conditional} evaluation are applied to them as usual.
+ * Any change in those class files invalidates the entry, falling back to
+ * regular scanning of all classes.
+ *
+ * <p>The cache is activated through the {@value #CACHE_DIRECTORY} system
+ * property (or Spring property), pointing to a writable directory. It is
+ * off by default: the fingerprint only covers class files, so include filters
+ * whose outcome depends on anything else (such as the system properties or
+ * classes generated at runtime) may lead to a stale result.
+ *
+ * @author agent
+ * @since 5.1.4
+ * @see ClassPathScanningCandidateComponentProvider#findCandidateComponents
+ */
+final class CandidateComponentsScanCache {
+
+	/**
+	 * System property that specifies the directory in which to store the
+	 * outcome of classpath scanning, activating the scan cache.
+	 */
+	public static final String CACHE_DIRECTORY = "spring.scan.cache.dir";
+
+	private static final String MISSING_RESOURCE = "-";
+
+	private static final Log logger = LogFactory.getLog(CandidateComponentsScanCache.class);
+
+
+	private final File directory;
+
+	private final ResourceLoader resourceLoader;
+
+
+	CandidateComponentsScanCache(File directory, ResourceLoader resourceLoader) {
+		this.directory = directory;
+		this.resourceLoader = resourceLoader;
+	}
+
+
+	/**
+	 * Return the locations of the candidate classes cached for the given key,
+	 * provided that neither the scanned resources nor the class files consulted
+	 * by the include filters changed since they were stored.
+	 * @param key the key identifying the scan (package search path and filters)
+	 * @param resources the currently scanned resources
+	 * @return the cached candidate locations, or {@code null} if not available
+	 */
+	@Nullable
+	public Set<String> getCandidateLocations(String key, Resource[] resources) {
+		File file = getFile(key);
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+			if (lines.size() < 2) {
+				return null;
+			}
+			Set<String> dependencies = StringUtils.commaDelimitedListToSet(lines.get(1));
+			if (!fingerprint(resources, dependencies).equals(lines.get(0))) {
+				return null;
+			}
+			return new HashSet<>(lines.subList(2, lines.size()));
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to read classpath scan cache from " + file, ex);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Store the locations of the candidate classes found for the given key.
+	 * @param key the key identifying the scan (package search path and filters)
+	 * @param resources the scanned resources
+	 * @param dependencies the names of the classes consulted by the include filters
+	 * @param candidateLocations the locations of the candidate classes
+	 */
+	public void storeCandidateLocations(String key, Resource[] resources, Collection<String> dependencies,
+			Collection<String> candidateLocations) {
+
+		File file = getFile(key);
+		try {
+			List<String> lines = new ArrayList<>(candidateLocations.size() + 2);
+			lines.add(fingerprint(resources, dependencies));
+			lines.add(StringUtils.collectionToCommaDelimitedString(dependencies));
+			lines.addAll(candidateLocations);
+			Files.createDirectories(this.directory.toPath());
+			Path tempFile = Files.createTempFile(this.directory.toPath(), file.getName(), ".tmp");
+			Files.write(tempFile, lines, StandardCharsets.UTF_8);
+			Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to write classpath scan cache to " + file, ex);
+			}
+		}
+	}
+
+	private File getFile(String key) {
+		return new File(this.directory, DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + ".scan");
+	}
+
+	/**
+	 * Compute a fingerprint for the given scanned resources and the class files
+	 * of the given classes, as resolved through the configured ResourceLoader.
+	 */
+	private String fingerprint(Resource[] resources, Collection<String> dependencies) throws IOException {
+		StringBuilder sb = new StringBuilder((resources.length + dependencies.size()) * 128);
+		for (Resource resource : resources) {
+			appendResource(sb, resource);
+		}
+		for (String className : dependencies) {
+			Resource resource = this.resourceLoader.getResource(ResourceLoader.CLASSPATH_URL_PREFIX +
+					ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX);
+			if (resource.exists()) {
+				appendResource(sb, resource);
+			}
+			else {
+				sb.append(className).append('|').append(MISSING_RESOURCE).append('\n');
+			}
+		}
+		return DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void appendResource(StringBuilder sb, Resource resource) throws IOException {
+		sb.append(resource.getURL()).append('|');
+		sb.append(resource.contentLength()).append('|');
+		sb.append(resource.lastModified()).append('\n');
+	}
+
+
+	/**
+	 * Return the scan cache as configured through {@value #CACHE_DIRECTORY}.
+	 * @param resourceLoader the ResourceLoader to resolve consulted classes with
+	 * @return the scan cache, or {@code null} if not activated
+	 */
+	@Nullable
+	public static CandidateComponentsScanCache getIfActive(ResourceLoader resourceLoader) {
+		String directory = SpringProperties.getProperty(CACHE_DIRECTORY);
+		return (StringUtils.hasText(directory) ?
+				new CandidateComponentsScanCache(new File(directory.trim()), resourceLoader) : null);
+	}
+
+	/**
+	 * Return the location of the given resource as stored in the cache.
+	 * @param resource the scanned resource
+	 * @return the location
+	 * @throws IOException if the resource URL cannot be resolved
+	 */
+	public static String getLocation(Resource resource) throws IOException {
+		return resource.getURL().toString();
+	}
+
+
+	/**
+	 * {@link MetadataReaderFactory} decorator which records the classes consulted
+	 * by include filters: all classes read through it, as well as the annotation
+	 * and meta-annotation types of the classes which are matched.
+	 */
+	static class DependencyRecorder implements MetadataReaderFactory {
+
+		private final MetadataReaderFactory delegate;
+
+		private final Set<String> dependencies = new LinkedHashSet<>();
+
+		DependencyRecorder(MetadataReaderFactory delegate) {
+			this.delegate = delegate;
+		}
+
+		/**
+		 * Record the annotation types of the given class, including their
+		 * meta-annotation types, since these may change independently.
+		 */
+		public void recordAnnotations(MetadataReader metadataReader) {
+			AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
+			for (String annotationType : metadata.getAnnotationTypes()) {
+				recordDependency(annotationType);
+				for (String metaAnnotationType : metadata.getMetaAnnotationTypes(annotationType)) {
+					recordDependency(metaAnnotationType);
+				}
+			}
+		}
+
+		private void recordDependency(String className) {
+			// The JDK's own classes do not change while its version remains the same
+			if (!className.startsWith("java.")) {
+				this.dependencies.add(className);
+			}
+		}
+
+		@Override
+		public MetadataReader getMetadataReader(String className) throws IOException {
+			recordDependency(className);
+			MetadataReader metadataReader = this.delegate.getMetadataReader(className);
+			recordAnnotations(metadataReader);
+			return metadataReader;
+		}
+
+		@Override
+		public MetadataReader getMetadataReader(Resource resource) throws IOException {
+			MetadataReader metadataReader = this.delegate.getMetadataReader(resource);
+			recordDependency(metadataReader.getClassMetadata().getClassName());
+			recordAnnotations(metadataReader);
+			return metadataReader;
+		}
+
+		/**
+		 * Return the names of all classes consulted so far.
+		 */
+		public Set<String> getDependencies() {
+			return this.dependencies;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,11 +18,16 @@ package org.springframework.context.annotation;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,6 +41,7 @@ import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.index.CandidateComponentsIndex;
 import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
@@ -60,6 +66,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * A component provider that provides candidate components from a base package. Can
@@ -74,6 +81,12 @@ import org.springframework.util.ClassUtils;
  * {@link org.springframework.core.type.classreading.MetadataReader MetadataReader}
  * facility, backed by an ASM {@link org.springframework.asm.ClassReader ClassReader}.
  *
+ * <p>As of 5.1.4, the outcome of classpath scanning can be cached across restarts
+ * by pointing the "spring.scan.cache.dir" property to a writable directory: as long
+ * as the scanned classes and the classes consulted by the include filters remain
+ * unchanged, only the classes matching the include filters are read on subsequent
+ * scans. Only plain annotation and assignable type include filters are supported.
+ *
  * @author Mark Fisher
  * @author Juergen Hoeller
  * @author Ramnivas Laddad
@@ -89,11 +102,24 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	static final String DEFAULT_RESOURCE_PATTERN = "**/*.class";
 
+	/**
+	 * System property that switches the default for {@link #setParallelScanning
+	 * parallel scanning} to {@code true}, e.g. for scanners created internally
+	 * by {@link ComponentScan @ComponentScan} processing.
+	 * @since 5.1.4
+	 */
+	public static final String PARALLEL_SCANNING_PROPERTY_NAME = "spring.scan.parallel";
+
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private String resourcePattern = DEFAULT_RESOURCE_PATTERN;
 
+	private boolean parallelScanning = SpringProperties.getFlag(PARALLEL_SCANNING_PROPERTY_NAME);
+
+	@Nullable
+	private Executor scanExecutor;
+
 	private final List<TypeFilter> includeFilters = new LinkedList<>();
 
 	private final List<TypeFilter> excludeFilters = new LinkedList<>();
@@ -162,6 +188,55 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		this.resourcePattern = resourcePattern;
 	}
 
+	/**
+	 * Set whether to read and parse the class files of a scanned package in
+	 * parallel, using the {@link #setScanExecutor scan executor}.
+	 * <p>Default is "false", unless the {@value #PARALLEL_SCANNING_PROPERTY_NAME}
+	 * system property is set to "true". Filters and conditions are still applied
+	 * sequentially in resource order, so the resulting candidate components are
+	 * the same and in the same order as with sequential scanning.
+	 * <p>Requires a thread-safe {@link MetadataReaderFactory}, such as the
+	 * default {@link CachingMetadataReaderFactory}.
+	 * @since 5.1.4
+	 * @see #setScanExecutor
+	 * @see #findCandidateComponents(String)
+	 */
+	public void setParallelScanning(boolean parallelScanning) {
+		this.parallelScanning = parallelScanning;
+	}
+
+	/**
+	 * Return whether to read and parse the class files of a scanned package in parallel.
+	 * @since 5.1.4
+	 */
+	public boolean isParallelScanning() {
+		return this.parallelScanning;
+	}
+
+	/**
+	 * Specify the {@link Executor} to read class files with in case of
+	 * {@link #setParallelScanning parallel scanning}.
+	 * <p>Default is the common {@link ForkJoinPool}. Note that the scanning
+	 * thread waits for all reads to complete: the given executor must not
+	 * depend on that thread in order to make progress.
+	 * @param scanExecutor the executor to use, or {@code null} for the default
+	 * @since 5.1.4
+	 * @see #setParallelScanning
+	 */
+	public void setScanExecutor(@Nullable Executor scanExecutor) {
+		this.scanExecutor = scanExecutor;
+	}
+
+	/**
+	 * Return the {@link Executor} to read class files with in case of
+	 * parallel scanning, if any has been specified.
+	 * @since 5.1.4
+	 */
+	@Nullable
+	public Executor getScanExecutor() {
+		return this.scanExecutor;
+	}
+
 	/**
 	 * Add an include type filter to the <i>end</i> of the inclusion list.
 	 */
@@ -421,13 +496,55 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 			Resource[] resources = getResourcePatternResolver().getResources(packageSearchPath);
 			boolean traceEnabled = logger.isTraceEnabled();
 			boolean debugEnabled = logger.isDebugEnabled();
-			for (Resource resource : resources) {
+
+			// Opt-in scan cache: only read the classes which matched last time, if nothing changed
+			CandidateComponentsScanCache scanCache =
+					CandidateComponentsScanCache.getIfActive(getResourcePatternResolver());
+			String scanCacheKey = (scanCache != null ? getScanCacheKey(packageSearchPath) : null);
+			Resource[] scannedResources = resources;
+			Set<String> cachedLocations = null;
+			Set<String> includedLocations = null;
+			CandidateComponentsScanCache.DependencyRecorder dependencyRecorder = null;
+			if (scanCache != null && scanCacheKey != null) {
+				cachedLocations = scanCache.getCandidateLocations(scanCacheKey, resources);
+				if (cachedLocations == null) {
+					includedLocations = new LinkedHashSet<>();
+					dependencyRecorder = new CandidateComponentsScanCache.DependencyRecorder(getMetadataReaderFactory());
+				}
+				else if (debugEnabled) {
+					logger.debug("Using classpath scan cache with " + cachedLocations.size() +
+							" candidate classes for " + packageSearchPath);
+				}
+			}
+
+			if (cachedLocations != null) {
+				List<Resource> cachedResources = new ArrayList<>(cachedLocations.size());
+				for (Resource resource : resources) {
+					if (cachedLocations.contains(CandidateComponentsScanCache.getLocation(resource))) {
+						cachedResources.add(resource);
+					}
+				}
+				resources = cachedResources.toArray(new Resource[0]);
+			}
+
+			// Read class files upfront in parallel, if demanded: filters are still applied in order below
+			Object[] parsedResources = (this.parallelScanning && resources.length > 1 ?
+					readMetadataInParallel(resources) : null);
+
+			for (int i = 0; i < resources.length; i++) {
+				Resource resource = resources[i];
 				if (traceEnabled) {
 					logger.trace("Scanning " + resource);
 				}
-				if (resource.isReadable()) {
+				if (parsedResources != null ? parsedResources[i] != null : resource.isReadable()) {
 					try {
-						MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
+						MetadataReader metadataReader = (parsedResources != null ?
+								getParsedMetadataReader(parsedResources[i]) :
+								getMetadataReaderFactory().getMetadataReader(resource));
+						if (includedLocations != null && dependencyRecorder != null &&
+								matchesIncludeFilter(metadataReader, dependencyRecorder)) {
+							includedLocations.add(CandidateComponentsScanCache.getLocation(resource));
+						}
 						if (isCandidateComponent(metadataReader)) {
 							ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
 							sbd.setResource(resource);
@@ -461,6 +578,11 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 					}
 				}
 			}
+
+			if (scanCache != null && scanCacheKey != null && includedLocations != null && dependencyRecorder != null) {
+				scanCache.storeCandidateLocations(scanCacheKey, scannedResources,
+						dependencyRecorder.getDependencies(), includedLocations);
+			}
 		}
 		catch (IOException ex) {
 			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
@@ -468,6 +590,101 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return candidates;
 	}
 
+	/**
+	 * Read the metadata for the given resources in parallel, on the
+	 * {@link #setScanExecutor scan executor}.
+	 * @param resources the resources to read
+	 * @return an array with, for each resource at the same index, either its
+	 * {@link MetadataReader}, the {@link Throwable} raised while reading it, or
+	 * {@code null} if the resource is not readable
+	 * @since 5.1.4
+	 */
+	private Object[] readMetadataInParallel(Resource[] resources) {
+		MetadataReaderFactory metadataReaderFactory = getMetadataReaderFactory();
+		Executor executor = (this.scanExecutor != null ? this.scanExecutor : ForkJoinPool.commonPool());
+		Object[] parsedResources = new Object[resources.length];
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[resources.length];
+		for (int i = 0; i < resources.length; i++) {
+			int index = i;
+			futures[i] = CompletableFuture.runAsync(() -> {
+				Resource resource = resources[index];
+				try {
+					parsedResources[index] =
+							(resource.isReadable() ? metadataReaderFactory.getMetadataReader(resource) : null);
+				}
+				catch (Throwable ex) {
+					parsedResources[index] = ex;
+				}
+			}, executor);
+		}
+		// Completion of all futures makes the array elements visible to the scanning thread
+		CompletableFuture.allOf(futures).join();
+		return parsedResources;
+	}
+
+	private MetadataReader getParsedMetadataReader(Object parsedResource) throws Throwable {
+		if (parsedResource instanceof Throwable) {
+			throw (Throwable) parsedResource;
+		}
+		return (MetadataReader) parsedResource;
+	}
+
+	/**
+	 * Determine the key for storing the outcome of scanning the given package
+	 * search path in the {@link CandidateComponentsScanCache}.
+	 * <p>Only plain {@link AnnotationTypeFilter} and {@link AssignableTypeFilter}
+	 * include filters are supported, since their outcome only depends on their
+	 * configuration and on class files, and the default
+	 * {@link #isCandidateComponent(MetadataReader)} algorithm is required.
+	 * @param packageSearchPath the package search path
+	 * @return the key, or {@code null} if the scan cache cannot be used
+	 * @since 5.1.4
+	 */
+	@Nullable
+	private String getScanCacheKey(String packageSearchPath) {
+		Method candidateMethod = ReflectionUtils.findMethod(getClass(), "isCandidateComponent", MetadataReader.class);
+		if (candidateMethod == null ||
+				candidateMethod.getDeclaringClass() != ClassPathScanningCandidateComponentProvider.class) {
+			return null;
+		}
+		StringBuilder key = new StringBuilder(packageSearchPath);
+		for (TypeFilter filter : this.includeFilters) {
+			if (filter.getClass() == AnnotationTypeFilter.class) {
+				AnnotationTypeFilter annotationTypeFilter = (AnnotationTypeFilter) filter;
+				key.append("|annotation:").append(annotationTypeFilter.getAnnotationType().getName());
+				key.append(':').append(annotationTypeFilter.isConsiderMetaAnnotations());
+				key.append(':').append(annotationTypeFilter.isConsiderInherited());
+				key.append(':').append(annotationTypeFilter.isConsiderInterfaces());
+			}
+			else if (filter.getClass() == AssignableTypeFilter.class) {
+				key.append("|assignable:").append(((AssignableTypeFilter) filter).getTargetType().getName());
+			}
+			else {
+				return null;
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Determine whether the given class matches at least one include filter,
+	 * independent from exclude filters and {@code @Conditional} evaluation.
+	 * @param metadataReader the ASM ClassReader for the class
+	 * @param dependencyRecorder the factory recording the classes consulted by the filters
+	 * @since 5.1.4
+	 */
+	private boolean matchesIncludeFilter(MetadataReader metadataReader,
+			CandidateComponentsScanCache.DependencyRecorder dependencyRecorder) throws IOException {
+
+		dependencyRecorder.recordAnnotations(metadataReader);
+		for (TypeFilter tf : this.includeFilters) {
+			if (tf.match(metadataReader, dependencyRecorder)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 
 	/**
 	 * Resolve the specified base package into a pattern specification for
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import example.scannable.sub.BarComponent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.index.CandidateComponentsTestClassLoader;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.core.type.filter.RegexPatternTypeFilter;
+import org.springframework.core.type.filter.TypeFilter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileCopyUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CandidateComponentsScanCache}, as used by
+ * {@link ClassPathScanningCandidateComponentProvider}.
+ *
+ * @author agent
+ */
+public class CandidateComponentsScanCacheTests {
+
+	private static final String SCANNED_PACKAGE = "example.scannable.sub";
+
+	private static final String SCANNED_CLASS = "example/scannable/sub/BarComponent.class";
+
+	private static final String CONSULTED_CLASS = "org/springframework/stereotype/Component.class";
+
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File cacheDirectory;
+
+	private File classesDirectory;
+
+	private ClassLoader classLoader;
+
+
+	@Before
+	public void setup() throws IOException {
+		this.cacheDirectory = this.temporaryFolder.newFolder("cache");
+		this.classesDirectory = this.temporaryFolder.newFolder("classes");
+		copyClassFile(SCANNED_CLASS);
+		copyClassFile(CONSULTED_CLASS);
+		this.classLoader = new CopiedClassFilesClassLoader(
+				CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader()), this.classesDirectory);
+		System.setProperty(CandidateComponentsScanCache.CACHE_DIRECTORY, this.cacheDirectory.getAbsolutePath());
+	}
+
+	@After
+	public void reset() {
+		System.clearProperty(CandidateComponentsScanCache.CACHE_DIRECTORY);
+	}
+
+
+	@Test
+	public void scanWithCacheHit() throws IOException {
+		TypeFilter filter = new AnnotationTypeFilter(Component.class);
+		assertCandidate(scan(filter));
+		assertEquals(1, getCacheFiles().length);
+
+		// Cached outcome is used as long as nothing changed
+		clearCachedCandidates();
+		assertTrue(scan(filter).isEmpty());
+	}
+
+	@Test
+	public void scanInvalidatedByScannedClassChange() throws IOException {
+		TypeFilter filter = new AnnotationTypeFilter(Component.class);
+		assertCandidate(scan(filter));
+		clearCachedCandidates();
+
+		touch(SCANNED_CLASS);
+		assertCandidate(scan(filter));
+	}
+
+	@Test
+	public void scanInvalidatedByConsultedClassChange() throws IOException {
+		TypeFilter filter = new AnnotationTypeFilter(Component.class);
+		assertCandidate(scan(filter));
+		clearCachedCandidates();
+
+		touch(CONSULTED_CLASS);
+		assertCandidate(scan(filter));
+	}
+
+	@Test
+	public void scanWithDifferentFilterConfiguration() throws IOException {
+		assertCandidate(scan(new AnnotationTypeFilter(Component.class)));
+		clearCachedCandidates();
+
+		assertCandidate(scan(new AnnotationTypeFilter(Component.class, false)));
+		assertCandidate(scan(new AnnotationTypeFilter(Component.class, true, true)));
+		assertEquals(3, getCacheFiles().length);
+		assertTrue(scan(new AnnotationTypeFilter(Component.class)).isEmpty());
+	}
+
+	@Test
+	public void scanWithUnsupportedFilter() {
+		assertCandidate(scan(new RegexPatternTypeFilter(Pattern.compile(".*Component"))));
+		assertEquals(0, getCacheFiles().length);
+	}
+
+	@Test
+	public void scanWithoutCacheDirectory() {
+		System.clearProperty(CandidateComponentsScanCache.CACHE_DIRECTORY);
+		assertCandidate(scan(new AnnotationTypeFilter(Component.class)));
+		assertEquals(0, getCacheFiles().length);
+	}
+
+
+	private Set<BeanDefinition> scan(TypeFilter includeFilter) {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(false);
+		provider.setResourceLoader(new DefaultResourceLoader(this.classLoader));
+		provider.addIncludeFilter(includeFilter);
+		return provider.findCandidateComponents(SCANNED_PACKAGE);
+	}
+
+	private void assertCandidate(Set<BeanDefinition> candidates) {
+		assertEquals(1, candidates.size());
+		assertEquals(BarComponent.class.getName(), candidates.iterator().next().getBeanClassName());
+	}
+
+	private File[] getCacheFiles() {
+		return this.cacheDirectory.listFiles((dir, name) -> name.endsWith(".scan"));
+	}
+
+	/**
+	 * Remove the candidates from all cache entries, keeping their fingerprints:
+	 * a scan served from the cache then finds no candidates.
+	 */
+	private void clearCachedCandidates() throws IOException {
+		for (File file : getCacheFiles()) {
+			List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+			Files.write(file.toPath(), lines.subList(0, 2), StandardCharsets.UTF_8);
+		}
+	}
+
+	private void copyClassFile(String path) throws IOException {
+		File file = new File(this.classesDirectory, path);
+		assertTrue(file.getParentFile().mkdirs());
+		try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(path)) {
+			assertNotNull(inputStream);
+			FileCopyUtils.copy(FileCopyUtils.copyToByteArray(inputStream), file);
+		}
+	}
+
+	private void touch(String path) {
+		File file = new File(this.classesDirectory, path);
+		assertTrue(file.setLastModified(file.lastModified() + 10000));
+	}
+
+
+	/**
+	 * ClassLoader exposing the copied class files as resources in place of
+	 * the original ones, with the copied package being found there only.
+	 */
+	private static class CopiedClassFilesClassLoader extends ClassLoader {
+
+		private final URLClassLoader copies;
+
+		CopiedClassFilesClassLoader(ClassLoader parent, File directory) throws IOException {
+			super(parent);
+			this.copies = new URLClassLoader(new URL[] {directory.toURI().toURL()}, null);
+		}
+
+		@Override
+		public URL getResource(String name) {
+			URL url = this.copies.findResource(name);
+			return (url != null ? url : super.getResource(name));
+		}
+
+		@Override
+		public Enumeration<URL> getResources(String name) throws IOException {
+			if (this.copies.findResource(name) != null) {
+				return this.copies.findResources(name);
+			}
+			return super.getResources(name);
+		}
+	}
+
+}
@@ -18,8 +18,13 @@ package org.springframework.context.annotation;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import example.profilescan.DevComponent;
 import example.profilescan.ProfileAnnotatedComponent;
@@ -501,6 +506,53 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		}
 	}
 
+	@Test
+	public void parallelScanWithSameCandidatesInSameOrder() {
+		List<String> expected = scanBeanClassNames(new ClassPathScanningCandidateComponentProvider(true));
+		assertEquals(7, expected.size());
+		for (int i = 0; i < 10; i++) {
+			ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+			provider.setParallelScanning(true);
+			assertEquals(expected, scanBeanClassNames(provider));
+		}
+	}
+
+	@Test
+	public void parallelScanWithCustomExecutor() {
+		List<String> expected = scanBeanClassNames(new ClassPathScanningCandidateComponentProvider(true));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		AtomicInteger submitted = new AtomicInteger();
+		try {
+			ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+			provider.setParallelScanning(true);
+			provider.setScanExecutor(task -> {
+				submitted.incrementAndGet();
+				executor.execute(task);
+			});
+			assertEquals(expected, scanBeanClassNames(provider));
+			assertTrue(submitted.get() > 0);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void sequentialScanIgnoresScanExecutor() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setScanExecutor(task -> {
+			throw new IllegalStateException("Should not be used without parallel scanning");
+		});
+		assertEquals(7, scanBeanClassNames(provider).size());
+	}
+
+	private List<String> scanBeanClassNames(ClassPathScanningCandidateComponentProvider provider) {
+		provider.setResourceLoader(new DefaultResourceLoader(
+				CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader())));
+		return provider.findCandidateComponents(TEST_BASE_PACKAGE).stream()
+				.map(BeanDefinition::getBeanClassName).collect(Collectors.toList());
+	}
+
 	private boolean containsBeanClass(Set<BeanDefinition> candidates, Class<?> beanClass) {
 		for (BeanDefinition candidate : candidates) {
 			if (beanClass.getName().equals(candidate.getBeanClassName())) {
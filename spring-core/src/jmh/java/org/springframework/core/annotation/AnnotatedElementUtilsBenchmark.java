@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link AnnotatedElementUtils#findMergedAnnotation}, covering
+ * direct, meta-present, aliased and absent annotations.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AnnotatedElementUtilsBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public Method annotatedMethod;
+
+		public Method plainMethod;
+
+		@Setup
+		public void setup() throws Exception {
+			this.annotatedMethod = AnnotatedController.class.getMethod("handle");
+			this.plainMethod = AnnotatedController.class.getMethod("toString");
+		}
+	}
+
+
+	@Benchmark
+	public void findDirectAnnotationOnClass(Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(AnnotatedController.class, Mapping.class));
+	}
+
+	@Benchmark
+	public void findComposedAnnotationOnMethod(BenchmarkData data, Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(data.annotatedMethod, Mapping.class));
+	}
+
+	@Benchmark
+	public void findAbsentAnnotationOnMethod(BenchmarkData data, Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(data.plainMethod, Mapping.class));
+	}
+
+	@Benchmark
+	public void findAbsentAnnotationOnJdkType(Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(String.class, Mapping.class));
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	public @interface Mapping {
+
+		@AliasFor("path")
+		String[] value() default {};
+
+		@AliasFor("value")
+		String[] path() default {};
+
+		String method() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.METHOD)
+	@Mapping(method = "GET")
+	public @interface GetMapping {
+
+		@AliasFor(annotation = Mapping.class)
+		String[] value() default {};
+	}
+
+
+	@Mapping("/api")
+	public static class AnnotatedController {
+
+		@GetMapping("/users")
+		public void handle() {
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.core.convert.support;
+
+import java.lang.annotation.RetentionPolicy;
+import java.util.UUID;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.Converter;
+
+/**
+ * Benchmarks for {@link GenericConversionService#convert}, covering the
+ * String-to-scalar conversions typically performed during request binding.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class GenericConversionServiceBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public GenericConversionService conversionService;
+
+		public String uuid = UUID.randomUUID().toString();
+
+		public TypeDescriptor sourceType = TypeDescriptor.valueOf(String.class);
+
+		public TypeDescriptor targetType = TypeDescriptor.valueOf(Long.class);
+
+		public Converter<String, Integer> converter;
+
+		@Setup
+		public void setup() {
+			this.conversionService = new DefaultConversionService();
+			this.converter = this.conversionService.getConverter(String.class, Integer.class);
+		}
+	}
+
+
+	@Benchmark
+	public void convertStringToInteger(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.conversionService.convert("42", Integer.class));
+	}
+
+	@Benchmark
+	public void convertStringToPrimitiveBoolean(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.conversionService.convert("true", boolean.class));
+	}
+
+	@Benchmark
+	public void convertStringToUuid(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.conversionService.convert(data.uuid, UUID.class));
+	}
+
+	@Benchmark
+	public void convertStringToEnum(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.conversionService.convert("RUNTIME", RetentionPolicy.class));
+	}
+
+	@Benchmark
+	public void convertWithTypeDescriptors(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.conversionService.convert("1337", data.sourceType, data.targetType));
+	}
+
+	@Benchmark
+	public void convertWithConverterHandle(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.converter.convert("42"));
+	}
+
+}
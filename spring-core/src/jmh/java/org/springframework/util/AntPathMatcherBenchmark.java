@@ -0,0 +1,70 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link AntPathMatcher#match(String, String)} against a set of
+ * typical request mapping patterns.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AntPathMatcherBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public AntPathMatcher pathMatcher;
+
+		public String[] patterns = new String[] {
+				"/", "/static/**", "/static/css/*.css", "/api/users", "/api/users/{id}",
+				"/api/users/{id}/orders/{orderId}", "/api/projects/{project}/**", "/**/*.html"};
+
+		public String[] paths = new String[] {
+				"/", "/static/css/main.css", "/static/js/app.js", "/api/users", "/api/users/42",
+				"/api/users/42/orders/1337", "/api/projects/spring/issues/12", "/docs/index.html"};
+
+		@Setup
+		public void setup() {
+			this.pathMatcher = new AntPathMatcher();
+		}
+	}
+
+
+	@Benchmark
+	public void matchPatterns(BenchmarkData data, Blackhole bh) {
+		for (String path : data.paths) {
+			for (String pattern : data.patterns) {
+				bh.consume(data.pathMatcher.match(pattern, path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void extractUriTemplateVariables(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.pathMatcher.extractUriTemplateVariables("/api/users/{id}/orders/{orderId}", "/api/users/42/orders/1337"));
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link ConcurrentReferenceHashMap} under a read-mostly load
+ * from 64 threads, as typical for framework metadata caches.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(64)
+public class ConcurrentReferenceHashMapBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"SOFT", "WEAK"})
+		public ConcurrentReferenceHashMap.ReferenceType referenceType;
+
+		@Param({"1000"})
+		public int size;
+
+		public ConcurrentReferenceHashMap<String, Object> map;
+
+		public String[] keys;
+
+		@Setup
+		public void setup() {
+			this.map = new ConcurrentReferenceHashMap<>(this.size, this.referenceType);
+			this.keys = new String[this.size];
+			for (int i = 0; i < this.size; i++) {
+				this.keys[i] = "key" + i;
+				this.map.put(this.keys[i], new Object());
+			}
+		}
+	}
+
+
+	@Benchmark
+	public void get(BenchmarkData data, Blackhole bh) {
+		String key = data.keys[ThreadLocalRandom.current().nextInt(data.size)];
+		bh.consume(data.map.get(key));
+	}
+
+	@Benchmark
+	public void getWithOccasionalPut(BenchmarkData data, Blackhole bh) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String key = data.keys[random.nextInt(data.size)];
+		Object value = data.map.get(key);
+		if (value == null || random.nextInt(100) == 0) {
+			value = new Object();
+			data.map.put(key, value);
+		}
+		bh.consume(value);
+	}
+
+}
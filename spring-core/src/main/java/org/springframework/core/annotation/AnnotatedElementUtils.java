@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -1003,7 +1003,8 @@ public abstract class AnnotatedElementUtils {
 		// Recursively search in meta-annotations
 		for (Annotation annotation : annotations) {
 			Class<? extends Annotation> currentAnnotationType = annotation.annotationType();
-			if (!AnnotationUtils.hasPlainJavaAnnotationsOnly(currentAnnotationType)) {
+			if (!AnnotationUtils.hasPlainJavaAnnotationsOnly(currentAnnotationType) &&
+					isMetaSearchRequired(currentAnnotationType, annotationTypes, annotationName, containerType, processor)) {
 				T result = searchWithGetSemantics(currentAnnotationType, annotationTypes,
 						annotationName, containerType, processor, visited, metaDepth + 1);
 				if (result != null) {
@@ -1142,7 +1143,9 @@ public abstract class AnnotatedElementUtils {
 					// Recursively search in meta-annotations
 					for (Annotation annotation : annotations) {
 						Class<? extends Annotation> currentAnnotationType = annotation.annotationType();
-						if (!AnnotationUtils.hasPlainJavaAnnotationsOnly(currentAnnotationType)) {
+						if (!AnnotationUtils.hasPlainJavaAnnotationsOnly(currentAnnotationType) &&
+								isMetaSearchRequired(currentAnnotationType, annotationTypes, annotationName,
+										containerType, processor)) {
 							T result = searchWithFindSemantics(currentAnnotationType, annotationTypes, annotationName,
 									containerType, processor, visited, metaDepth + 1);
 							if (result != null) {
@@ -1245,6 +1248,29 @@ public abstract class AnnotatedElementUtils {
 		return null;
 	}
 
+	/**
+	 * Determine whether the meta-annotation hierarchy of the given annotation
+	 * type needs to be searched, based on its {@link MetaAnnotationIndex}.
+	 * <p>Processors which {@linkplain Processor#alwaysProcesses always process}
+	 * need to see every annotation, so the hierarchy is always searched for them.
+	 * @param currentAnnotationType the annotation type whose meta-annotations to search
+	 * @param annotationTypes the annotation types to find
+	 * @param annotationName the fully qualified class name of the annotation
+	 * type to find (as an alternative to {@code annotationType})
+	 * @param containerType the type of the container that holds repeatable
+	 * annotations, or {@code null} if the annotation is not repeatable
+	 * @param processor the processor to delegate to
+	 * @return {@code true} if the meta-annotation hierarchy may contain a match
+	 * @since 5.1.4
+	 */
+	private static boolean isMetaSearchRequired(Class<? extends Annotation> currentAnnotationType,
+			Set<Class<? extends Annotation>> annotationTypes, @Nullable String annotationName,
+			@Nullable Class<? extends Annotation> containerType, Processor<?> processor) {
+
+		return (processor.alwaysProcesses() || MetaAnnotationIndex.forAnnotationType(currentAnnotationType)
+				.mayContain(annotationTypes, annotationName, containerType));
+	}
+
 	@Nullable
 	private static <T> T searchOnInterfaces(Method method, Set<Class<? extends Annotation>> annotationTypes,
 			@Nullable String annotationName, @Nullable Class<? extends Annotation> containerType,
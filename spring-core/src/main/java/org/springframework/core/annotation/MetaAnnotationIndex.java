@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Immutable index of all annotation types which are <em>meta-present</em>
+ * on a given annotation type, at any depth of its meta-annotation hierarchy.
+ *
+ * <p>The index for each annotation type is resolved once and cached, allowing
+ * the search algorithms in {@link AnnotatedElementUtils} to skip entire
+ * meta-annotation hierarchies which cannot contain any annotation of interest
+ * instead of reflectively traversing them on every lookup.
+ *
+ * @author agent
+ * @since 5.1.4
+ * @see AnnotatedElementUtils
+ */
+final class MetaAnnotationIndex {
+
+	private static final Map<Class<? extends Annotation>, MetaAnnotationIndex> indexCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+	/**
+	 * Index for annotation types whose meta-annotations could not be introspected:
+	 * may contain anything, so that no search is ever skipped for them.
+	 */
+	private static final MetaAnnotationIndex UNRESOLVABLE = new MetaAnnotationIndex(null);
+
+
+	@Nullable
+	private final Set<String> metaAnnotationTypeNames;
+
+
+	private MetaAnnotationIndex(@Nullable Set<String> metaAnnotationTypeNames) {
+		this.metaAnnotationTypeNames = metaAnnotationTypeNames;
+	}
+
+
+	/**
+	 * Determine whether the meta-annotation hierarchy of the indexed annotation
+	 * type may contain any of the given annotation types.
+	 * @param annotationTypes the annotation types to find
+	 * @param annotationName the fully qualified class name of the annotation
+	 * type to find (as an alternative to {@code annotationTypes})
+	 * @param containerType the type of the container that holds repeatable
+	 * annotations, or {@code null} if the annotation is not repeatable
+	 * @return {@code false} if none of the given annotation types is meta-present,
+	 * {@code true} if one of them is (or if the hierarchy could not be resolved)
+	 */
+	public boolean mayContain(Set<Class<? extends Annotation>> annotationTypes,
+			@Nullable String annotationName, @Nullable Class<? extends Annotation> containerType) {
+
+		Set<String> names = this.metaAnnotationTypeNames;
+		if (names == null) {
+			return true;
+		}
+		if (names.isEmpty()) {
+			return false;
+		}
+		if (annotationName != null && names.contains(annotationName)) {
+			return true;
+		}
+		if (containerType != null && names.contains(containerType.getName())) {
+			return true;
+		}
+		for (Class<? extends Annotation> annotationType : annotationTypes) {
+			if (names.contains(annotationType.getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Obtain the (cached) index for the given annotation type.
+	 * @param annotationType the annotation type to index
+	 * @return the corresponding index (never {@code null})
+	 */
+	static MetaAnnotationIndex forAnnotationType(Class<? extends Annotation> annotationType) {
+		MetaAnnotationIndex index = indexCache.get(annotationType);
+		if (index == null) {
+			index = resolve(annotationType);
+			indexCache.put(annotationType, index);
+		}
+		return index;
+	}
+
+	private static MetaAnnotationIndex resolve(Class<? extends Annotation> annotationType) {
+		try {
+			Set<String> names = new HashSet<>();
+			Set<Class<? extends Annotation>> visited = new HashSet<>();
+			Deque<Class<? extends Annotation>> queue = new ArrayDeque<>();
+			visited.add(annotationType);
+			queue.add(annotationType);
+			while (!queue.isEmpty()) {
+				Class<? extends Annotation> current = queue.removeFirst();
+				if (AnnotationUtils.hasPlainJavaAnnotationsOnly(current)) {
+					continue;
+				}
+				for (Annotation metaAnnotation : AnnotationUtils.getDeclaredAnnotations(current)) {
+					Class<? extends Annotation> metaAnnotationType = metaAnnotation.annotationType();
+					if (!AnnotationUtils.isInJavaLangAnnotationPackage(metaAnnotationType)) {
+						names.add(metaAnnotationType.getName());
+						if (visited.add(metaAnnotationType)) {
+							queue.add(metaAnnotationType);
+						}
+					}
+				}
+			}
+			return new MetaAnnotationIndex(names.isEmpty() ? Collections.emptySet() : names);
+		}
+		catch (Throwable ex) {
+			// Leave failure handling to the actual search algorithm
+			return UNRESOLVABLE;
+		}
+	}
+
+	/**
+	 * Clear the internal meta-annotation index cache.
+	 */
+	static void clearCache() {
+		indexCache.clear();
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,12 +20,14 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
@@ -43,9 +45,26 @@ import org.springframework.util.StringUtils;
  */
 class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 
+	private static final Map<Class<? extends Annotation>, Method[]> attributeMethodsCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+
 	private final AnnotationAttributeExtractor<?> attributeExtractor;
 
-	private final Map<String, Object> valueCache = new ConcurrentHashMap<>(8);
+	/**
+	 * The attribute methods of the annotation type, in the same order as
+	 * the resolved values in {@link #values}.
+	 */
+	private final Method[] attributeMethods;
+
+	/**
+	 * Flat array of lazily resolved attribute values, indexed by the position
+	 * of the corresponding method in {@link #attributeMethods}.
+	 */
+	private final AtomicReferenceArray<Object> values;
+
+	@Nullable
+	private volatile Integer hashCode;
 
 
 	/**
@@ -56,11 +75,21 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 	SynthesizedAnnotationInvocationHandler(AnnotationAttributeExtractor<?> attributeExtractor) {
 		Assert.notNull(attributeExtractor, "AnnotationAttributeExtractor must not be null");
 		this.attributeExtractor = attributeExtractor;
+		this.attributeMethods = getAttributeMethods(attributeExtractor.getAnnotationType());
+		this.values = new AtomicReferenceArray<>(this.attributeMethods.length);
 	}
 
 
 	@Override
 	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		// Attribute methods are by far the most common case: resolve them first,
+		// via their name (interned by the JVM) within the flat attribute array.
+		if (method.getParameterCount() == 0) {
+			int index = getAttributeIndex(method);
+			if (index != -1) {
+				return getAttributeValue(index);
+			}
+		}
 		if (ReflectionUtils.isEqualsMethod(method)) {
 			return annotationEquals(args[0]);
 		}
@@ -73,25 +102,50 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 		if (AnnotationUtils.isAnnotationTypeMethod(method)) {
 			return annotationType();
 		}
-		if (!AnnotationUtils.isAttributeMethod(method)) {
-			throw new AnnotationConfigurationException(String.format(
-					"Method [%s] is unsupported for synthesized annotation type [%s]", method, annotationType()));
-		}
-		return getAttributeValue(method);
+		throw new AnnotationConfigurationException(String.format(
+				"Method [%s] is unsupported for synthesized annotation type [%s]", method, annotationType()));
 	}
 
 	private Class<? extends Annotation> annotationType() {
 		return this.attributeExtractor.getAnnotationType();
 	}
 
-	private Object getAttributeValue(Method attributeMethod) {
-		String attributeName = attributeMethod.getName();
-		Object value = this.valueCache.get(attributeName);
+	private int getAttributeIndex(Method method) {
+		String name = method.getName();
+		Method[] methods = this.attributeMethods;
+		for (int i = 0; i < methods.length; i++) {
+			if (methods[i].getName() == name) {
+				return i;
+			}
+		}
+		for (int i = 0; i < methods.length; i++) {
+			if (methods[i].getName().equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private Object getAttributeValue(int index) {
+		Object value = getRawAttributeValue(index);
+
+		// Clone arrays so that users cannot alter the contents of values in our cache.
+		if (value.getClass().isArray()) {
+			value = cloneArray(value);
+		}
+
+		return value;
+	}
+
+	private Object getRawAttributeValue(int index) {
+		Object value = this.values.get(index);
 		if (value == null) {
+			Method attributeMethod = this.attributeMethods[index];
 			value = this.attributeExtractor.getAttributeValue(attributeMethod);
 			if (value == null) {
 				String msg = String.format("%s returned null for attribute name [%s] from attribute source [%s]",
-						this.attributeExtractor.getClass().getName(), attributeName, this.attributeExtractor.getSource());
+						this.attributeExtractor.getClass().getName(), attributeMethod.getName(),
+						this.attributeExtractor.getSource());
 				throw new IllegalStateException(msg);
 			}
 
@@ -103,14 +157,9 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 				value = AnnotationUtils.synthesizeAnnotationArray((Annotation[]) value, this.attributeExtractor.getAnnotatedElement());
 			}
 
-			this.valueCache.put(attributeName, value);
-		}
-
-		// Clone arrays so that users cannot alter the contents of values in our cache.
-		if (value.getClass().isArray()) {
-			value = cloneArray(value);
+			// Benign race: concurrent resolution leads to equivalent values.
+			this.values.set(index, value);
 		}
-
 		return value;
 	}
 
@@ -161,9 +210,20 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 			return false;
 		}
 
-		for (Method attributeMethod : AnnotationUtils.getAttributeMethods(annotationType())) {
-			Object thisValue = getAttributeValue(attributeMethod);
-			Object otherValue = ReflectionUtils.invokeMethod(attributeMethod, other);
+		SynthesizedAnnotationInvocationHandler otherHandler = null;
+		if (Proxy.isProxyClass(other.getClass())) {
+			InvocationHandler handler = Proxy.getInvocationHandler(other);
+			if (handler instanceof SynthesizedAnnotationInvocationHandler &&
+					((SynthesizedAnnotationInvocationHandler) handler).attributeMethods == this.attributeMethods) {
+				// Same attribute layout: compare resolved values directly, without reflection
+				otherHandler = (SynthesizedAnnotationInvocationHandler) handler;
+			}
+		}
+
+		for (int i = 0; i < this.attributeMethods.length; i++) {
+			Object thisValue = getRawAttributeValue(i);
+			Object otherValue = (otherHandler != null ? otherHandler.getRawAttributeValue(i) :
+					ReflectionUtils.invokeMethod(this.attributeMethods[i], other));
 			if (!ObjectUtils.nullSafeEquals(thisValue, otherValue)) {
 				return false;
 			}
@@ -176,21 +236,24 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 	 * See {@link Annotation#hashCode()} for a definition of the required algorithm.
 	 */
 	private int annotationHashCode() {
-		int result = 0;
-
-		for (Method attributeMethod : AnnotationUtils.getAttributeMethods(annotationType())) {
-			Object value = getAttributeValue(attributeMethod);
-			int hashCode;
-			if (value.getClass().isArray()) {
-				hashCode = hashCodeForArray(value);
+		Integer hashCode = this.hashCode;
+		if (hashCode == null) {
+			int result = 0;
+			for (int i = 0; i < this.attributeMethods.length; i++) {
+				Object value = getRawAttributeValue(i);
+				int valueHashCode;
+				if (value.getClass().isArray()) {
+					valueHashCode = hashCodeForArray(value);
+				}
+				else {
+					valueHashCode = value.hashCode();
+				}
+				result += (127 * this.attributeMethods[i].getName().hashCode()) ^ valueHashCode;
 			}
-			else {
-				hashCode = value.hashCode();
-			}
-			result += (127 * attributeMethod.getName().hashCode()) ^ hashCode;
+			hashCode = result;
+			this.hashCode = hashCode;
 		}
-
-		return result;
+		return hashCode;
 	}
 
 	/**
@@ -236,23 +299,40 @@ class SynthesizedAnnotationInvocationHandler implements InvocationHandler {
 	private String annotationToString() {
 		StringBuilder sb = new StringBuilder("@").append(annotationType().getName()).append("(");
 
-		Iterator<Method> iterator = AnnotationUtils.getAttributeMethods(annotationType()).iterator();
-		while (iterator.hasNext()) {
-			Method attributeMethod = iterator.next();
-			sb.append(attributeMethod.getName());
+		for (int i = 0; i < this.attributeMethods.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(this.attributeMethods[i].getName());
 			sb.append('=');
-			sb.append(attributeValueToString(getAttributeValue(attributeMethod)));
-			sb.append(iterator.hasNext() ? ", " : "");
+			sb.append(attributeValueToString(getRawAttributeValue(i)));
 		}
 
 		return sb.append(")").toString();
 	}
 
 	private String attributeValueToString(Object value) {
-		if (value instanceof Object[]) {
-			return "[" + StringUtils.arrayToDelimitedString((Object[]) value, ", ") + "]";
+		if (value.getClass().isArray()) {
+			return "[" + StringUtils.arrayToDelimitedString(ObjectUtils.toObjectArray(value), ", ") + "]";
 		}
 		return String.valueOf(value);
 	}
 
+
+	/**
+	 * Clear the internal attribute method cache.
+	 */
+	static void clearCache() {
+		attributeMethodsCache.clear();
+	}
+
+	private static Method[] getAttributeMethods(Class<? extends Annotation> annotationType) {
+		Method[] methods = attributeMethodsCache.get(annotationType);
+		if (methods == null) {
+			methods = AnnotationUtils.getAttributeMethods(annotationType).toArray(new Method[0]);
+			attributeMethodsCache.put(annotationType, methods);
+		}
+		return methods;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,6 +46,8 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 
 	private final int bufferSize;
 
+	private boolean memoryMapped;
+
 
 	public ResourceEncoder() {
 		this(DEFAULT_BUFFER_SIZE);
@@ -57,6 +59,28 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 		this.bufferSize = bufferSize;
 	}
 
+	/**
+	 * Whether to map file resources into memory, exposing their content as
+	 * read-only buffers rather than copying it into newly allocated ones.
+	 * Resources which are not files are read as usual.
+	 * <p>By default this is set to {@code false}. When turned on, a larger
+	 * buffer size is recommended, since the buffer size determines the size
+	 * of the mapped regions.
+	 * @since 5.1.4
+	 * @see DataBufferUtils#readMapped
+	 */
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	/**
+	 * Return whether file resources are mapped into memory.
+	 * @since 5.1.4
+	 */
+	public boolean isMemoryMapped() {
+		return this.memoryMapped;
+	}
+
 
 	@Override
 	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
@@ -73,7 +97,9 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 			logger.debug(logPrefix + "Writing [" + resource + "]");
 		}
 
-		return DataBufferUtils.read(resource, dataBufferFactory, this.bufferSize);
+		return (this.memoryMapped ?
+				DataBufferUtils.readMapped(resource, 0, dataBufferFactory, this.bufferSize) :
+				DataBufferUtils.read(resource, dataBufferFactory, this.bufferSize));
 	}
 
 }
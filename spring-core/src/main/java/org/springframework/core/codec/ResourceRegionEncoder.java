@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -59,6 +59,8 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 
 	private final int bufferSize;
 
+	private boolean memoryMapped;
+
 
 	public ResourceRegionEncoder() {
 		this(DEFAULT_BUFFER_SIZE);
@@ -70,6 +72,28 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 		this.bufferSize = bufferSize;
 	}
 
+	/**
+	 * Whether to map file resources into memory, exposing their content as
+	 * read-only buffers rather than copying it into newly allocated ones.
+	 * Resources which are not files are read as usual.
+	 * <p>By default this is set to {@code false}. When turned on, a larger
+	 * buffer size is recommended, since the buffer size determines the size
+	 * of the mapped regions.
+	 * @since 5.1.4
+	 * @see DataBufferUtils#readMapped
+	 */
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	/**
+	 * Return whether file resources are mapped into memory.
+	 * @since 5.1.4
+	 */
+	public boolean isMemoryMapped() {
+		return this.memoryMapped;
+	}
+
 	@Override
 	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
 		return super.canEncode(elementType, mimeType)
@@ -140,7 +164,9 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 					"Writing region " + position + "-" + (position + count) + " of [" + resource + "]");
 		}
 
-		Flux<DataBuffer> in = DataBufferUtils.read(resource, position, bufferFactory, this.bufferSize);
+		Flux<DataBuffer> in = (this.memoryMapped ?
+				DataBufferUtils.readMapped(resource, position, bufferFactory, this.bufferSize) :
+				DataBufferUtils.read(resource, position, bufferFactory, this.bufferSize));
 		return DataBufferUtils.takeUntilByteCount(in, count);
 	}
 
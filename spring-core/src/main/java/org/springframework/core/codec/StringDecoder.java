@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.core.codec;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -25,21 +27,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.CompositeDataBuffer;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
-import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.core.io.buffer.PooledDataBuffer;
 import org.springframework.core.log.LogFormatUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StreamUtils;
 
 /**
  * Decode from a data buffer stream to a {@code String} stream. Before decoding, this decoder
@@ -47,6 +52,10 @@ import org.springframework.util.MimeTypeUtils;
  * This is to make sure that multibyte characters are decoded properly, and do not cross buffer
  * boundaries. The default delimiters ({@code \n}, {@code \r\n})can be customized.
  *
+ * <p>Delimiters are matched incrementally, byte by byte, so that a delimiter may span
+ * data buffers. The data of a line is sliced rather than copied, and only joined once
+ * the line is complete; its length can be bounded via {@link #setMaxLineLength}.
+ *
  * <p>Partially inspired by Netty's {@code DelimiterBasedFrameDecoder}.
  *
  * @author Sebastien Deleuze
@@ -58,8 +67,6 @@ import org.springframework.util.MimeTypeUtils;
  */
 public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 
-	private static final DataBuffer END_FRAME = new DefaultDataBufferFactory().wrap(new byte[0]);
-
 	/** The default charset to use, i.e. "UTF-8". */
 	public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
 
@@ -73,6 +80,8 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 
 	private final ConcurrentMap<Charset, List<byte[]>> delimitersCache = new ConcurrentHashMap<>();
 
+	private int maxLineLength = -1;
+
 
 	private StringDecoder(List<String> delimiters, boolean stripDelimiter, MimeType... mimeTypes) {
 		super(mimeTypes);
@@ -82,6 +91,26 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 	}
 
 
+	/**
+	 * Set the maximum length of a line in bytes, beyond which decoding fails
+	 * with a {@link DecodingException}. This bounds the amount of data held
+	 * while looking for the delimiter at the end of a line.
+	 * <p>By default this is set to -1, i.e. unlimited.
+	 * @since 5.1.4
+	 */
+	public void setMaxLineLength(int maxLineLength) {
+		this.maxLineLength = maxLineLength;
+	}
+
+	/**
+	 * Return the {@link #setMaxLineLength configured} maximum line length.
+	 * @since 5.1.4
+	 */
+	public int getMaxLineLength() {
+		return this.maxLineLength;
+	}
+
+
 	@Override
 	public boolean canDecode(ResolvableType elementType, @Nullable MimeType mimeType) {
 		return (elementType.resolve() == String.class && super.canDecode(elementType, mimeType));
@@ -93,11 +122,13 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 
 		List<byte[]> delimiterBytes = getDelimiterBytes(mimeType);
 
-		Flux<DataBuffer> inputFlux = Flux.from(inputStream)
-				.flatMapIterable(dataBuffer -> splitOnDelimiter(dataBuffer, delimiterBytes))
-				.bufferUntil(StringDecoder::isEndFrame)
-				.map(StringDecoder::joinUntilEndFrame)
-				.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+		Flux<DataBuffer> inputFlux = Flux.defer(() -> {
+			LineSplitter splitter = new LineSplitter(delimiterBytes, this.stripDelimiter, this.maxLineLength);
+			return Flux.from(inputStream)
+					.flatMapIterable(splitter::split)
+					.concatWith(Mono.fromSupplier(splitter::flush))
+					.doFinally(signalType -> splitter.discard());
+		}).doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 
 		return super.decode(inputFlux, elementType, mimeType, hints);
 	}
@@ -109,105 +140,26 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 						.collect(Collectors.toList()));
 	}
 
-	/**
-	 * Splits the given data buffer on delimiter boundaries. The returned Flux contains a
-	 * {@link #END_FRAME} buffer after each delimiter.
-	 */
-	private List<DataBuffer> splitOnDelimiter(DataBuffer dataBuffer, List<byte[]> delimiterBytes) {
-		List<DataBuffer> frames = new ArrayList<>();
-		do {
-			int length = Integer.MAX_VALUE;
-			byte[] matchingDelimiter = null;
-			for (byte[] delimiter : delimiterBytes) {
-				int index = indexOf(dataBuffer, delimiter);
-				if (index >= 0 && index < length) {
-					length = index;
-					matchingDelimiter = delimiter;
-				}
-			}
-			DataBuffer frame;
-			int readPosition = dataBuffer.readPosition();
-			if (matchingDelimiter != null) {
-				if (this.stripDelimiter) {
-					frame = dataBuffer.slice(readPosition, length);
-				}
-				else {
-					frame = dataBuffer.slice(readPosition, length + matchingDelimiter.length);
-				}
-				dataBuffer.readPosition(readPosition + length + matchingDelimiter.length);
-
-				frames.add(DataBufferUtils.retain(frame));
-				frames.add(END_FRAME);
-			}
-			else {
-				frame = dataBuffer.slice(readPosition, dataBuffer.readableByteCount());
-				dataBuffer.readPosition(readPosition + dataBuffer.readableByteCount());
-				frames.add(DataBufferUtils.retain(frame));
-			}
-		}
-		while (dataBuffer.readableByteCount() > 0);
-
-		DataBufferUtils.release(dataBuffer);
-		return frames;
-	}
-
-	/**
-	 * Find the given delimiter in the given data buffer.
-	 * @return the index of the delimiter, or -1 if not found.
-	 */
-	private static int indexOf(DataBuffer dataBuffer, byte[] delimiter) {
-		for (int i = dataBuffer.readPosition(); i < dataBuffer.writePosition(); i++) {
-			int dataBufferPos = i;
-			int delimiterPos = 0;
-			while (delimiterPos < delimiter.length) {
-				if (dataBuffer.getByte(dataBufferPos) != delimiter[delimiterPos]) {
-					break;
-				}
-				else {
-					dataBufferPos++;
-					if (dataBufferPos == dataBuffer.writePosition() &&
-							delimiterPos != delimiter.length - 1) {
-						return -1;
-					}
-				}
-				delimiterPos++;
-			}
-			if (delimiterPos == delimiter.length) {
-				return i - dataBuffer.readPosition();
-			}
-		}
-		return -1;
-	}
-
-	/**
-	 * Checks whether the given buffer is {@link #END_FRAME}.
-	 */
-	private static boolean isEndFrame(DataBuffer dataBuffer) {
-		return dataBuffer == END_FRAME;
-	}
-
-	/**
-	 * Joins the given list of buffers into a single buffer, also removing
-	 * the (inserted) {@link #END_FRAME}.
-	 */
-	private static DataBuffer joinUntilEndFrame(List<DataBuffer> dataBuffers) {
-		if (!dataBuffers.isEmpty()) {
-			int lastIdx = dataBuffers.size() - 1;
-			if (isEndFrame(dataBuffers.get(lastIdx))) {
-				dataBuffers.remove(lastIdx);
-			}
-		}
-		return dataBuffers.get(0).factory().join(dataBuffers);
-	}
-
 	@Override
 	protected String decodeDataBuffer(DataBuffer dataBuffer, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
 		Charset charset = getCharset(mimeType);
-		CharBuffer charBuffer = charset.decode(dataBuffer.asByteBuffer());
-		DataBufferUtils.release(dataBuffer);
-		String value = charBuffer.toString();
+		String value;
+		if (dataBuffer instanceof CompositeDataBuffer) {
+			// Read across the components rather than copying them into a single ByteBuffer
+			try (InputStream inputStream = dataBuffer.asInputStream(true)) {
+				value = StreamUtils.copyToString(inputStream, charset);
+			}
+			catch (IOException ex) {
+				throw new DecodingException("I/O error while decoding data buffer", ex);
+			}
+		}
+		else {
+			CharBuffer charBuffer = charset.decode(dataBuffer.asByteBuffer());
+			DataBufferUtils.release(dataBuffer);
+			value = charBuffer.toString();
+		}
 		LogFormatUtils.traceDebug(logger, traceOn -> {
 			String formatted = LogFormatUtils.formatValue(value, !traceOn);
 			return Hints.getLogPrefix(hints) + "Decoded " + formatted;
@@ -282,4 +234,226 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 				new MimeType("text", "plain", DEFAULT_CHARSET), MimeTypeUtils.ALL);
 	}
 
+
+	/**
+	 * Splits a stream of data buffers into lines, holding on to the slices
+	 * of a line until its delimiter has been found.
+	 */
+	private static final class LineSplitter {
+
+		private final DelimiterMatcher matcher;
+
+		private final boolean stripDelimiter;
+
+		private final int maxLineLength;
+
+		@Nullable
+		private List<DataBuffer> partialLine;
+
+		private int partialLineLength;
+
+		LineSplitter(List<byte[]> delimiters, boolean stripDelimiter, int maxLineLength) {
+			this.matcher = new DelimiterMatcher(delimiters);
+			this.stripDelimiter = stripDelimiter;
+			this.maxLineLength = maxLineLength;
+		}
+
+		/**
+		 * Split the given buffer on delimiter boundaries, releasing it.
+		 * @return the lines completed by the given buffer, if any
+		 */
+		List<DataBuffer> split(DataBuffer dataBuffer) {
+			List<DataBuffer> lines = new ArrayList<>();
+			try {
+				int start = dataBuffer.readPosition();
+				int end = dataBuffer.writePosition();
+				int index = dataBuffer.indexOf(this.matcher, start);
+				while (index >= 0) {
+					lines.add(completeLine(dataBuffer, start, index + 1, this.matcher.getMatchedLength()));
+					start = index + 1;
+					index = dataBuffer.indexOf(this.matcher, start);
+				}
+				if (start < end || dataBuffer.readableByteCount() == 0) {
+					// Remainder of a line: an empty buffer still makes for an empty line at the end
+					checkLineLength(this.partialLineLength + end - start);
+					addToPartialLine(DataBufferUtils.retain(dataBuffer.slice(start, end - start)));
+				}
+				return lines;
+			}
+			catch (RuntimeException ex) {
+				lines.forEach(DataBufferUtils::release);
+				discard();
+				throw ex;
+			}
+			finally {
+				DataBufferUtils.release(dataBuffer);
+			}
+		}
+
+		private DataBuffer completeLine(DataBuffer dataBuffer, int start, int end, int delimiterLength) {
+			int length = end - start;
+			if (this.stripDelimiter) {
+				length -= delimiterLength;
+				if (length < 0) {
+					// The delimiter started in a previous buffer
+					trimPartialLine(-length);
+					length = 0;
+				}
+			}
+			checkLineLength(this.partialLineLength + length);
+			DataBuffer slice = DataBufferUtils.retain(dataBuffer.slice(start, length));
+			List<DataBuffer> partialLine = this.partialLine;
+			if (partialLine == null) {
+				return slice;
+			}
+			partialLine.add(slice);
+			this.partialLine = null;
+			this.partialLineLength = 0;
+			return slice.factory().compose(partialLine);
+		}
+
+		private void addToPartialLine(DataBuffer slice) {
+			if (this.partialLine == null) {
+				this.partialLine = new ArrayList<>();
+			}
+			this.partialLine.add(slice);
+			this.partialLineLength += slice.readableByteCount();
+		}
+
+		private void trimPartialLine(int count) {
+			List<DataBuffer> partialLine = this.partialLine;
+			Assert.state(partialLine != null && this.partialLineLength >= count, "Delimiter not buffered");
+			this.partialLineLength -= count;
+			while (count > 0) {
+				int last = partialLine.size() - 1;
+				DataBuffer slice = partialLine.get(last);
+				int length = slice.readableByteCount();
+				if (length <= count) {
+					partialLine.remove(last);
+					DataBufferUtils.release(slice);
+					count -= length;
+				}
+				else {
+					// A slice of a slice shares its reference count
+					partialLine.set(last, slice.slice(slice.readPosition(), length - count));
+					count = 0;
+				}
+			}
+			if (partialLine.isEmpty()) {
+				this.partialLine = null;
+			}
+		}
+
+		private void checkLineLength(int lineLength) {
+			if (this.maxLineLength >= 0 && lineLength > this.maxLineLength) {
+				throw new DecodingException("Line exceeds the maximum length of " + this.maxLineLength + " bytes");
+			}
+		}
+
+		/**
+		 * Return the last line, not terminated by a delimiter, if any.
+		 */
+		@Nullable
+		DataBuffer flush() {
+			List<DataBuffer> partialLine = this.partialLine;
+			if (partialLine == null) {
+				return null;
+			}
+			this.partialLine = null;
+			this.partialLineLength = 0;
+			return (partialLine.size() == 1 ? partialLine.get(0) : partialLine.get(0).factory().compose(partialLine));
+		}
+
+		/**
+		 * Release the slices of the current partial line, if any.
+		 */
+		void discard() {
+			List<DataBuffer> partialLine = this.partialLine;
+			if (partialLine != null) {
+				this.partialLine = null;
+				this.partialLineLength = 0;
+				partialLine.forEach(DataBufferUtils::release);
+			}
+		}
+	}
+
+
+	/**
+	 * Matches a set of delimiters against a stream of bytes, keeping the state
+	 * of partial matches across invocations (following the Knuth-Morris-Pratt
+	 * algorithm for each delimiter). Matches the byte that completes a delimiter,
+	 * preferring the longest delimiter if several are completed at once.
+	 */
+	private static final class DelimiterMatcher implements IntPredicate {
+
+		private final byte[][] delimiters;
+
+		/** For each delimiter, the length of the longest proper prefix which is also a suffix. */
+		private final int[][] failureTables;
+
+		/** For each delimiter, the number of bytes matched so far. */
+		private final int[] matches;
+
+		private int matchedLength;
+
+		DelimiterMatcher(List<byte[]> delimiters) {
+			this.delimiters = delimiters.toArray(new byte[delimiters.size()][]);
+			this.failureTables = new int[this.delimiters.length][];
+			this.matches = new int[this.delimiters.length];
+			for (int i = 0; i < this.delimiters.length; i++) {
+				this.failureTables[i] = failureTable(this.delimiters[i]);
+			}
+		}
+
+		private static int[] failureTable(byte[] delimiter) {
+			int[] table = new int[delimiter.length];
+			int j = 0;
+			for (int i = 1; i < delimiter.length; i++) {
+				while (j > 0 && delimiter[i] != delimiter[j]) {
+					j = table[j - 1];
+				}
+				if (delimiter[i] == delimiter[j]) {
+					j++;
+				}
+				table[i] = j;
+			}
+			return table;
+		}
+
+		@Override
+		public boolean test(int value) {
+			byte b = (byte) value;
+			int matchedLength = 0;
+			for (int i = 0; i < this.delimiters.length; i++) {
+				byte[] delimiter = this.delimiters[i];
+				int match = this.matches[i];
+				while (match > 0 && delimiter[match] != b) {
+					match = this.failureTables[i][match - 1];
+				}
+				if (delimiter[match] == b) {
+					match++;
+				}
+				if (match == delimiter.length) {
+					matchedLength = Math.max(matchedLength, match);
+					match = this.failureTables[i][match - 1];
+				}
+				this.matches[i] = match;
+			}
+			if (matchedLength == 0) {
+				return false;
+			}
+			// A line ends here: partial matches must not extend into the next line
+			Arrays.fill(this.matches, 0);
+			this.matchedLength = matchedLength;
+			return true;
+		}
+
+		/**
+		 * Return the length of the delimiter matched last.
+		 */
+		int getMatchedLength() {
+			return this.matchedLength;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -78,6 +78,9 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
 
+	private final Map<ConvertiblePair, ClassPairConverter> classPairConverterCache =
+			new ConcurrentReferenceHashMap<>(64);
+
 
 	// ConverterRegistry implementation
 
@@ -132,8 +135,10 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Override
 	public boolean canConvert(@Nullable Class<?> sourceType, Class<?> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
-		return canConvert((sourceType != null ? TypeDescriptor.valueOf(sourceType) : null),
-				TypeDescriptor.valueOf(targetType));
+		if (sourceType == null) {
+			return true;
+		}
+		return getClassPairConverter(sourceType, targetType).isConvertible();
 	}
 
 	@Override
@@ -142,6 +147,9 @@ public class GenericConversionService implements ConfigurableConversionService {
 		if (sourceType == null) {
 			return true;
 		}
+		if (isPlainClass(sourceType) && isPlainClass(targetType)) {
+			return getClassPairConverter(sourceType.getType(), targetType.getType()).isConvertible();
+		}
 		GenericConverter converter = getConverter(sourceType, targetType);
 		return (converter != null);
 	}
@@ -171,7 +179,11 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Nullable
 	public <T> T convert(@Nullable Object source, Class<T> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
-		return (T) convert(source, TypeDescriptor.forObject(source), TypeDescriptor.valueOf(targetType));
+		if (source == null) {
+			return (T) convert(null, null, TypeDescriptor.valueOf(targetType));
+		}
+		ClassPairConverter converter = getClassPairConverter(source.getClass(), targetType);
+		return (T) converter.convert(source, converter.sourceType, converter.targetType);
 	}
 
 	@Override
@@ -186,6 +198,10 @@ public class GenericConversionService implements ConfigurableConversionService {
 			throw new IllegalArgumentException("Source to convert from must be an instance of [" +
 					sourceType + "]; instead it was a [" + source.getClass().getName() + "]");
 		}
+		if (isPlainClass(sourceType) && isPlainClass(targetType)) {
+			return getClassPairConverter(sourceType.getType(), targetType.getType())
+					.convert(source, sourceType, targetType);
+		}
 		GenericConverter converter = getConverter(sourceType, targetType);
 		if (converter != null) {
 			Object result = ConversionUtils.invokeConverter(converter, source, sourceType, targetType);
@@ -212,6 +228,29 @@ public class GenericConversionService implements ConfigurableConversionService {
 		return convert(source, TypeDescriptor.forObject(source), targetType);
 	}
 
+	/**
+	 * Return a reusable {@link Converter} for the given raw source and target type,
+	 * with the underlying converter resolved once rather than on every invocation.
+	 * <p>Invoking the returned converter is equivalent to calling
+	 * {@link #convert(Object, TypeDescriptor, TypeDescriptor)} with
+	 * {@link TypeDescriptor#valueOf(Class) plain type descriptors} for the given
+	 * types. Converters added or removed after this call are not taken into
+	 * account by the returned instance; retrieve a new one in such a case.
+	 * @param sourceType the source type to convert from
+	 * @param targetType the target type to convert to
+	 * @return the converter, or {@code null} if no suitable converter was found
+	 * @since 5.1.4
+	 * @see #canConvert(Class, Class)
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <S, T> Converter<S, T> getConverter(Class<S> sourceType, Class<T> targetType) {
+		Assert.notNull(sourceType, "Source type to convert from cannot be null");
+		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		ClassPairConverter converter = getClassPairConverter(sourceType, targetType);
+		return (converter.isConvertible() ? (Converter<S, T>) converter : null);
+	}
+
 	@Override
 	public String toString() {
 		return this.converters.toString();
@@ -302,8 +341,37 @@ public class GenericConversionService implements ConfigurableConversionService {
 		return generics;
 	}
 
+	/**
+	 * Return the preresolved converter for the given raw source and target type,
+	 * delegating to {@link #getConverter(TypeDescriptor, TypeDescriptor)} once
+	 * per class pair.
+	 */
+	private ClassPairConverter getClassPairConverter(Class<?> sourceType, Class<?> targetType) {
+		ConvertiblePair key = new ConvertiblePair(sourceType, targetType);
+		ClassPairConverter converter = this.classPairConverterCache.get(key);
+		if (converter == null) {
+			TypeDescriptor sourceDescriptor = TypeDescriptor.valueOf(sourceType);
+			TypeDescriptor targetDescriptor = TypeDescriptor.valueOf(targetType);
+			converter = new ClassPairConverter(sourceDescriptor, targetDescriptor,
+					getConverter(sourceDescriptor, targetDescriptor));
+			this.classPairConverterCache.put(key, converter);
+		}
+		return converter;
+	}
+
+	/**
+	 * Determine whether the given type descriptor is fully described by its raw
+	 * class, i.e. carries neither generics nor annotations which converters
+	 * could base their decision on.
+	 */
+	private static boolean isPlainClass(TypeDescriptor typeDescriptor) {
+		return (typeDescriptor.getResolvableType().getType() == typeDescriptor.getType() &&
+				typeDescriptor.getAnnotations().length == 0);
+	}
+
 	private void invalidateCache() {
 		this.converterCache.clear();
+		this.classPairConverterCache.clear();
 	}
 
 	@Nullable
@@ -443,6 +511,82 @@ public class GenericConversionService implements ConfigurableConversionService {
 	}
 
 
+	/**
+	 * Converter preresolved for a raw source and target class: used for
+	 * conversions between non-generic types and exposed as a reusable
+	 * {@link Converter} through {@link #getConverter(Class, Class)}.
+	 */
+	private final class ClassPairConverter implements Converter<Object, Object> {
+
+		private final TypeDescriptor sourceType;
+
+		private final TypeDescriptor targetType;
+
+		@Nullable
+		private final GenericConverter converter;
+
+		@Nullable
+		private final Converter<Object, ?> targetConverter;
+
+		public ClassPairConverter(TypeDescriptor sourceType, TypeDescriptor targetType,
+				@Nullable GenericConverter converter) {
+
+			this.sourceType = sourceType;
+			this.targetType = targetType;
+			this.converter = converter;
+			// Skip the GenericConverter indirection for plain Converters and ConverterFactories
+			if (converter instanceof ConverterAdapter) {
+				this.targetConverter = ((ConverterAdapter) converter).converter;
+			}
+			else if (converter instanceof ConverterFactoryAdapter) {
+				this.targetConverter = ((ConverterFactoryAdapter) converter).converterFactory
+						.getConverter(targetType.getObjectType());
+			}
+			else {
+				this.targetConverter = null;
+			}
+		}
+
+		public boolean isConvertible() {
+			return (this.converter != null);
+		}
+
+		@Override
+		@Nullable
+		public Object convert(Object source) {
+			return convert(source, this.sourceType, this.targetType);
+		}
+
+		@Nullable
+		public Object convert(@Nullable Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+			if (this.converter == null) {
+				return handleConverterNotFound(source, sourceType, targetType);
+			}
+			Object result;
+			if (source != null && this.targetConverter != null) {
+				try {
+					result = this.targetConverter.convert(source);
+				}
+				catch (ConversionFailedException ex) {
+					throw ex;
+				}
+				catch (Throwable ex) {
+					throw new ConversionFailedException(sourceType, targetType, source, ex);
+				}
+			}
+			else {
+				result = ConversionUtils.invokeConverter(this.converter, source, sourceType, targetType);
+			}
+			return handleResult(sourceType, targetType, result);
+		}
+
+		@Override
+		public String toString() {
+			return (this.sourceType + " -> " + this.targetType + " : " + this.converter);
+		}
+	}
+
+
 	/**
 	 * Key for use with the converter cache.
 	 */
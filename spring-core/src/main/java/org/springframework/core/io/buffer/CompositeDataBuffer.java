@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Extension of {@link DataBuffer} for buffers which are composed of several
+ * component buffers, referring to the data of those components rather than
+ * holding a copy of it. Typically returned from
+ * {@link DataBufferFactory#join(java.util.List)}.
+ *
+ * <p>Reading from a composite buffer, e.g. through {@link #read(byte[])} or
+ * {@link #asInputStream()}, works across component boundaries without copying.
+ * Note however that {@link #asByteBuffer()} has to copy the data into a new
+ * {@code ByteBuffer} if the requested range spans multiple components; use
+ * {@link #asByteBuffers()} in order to access the data as it is.
+ *
+ * @author agent
+ * @since 5.1.4
+ * @see DataBufferFactory#join(java.util.List)
+ */
+public interface CompositeDataBuffer extends DataBuffer {
+
+	/**
+	 * Return the number of component buffers this buffer is composed of.
+	 * @return the number of components
+	 */
+	int componentCount();
+
+	/**
+	 * Expose the readable bytes of this buffer as {@link ByteBuffer ByteBuffers},
+	 * one per component that has readable bytes. Data between this
+	 * {@code DataBuffer} and the returned {@code ByteBuffer}s is shared; though
+	 * changes in their {@linkplain ByteBuffer#position() positions} will not be
+	 * reflected in the reading nor writing position of this data buffer.
+	 * @return the readable bytes of this data buffer as byte buffers
+	 */
+	ByteBuffer[] asByteBuffers();
+
+}
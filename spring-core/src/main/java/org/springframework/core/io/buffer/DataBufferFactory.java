@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -74,4 +74,22 @@ public interface DataBufferFactory {
 	 * @since 5.0.3
 	 */
 	DataBuffer join(List<? extends DataBuffer> dataBuffers);
+
+	/**
+	 * Return a {@code DataBuffer} composed of the {@code dataBuffers} elements, preferably
+	 * as a {@link CompositeDataBuffer} that refers to the data of the provided buffers
+	 * rather than copying it.
+	 * <p>Unlike {@link #join(List)}, the returned buffer type is not tied to the buffers
+	 * allocated by this factory; callers that merely read the joined data should prefer
+	 * this method. As with {@code join}, the given data buffers do <strong>not</strong>
+	 * have to be released, as they are released as part of the returned buffer.
+	 * <p>The default implementation delegates to {@link #join(List)}.
+	 * @param dataBuffers the data buffers to be composed
+	 * @return a buffer that is composed from the {@code dataBuffers} argument
+	 * @since 5.1.4
+	 */
+	default DataBuffer compose(List<? extends DataBuffer> dataBuffers) {
+		return join(dataBuffers);
+	}
+
 }
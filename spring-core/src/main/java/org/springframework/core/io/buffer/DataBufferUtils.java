@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,10 +21,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
 import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.StandardOpenOption;
@@ -153,6 +155,38 @@ public abstract class DataBufferUtils {
 		return result.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 	}
 
+	/**
+	 * Obtain a {@code FileChannel} from the given supplier, and map it into a
+	 * {@code Flux} of read-only {@code DataBuffer}s, starting at the given position.
+	 * Each buffer {@linkplain FileChannel#map maps} a region of the file into memory
+	 * and is {@linkplain DataBufferFactory#wrap(ByteBuffer) wrapped} rather than
+	 * copied into a newly allocated buffer. Closes the channel when the flux is
+	 * terminated.
+	 * <p>Note that the mapped memory is only unmapped once the buffers have been
+	 * garbage collected, and that the content of the buffers reflects changes to
+	 * the file while they are in use.
+	 * @param channelSupplier the supplier for the channel to read from
+	 * @param position the position to start reading from
+	 * @param dataBufferFactory the factory to wrap the mapped regions with
+	 * @param regionSize the maximum size of the data buffers
+	 * @return a flux of data buffers mapped from the given channel
+	 * @since 5.1.4
+	 */
+	public static Flux<DataBuffer> readMappedFileChannel(Callable<FileChannel> channelSupplier,
+			long position, DataBufferFactory dataBufferFactory, int regionSize) {
+
+		Assert.notNull(channelSupplier, "'channelSupplier' must not be null");
+		Assert.notNull(dataBufferFactory, "'dataBufferFactory' must not be null");
+		Assert.isTrue(position >= 0, "'position' must be >= 0");
+		Assert.isTrue(regionSize > 0, "'regionSize' must be > 0");
+
+		return Flux.using(channelSupplier,
+				channel -> Flux.generate(
+						new MappedFileChannelGenerator(channel, position, dataBufferFactory, regionSize)),
+				DataBufferUtils::closeChannel)
+				.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+	}
+
 	/**
 	 * Read the given {@code Resource} into a {@code Flux} of {@code DataBuffer}s.
 	 * <p>If the resource is a file, it is read into an
@@ -205,6 +239,40 @@ public abstract class DataBufferUtils {
 	}
 
 
+	/**
+	 * Read the given {@code Resource} into a {@code Flux} of read-only
+	 * {@code DataBuffer}s starting at the given position, mapping the file
+	 * content into memory instead of copying it if possible.
+	 * <p>If the resource is a file, it is mapped via
+	 * {@link #readMappedFileChannel(Callable, long, DataBufferFactory, int)} or
+	 * else read via {@link #read(Resource, long, DataBufferFactory, int)}.
+	 * Closes the channel when the flux is terminated.
+	 * @param resource the resource to read from
+	 * @param position the position to start reading from
+	 * @param dataBufferFactory the factory to create data buffers with
+	 * @param bufferSize the maximum size of the data buffers
+	 * @return a flux of data buffers read from the given resource
+	 * @since 5.1.4
+	 */
+	public static Flux<DataBuffer> readMapped(
+			Resource resource, long position, DataBufferFactory dataBufferFactory, int bufferSize) {
+
+		try {
+			if (resource.isFile()) {
+				File file = resource.getFile();
+				return readMappedFileChannel(
+						() -> FileChannel.open(file.toPath(), StandardOpenOption.READ),
+						position, dataBufferFactory, bufferSize);
+			}
+		}
+		catch (IOException ignore) {
+			// fallback to regular reading, below
+		}
+
+		return read(resource, position, dataBufferFactory, bufferSize);
+	}
+
+
 	//---------------------------------------------------------------------
 	// Writing
 	//---------------------------------------------------------------------
@@ -435,6 +503,7 @@ public abstract class DataBufferUtils {
 	 * @param dataBuffers the data buffers that are to be composed
 	 * @return a buffer that is composed from the {@code dataBuffers} argument
 	 * @since 5.0.3
+	 * @see DataBufferFactory#compose
 	 */
 	public static Mono<DataBuffer> join(Publisher<DataBuffer> dataBuffers) {
 		Assert.notNull(dataBuffers, "'dataBuffers' must not be null");
@@ -442,7 +511,7 @@ public abstract class DataBufferUtils {
 		return Flux.from(dataBuffers)
 				.collectList()
 				.filter(list -> !list.isEmpty())
-				.map(list -> list.get(0).factory().join(list))
+				.map(list -> list.get(0).factory().compose(list))
 				.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 
 	}
@@ -492,6 +561,46 @@ public abstract class DataBufferUtils {
 	}
 
 
+	private static class MappedFileChannelGenerator implements Consumer<SynchronousSink<DataBuffer>> {
+
+		private final FileChannel channel;
+
+		private final DataBufferFactory dataBufferFactory;
+
+		private final int regionSize;
+
+		private long position;
+
+		public MappedFileChannelGenerator(
+				FileChannel channel, long position, DataBufferFactory dataBufferFactory, int regionSize) {
+
+			this.channel = channel;
+			this.position = position;
+			this.dataBufferFactory = dataBufferFactory;
+			this.regionSize = regionSize;
+		}
+
+		@Override
+		public void accept(SynchronousSink<DataBuffer> sink) {
+			try {
+				long remaining = this.channel.size() - this.position;
+				if (remaining > 0) {
+					long size = Math.min(this.regionSize, remaining);
+					MappedByteBuffer byteBuffer = this.channel.map(FileChannel.MapMode.READ_ONLY, this.position, size);
+					this.position += size;
+					sink.next(this.dataBufferFactory.wrap(byteBuffer));
+				}
+				else {
+					sink.complete();
+				}
+			}
+			catch (IOException ex) {
+				sink.error(ex);
+			}
+		}
+	}
+
+
 	private static class AsynchronousFileChannelReadCompletionHandler
 			implements CompletionHandler<Integer, DataBuffer> {
 
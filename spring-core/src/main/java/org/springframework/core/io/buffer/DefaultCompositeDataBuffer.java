@@ -0,0 +1,633 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * {@link CompositeDataBuffer} implementation for the {@link DefaultDataBufferFactory},
+ * based on an array of {@link ByteBuffer} components which are addressed as one
+ * contiguous range of indexes.
+ *
+ * <p>Writing beyond the capacity of this buffer appends a new component rather
+ * than reallocating the existing ones.
+ *
+ * <p>The buffers this buffer is composed of are released once this buffer
+ * (and any slice of it) has been released.
+ *
+ * @author agent
+ * @since 5.1.4
+ * @see DefaultDataBufferFactory#join(List)
+ */
+class DefaultCompositeDataBuffer implements CompositeDataBuffer, PooledDataBuffer {
+
+	private final DefaultDataBufferFactory dataBufferFactory;
+
+	/** The buffers this buffer is composed of, to be released along with it. */
+	private final List<? extends DataBuffer> dataBuffers;
+
+	/** Reference count shared with slices of this buffer. */
+	private final AtomicInteger refCount;
+
+	/** Components with position 0 and their length as limit. */
+	private ByteBuffer[] components;
+
+	/** Index of the first byte of each component within this buffer. */
+	private int[] offsets;
+
+	private int componentCount;
+
+	private int capacity;
+
+	private int readPosition;
+
+	private int writePosition;
+
+	/** Component last accessed, as a starting point for the next lookup. */
+	private int lastComponent;
+
+
+	DefaultCompositeDataBuffer(DefaultDataBufferFactory dataBufferFactory, List<? extends DataBuffer> dataBuffers) {
+		this(dataBufferFactory, readableByteBuffers(dataBuffers), dataBuffers, new AtomicInteger(1));
+	}
+
+	private DefaultCompositeDataBuffer(DefaultDataBufferFactory dataBufferFactory, List<ByteBuffer> components,
+			List<? extends DataBuffer> dataBuffers, AtomicInteger refCount) {
+
+		Assert.notNull(dataBufferFactory, "DefaultDataBufferFactory must not be null");
+		this.dataBufferFactory = dataBufferFactory;
+		this.dataBuffers = dataBuffers;
+		this.refCount = refCount;
+		this.components = new ByteBuffer[Math.max(components.size(), 2)];
+		this.offsets = new int[this.components.length];
+		for (ByteBuffer component : components) {
+			addComponent(component.slice());
+		}
+		this.writePosition = this.capacity;
+	}
+
+	private static List<ByteBuffer> readableByteBuffers(List<? extends DataBuffer> dataBuffers) {
+		Assert.notNull(dataBuffers, "DataBuffers must not be null");
+		List<ByteBuffer> byteBuffers = new ArrayList<>(dataBuffers.size());
+		for (DataBuffer dataBuffer : dataBuffers) {
+			if (dataBuffer.readableByteCount() > 0) {
+				byteBuffers.add(dataBuffer.asByteBuffer());
+			}
+		}
+		return byteBuffers;
+	}
+
+
+	@Override
+	public DefaultDataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	@Override
+	public int componentCount() {
+		return this.componentCount;
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "'predicate' must not be null");
+
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= this.writePosition) {
+			return -1;
+		}
+		for (int c = componentIndex(fromIndex); c < this.componentCount; c++) {
+			ByteBuffer component = this.components[c];
+			int offset = this.offsets[c];
+			int end = Math.min(component.limit(), this.writePosition - offset);
+			for (int i = Math.max(fromIndex - offset, 0); i < end; i++) {
+				if (predicate.test(component.get(i))) {
+					return offset + i;
+				}
+			}
+			if (offset + end >= this.writePosition) {
+				break;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "'predicate' must not be null");
+		int index = Math.min(fromIndex, this.writePosition - 1);
+		if (index < 0) {
+			return -1;
+		}
+		for (int c = componentIndex(index); c >= 0; c--) {
+			ByteBuffer component = this.components[c];
+			int offset = this.offsets[c];
+			for (int i = Math.min(index - offset, component.limit() - 1); i >= 0; i--) {
+				if (predicate.test(component.get(i))) {
+					return offset + i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int readableByteCount() {
+		return this.writePosition - this.readPosition;
+	}
+
+	@Override
+	public int writableByteCount() {
+		return this.capacity - this.writePosition;
+	}
+
+	@Override
+	public int readPosition() {
+		return this.readPosition;
+	}
+
+	@Override
+	public DefaultCompositeDataBuffer readPosition(int readPosition) {
+		assertIndex(readPosition >= 0, "'readPosition' %d must be >= 0", readPosition);
+		assertIndex(readPosition <= this.writePosition, "'readPosition' %d must be <= %d",
+				readPosition, this.writePosition);
+
+		this.readPosition = readPosition;
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return this.writePosition;
+	}
+
+	@Override
+	public DefaultCompositeDataBuffer writePosition(int writePosition) {
+		assertIndex(writePosition >= this.readPosition, "'writePosition' %d must be >= %d",
+				writePosition, this.readPosition);
+		assertIndex(writePosition <= this.capacity, "'writePosition' %d must be <= %d",
+				writePosition, this.capacity);
+
+		this.writePosition = writePosition;
+		return this;
+	}
+
+	@Override
+	public int capacity() {
+		return this.capacity;
+	}
+
+	@Override
+	public DefaultCompositeDataBuffer capacity(int newCapacity) {
+		Assert.isTrue(newCapacity > 0,
+				String.format("'newCapacity' %d must be higher than 0", newCapacity));
+
+		if (newCapacity > this.capacity) {
+			addComponent(allocate(newCapacity - this.capacity));
+		}
+		else if (newCapacity < this.capacity) {
+			if (this.readPosition >= newCapacity) {
+				this.readPosition = newCapacity;
+				this.writePosition = newCapacity;
+			}
+			else if (this.writePosition > newCapacity) {
+				this.writePosition = newCapacity;
+			}
+			int last = componentIndex(newCapacity - 1);
+			ByteBuffer component = this.components[last].duplicate();
+			((Buffer) component).limit(newCapacity - this.offsets[last]);
+			this.components[last] = component.slice();
+			Arrays.fill(this.components, last + 1, this.componentCount, null);
+			this.componentCount = last + 1;
+			this.capacity = newCapacity;
+			this.lastComponent = 0;
+		}
+		return this;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(index <= this.writePosition - 1, "index %d must be <= %d",
+				index, this.writePosition - 1);
+
+		int c = componentIndex(index);
+		return this.components[c].get(index - this.offsets[c]);
+	}
+
+	@Override
+	public byte read() {
+		assertIndex(this.readPosition <= this.writePosition - 1, "readPosition %d must be <= %d",
+				this.readPosition, this.writePosition - 1);
+		int pos = this.readPosition;
+		int c = componentIndex(pos);
+		byte b = this.components[c].get(pos - this.offsets[c]);
+		this.readPosition = pos + 1;
+		return b;
+	}
+
+	@Override
+	public DefaultCompositeDataBuffer read(byte[] destination) {
+		Assert.notNull(destination, "'destination' must not be null");
+		read(destination, 0, destination.length);
+		return this;
+	}
+
+	@Override
+	public DefaultCompositeDataBuffer read(byte[] destination, int offset, int length) {
+		Assert.notNull(destination, "'destination' must not be null");
+		assertIndex(this.readPosition <= this.writePosition - length,
+				"readPosition %d and length %d should be smaller than writePosition %d",
+				this.readPosition, length, this.writePosition);
+
+		int index = this.readPosition;
+		int remaining = length;
+		while (remaining > 0) {
+			ByteBuffer tmp = componentBuffer(index);
+			int count = Math.min(remaining, tmp.remaining());
+			tmp.get(destination, offset, count);
+			index += count;
+			offset += count;
+			remaining -= count;
+		}
+		this.readPosition += length;
+		return this;
+	}
+
+	@Override
+	public DefaultCompositeDataBuffer write(byte b) {
+		ensureCapacity(1);
+		int pos = this.writePosition;
+		int c = componentIndex(pos);
+		this.components[c].put(pos - this.offsets[c], b);
+		this.writePosition = pos + 1;
+		return this;
+	}
+
+	@Override
+	public DefaultCompositeDataBuffer write(byte[] source) {
+		Assert.notNull(source, "'source' must not be null");
+		write(source, 0, source.length);
+		return this;
+	}
+
+	@Override
+	public DefaultCompositeDataBuffer write(byte[] source, int offset, int length) {
+		Assert.notNull(source, "'source' must not be null");
+		ensureCapacity(length);
+
+		int remaining = length;
+		while (remaining > 0) {
+			ByteBuffer tmp = componentBuffer(this.writePosition);
+			int count = Math.min(remaining, tmp.remaining());
+			tmp.put(source, offset, count);
+			this.writePosition += count;
+			offset += count;
+			remaining -= count;
+		}
+		return this;
+	}
+
+	@Override
+	public DefaultCompositeDataBuffer write(DataBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			ByteBuffer[] byteBuffers =
+					Arrays.stream(buffers).map(DataBuffer::asByteBuffer)
+							.toArray(ByteBuffer[]::new);
+			write(byteBuffers);
+		}
+		return this;
+	}
+
+	@Override
+	public DefaultCompositeDataBuffer write(ByteBuffer... byteBuffers) {
+		Assert.notEmpty(byteBuffers, "'byteBuffers' must not be empty");
+		int capacity = Arrays.stream(byteBuffers).mapToInt(ByteBuffer::remaining).sum();
+		ensureCapacity(capacity);
+		Arrays.stream(byteBuffers).forEach(this::write);
+		return this;
+	}
+
+	private void write(ByteBuffer source) {
+		while (source.hasRemaining()) {
+			ByteBuffer tmp = componentBuffer(this.writePosition);
+			int count = Math.min(source.remaining(), tmp.remaining());
+			ByteBuffer chunk = source.slice();
+			((Buffer) chunk).limit(count);
+			tmp.put(chunk);
+			((Buffer) source).position(source.position() + count);
+			this.writePosition += count;
+		}
+	}
+
+	@Override
+	public DefaultCompositeDataBuffer slice(int index, int length) {
+		checkIndex(index, length);
+		return new DefaultCompositeDataBuffer(this.dataBufferFactory,
+				Arrays.asList(slices(index, length)), this.dataBuffers, this.refCount);
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+		return asByteBuffer(this.readPosition, readableByteCount());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Note that data is only shared if the requested range lies within a
+	 * single component: otherwise, the returned buffer contains a copy.
+	 */
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		checkIndex(index, length);
+		ByteBuffer[] slices = slices(index, length);
+		if (slices.length == 1) {
+			return slices[0];
+		}
+		ByteBuffer copy = (slices[0].isDirect() ?
+				ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length));
+		for (ByteBuffer slice : slices) {
+			copy.put(slice);
+		}
+		((Buffer) copy).flip();
+		return copy;
+	}
+
+	@Override
+	public ByteBuffer[] asByteBuffers() {
+		int length = readableByteCount();
+		if (length == 0) {
+			return new ByteBuffer[0];
+		}
+		return slices(this.readPosition, length);
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return new DefaultCompositeDataBufferInputStream(false);
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		return new DefaultCompositeDataBufferInputStream(releaseOnClose);
+	}
+
+	@Override
+	public OutputStream asOutputStream() {
+		return new DefaultCompositeDataBufferOutputStream();
+	}
+
+	@Override
+	public boolean isAllocated() {
+		return (this.refCount.get() > 0);
+	}
+
+	@Override
+	public DefaultCompositeDataBuffer retain() {
+		int count;
+		do {
+			count = this.refCount.get();
+			Assert.state(count > 0, "Buffer has already been released");
+		}
+		while (!this.refCount.compareAndSet(count, count + 1));
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		int count;
+		do {
+			count = this.refCount.get();
+			Assert.state(count > 0, "Buffer has already been released");
+		}
+		while (!this.refCount.compareAndSet(count, count - 1));
+		if (count == 1) {
+			this.dataBuffers.forEach(DataBufferUtils::release);
+			return true;
+		}
+		return false;
+	}
+
+
+	private void addComponent(ByteBuffer component) {
+		if (this.componentCount == this.components.length) {
+			int newLength = this.componentCount * 2;
+			this.components = Arrays.copyOf(this.components, newLength);
+			this.offsets = Arrays.copyOf(this.offsets, newLength);
+		}
+		this.components[this.componentCount] = component;
+		this.offsets[this.componentCount] = this.capacity;
+		this.componentCount++;
+		this.capacity += component.limit();
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		boolean direct = (this.componentCount > 0 && this.components[this.componentCount - 1].isDirect());
+		return (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	private void ensureCapacity(int length) {
+		int missing = length - writableByteCount();
+		if (missing > 0) {
+			addComponent(allocate(Math.max(missing, DefaultDataBufferFactory.DEFAULT_INITIAL_CAPACITY)));
+		}
+	}
+
+	/**
+	 * Return the index of the component containing the given index,
+	 * which must be smaller than the capacity.
+	 */
+	private int componentIndex(int index) {
+		int last = this.lastComponent;
+		if (index >= this.offsets[last] && index < this.offsets[last] + this.components[last].limit()) {
+			return last;
+		}
+		int low = 0;
+		int high = this.componentCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.offsets[mid] <= index) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		this.lastComponent = low;
+		return low;
+	}
+
+	/**
+	 * Return a view of the component containing the given index, with its
+	 * position set to the given index.
+	 */
+	private ByteBuffer componentBuffer(int index) {
+		int c = componentIndex(index);
+		ByteBuffer tmp = this.components[c].duplicate();
+		((Buffer) tmp).position(index - this.offsets[c]);
+		return tmp;
+	}
+
+	/**
+	 * Return shared views of the components covering the given range.
+	 */
+	private ByteBuffer[] slices(int index, int length) {
+		if (length == 0) {
+			return new ByteBuffer[] {ByteBuffer.allocate(0)};
+		}
+		int first = componentIndex(index);
+		int last = componentIndex(index + length - 1);
+		ByteBuffer[] slices = new ByteBuffer[last - first + 1];
+		for (int c = first; c <= last; c++) {
+			ByteBuffer slice = this.components[c].duplicate();
+			int offset = this.offsets[c];
+			((Buffer) slice).position(Math.max(index - offset, 0));
+			((Buffer) slice).limit(Math.min(index + length - offset, slice.limit()));
+			slices[c - first] = slice.slice();
+		}
+		return slices;
+	}
+
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof DefaultCompositeDataBuffer)) {
+			return false;
+		}
+		DefaultCompositeDataBuffer otherBuffer = (DefaultCompositeDataBuffer) other;
+		if (this.readPosition != otherBuffer.readPosition ||
+				this.writePosition != otherBuffer.writePosition ||
+				this.capacity != otherBuffer.capacity) {
+			return false;
+		}
+		for (int i = 0; i < this.capacity; i++) {
+			if (byteAt(i) != otherBuffer.byteAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hashCode = 1;
+		for (int i = this.capacity - 1; i >= 0; i--) {
+			hashCode = 31 * hashCode + byteAt(i);
+		}
+		return hashCode;
+	}
+
+	private byte byteAt(int index) {
+		int c = componentIndex(index);
+		return this.components[c].get(index - this.offsets[c]);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("DefaultCompositeDataBuffer (r: %d, w: %d, c: %d, components: %d)",
+				this.readPosition, this.writePosition, this.capacity, this.componentCount);
+	}
+
+
+	private void checkIndex(int index, int length) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(length >= 0, "length %d must be >= 0", length);
+		assertIndex(index + length <= this.capacity, "index %d and length %d must be <= %d",
+				index, length, this.capacity);
+	}
+
+	private static void assertIndex(boolean expression, String format, Object... args) {
+		if (!expression) {
+			String message = String.format(format, args);
+			throw new IndexOutOfBoundsException(message);
+		}
+	}
+
+
+	private class DefaultCompositeDataBufferInputStream extends InputStream {
+
+		private final boolean releaseOnClose;
+
+		private boolean closed;
+
+		public DefaultCompositeDataBufferInputStream(boolean releaseOnClose) {
+			this.releaseOnClose = releaseOnClose;
+		}
+
+		@Override
+		public int available() {
+			return readableByteCount();
+		}
+
+		@Override
+		public int read() {
+			return available() > 0 ? DefaultCompositeDataBuffer.this.read() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) {
+			int available = available();
+			if (available > 0) {
+				len = Math.min(len, available);
+				DefaultCompositeDataBuffer.this.read(bytes, off, len);
+				return len;
+			}
+			else {
+				return -1;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (this.releaseOnClose && !this.closed) {
+				this.closed = true;
+				release();
+			}
+		}
+	}
+
+
+	private class DefaultCompositeDataBufferOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) {
+			DefaultCompositeDataBuffer.this.write((byte) b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int off, int len) {
+			DefaultCompositeDataBuffer.this.write(bytes, off, len);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -107,6 +107,7 @@ public class DefaultDataBufferFactory implements DataBufferFactory {
 	 * {@inheritDoc}
 	 * <p>This implementation creates a single {@link DefaultDataBuffer} to contain the data
 	 * in {@code dataBuffers}.
+	 * @see #compose(List)
 	 */
 	@Override
 	public DefaultDataBuffer join(List<? extends DataBuffer> dataBuffers) {
@@ -121,6 +122,23 @@ public class DefaultDataBufferFactory implements DataBufferFactory {
 		return result;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>This implementation returns a {@link CompositeDataBuffer} referring to the
+	 * data of the given {@code dataBuffers} rather than copying it, unless there is
+	 * only a single buffer which is returned as-is. The given buffers are released
+	 * once the composite buffer has been released.
+	 * @since 5.1.4
+	 */
+	@Override
+	public DataBuffer compose(List<? extends DataBuffer> dataBuffers) {
+		Assert.notEmpty(dataBuffers, "'dataBuffers' must not be empty");
+		if (dataBuffers.size() == 1) {
+			return dataBuffers.get(0);
+		}
+		return new DefaultCompositeDataBuffer(this, dataBuffers);
+	}
+
 	@Override
 	public String toString() {
 		return "DefaultDataBufferFactory (preferDirect=" + this.preferDirect + ")";
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.ByteBuffer;
+
+import io.netty.buffer.CompositeByteBuf;
+
+/**
+ * {@link CompositeDataBuffer} implementation that wraps a Netty
+ * {@link CompositeByteBuf}. Constructed with {@link NettyDataBufferFactory}.
+ *
+ * @author agent
+ * @since 5.1.4
+ * @see NettyDataBufferFactory#join(java.util.List)
+ */
+class NettyCompositeDataBuffer extends NettyDataBuffer implements CompositeDataBuffer {
+
+	NettyCompositeDataBuffer(CompositeByteBuf byteBuf, NettyDataBufferFactory dataBufferFactory) {
+		super(byteBuf, dataBufferFactory);
+	}
+
+
+	@Override
+	public CompositeByteBuf getNativeBuffer() {
+		return (CompositeByteBuf) super.getNativeBuffer();
+	}
+
+	@Override
+	public int componentCount() {
+		return getNativeBuffer().numComponents();
+	}
+
+	@Override
+	public ByteBuffer[] asByteBuffers() {
+		return getNativeBuffer().nioBuffers();
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		return new NettyCompositeDataBuffer(getNativeBuffer().retain(), factory());
+	}
+
+}
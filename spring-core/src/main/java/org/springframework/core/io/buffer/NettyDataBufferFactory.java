@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -88,12 +88,16 @@ public class NettyDataBufferFactory implements DataBufferFactory {
 	 * @return the wrapped buffer
 	 */
 	public NettyDataBuffer wrap(ByteBuf byteBuf) {
+		if (byteBuf instanceof CompositeByteBuf) {
+			return new NettyCompositeDataBuffer((CompositeByteBuf) byteBuf, this);
+		}
 		return new NettyDataBuffer(byteBuf, this);
 	}
 
 	/**
 	 * {@inheritDoc}
-	 * <p>This implementation uses Netty's {@link CompositeByteBuf}.
+	 * <p>This implementation returns a {@link CompositeDataBuffer} based on
+	 * Netty's {@link CompositeByteBuf}.
 	 */
 	@Override
 	public DataBuffer join(List<? extends DataBuffer> dataBuffers) {
@@ -103,7 +107,7 @@ public class NettyDataBufferFactory implements DataBufferFactory {
 			Assert.isInstanceOf(NettyDataBuffer.class, dataBuffer);
 			composite.addComponent(true, ((NettyDataBuffer) dataBuffer).getNativeBuffer());
 		}
-		return new NettyDataBuffer(composite, this);
+		return new NettyCompositeDataBuffer(composite, this);
 	}
 
 	/**
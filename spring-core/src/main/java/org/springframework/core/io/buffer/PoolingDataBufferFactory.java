@@ -0,0 +1,578 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Extension of {@link DefaultDataBufferFactory} which recycles the memory of
+ * released buffers, as an alternative to {@link NettyDataBufferFactory} with a
+ * pooled Netty allocator for runtimes without Netty, e.g. the Servlet and
+ * Undertow adapters in WebFlux.
+ *
+ * <p>The buffers allocated by this factory are {@link PooledDataBuffer}s: once
+ * {@linkplain DataBufferUtils#release(DataBuffer) released}, their memory is
+ * returned to a pool for the next allocation of the same size class. Size
+ * classes are powers of two, from 64 bytes up to the
+ * {@linkplain #setMaxPooledCapacity maximum pooled capacity}; larger buffers
+ * are not pooled. Each thread keeps a small cache of the memory of buffers that
+ * it allocated and released itself, backed by a bounded pool shared across
+ * threads: buffers released on a different thread than the one that allocated
+ * them, e.g. with the Servlet adapter, and memory beyond the capacity of the
+ * thread cache go to the shared pool. Thread caches count against the maximum
+ * amount of memory pooled per size class.
+ *
+ * <p>Buffers which are not released are simply garbage collected, so a leak
+ * only defeats the recycling of their memory. The number of buffers which have
+ * been allocated but not released yet is available through
+ * {@link #getAllocatedBufferCount()}, e.g. for leak detection in tests.
+ * <p><strong>Note</strong> that a buffer must not be accessed anymore once it
+ * has been released, since its memory may have been handed out again.
+ *
+ * @author agent
+ * @since 5.1.4
+ * @see PooledDataBuffer
+ */
+public class PoolingDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The default maximum capacity of pooled buffers.
+	 * @see #setMaxPooledCapacity
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	/**
+	 * The default maximum amount of memory per size class in the shared pool.
+	 * @see #setMaxPooledMemoryPerSizeClass
+	 */
+	public static final int DEFAULT_MAX_POOLED_MEMORY_PER_SIZE_CLASS = 4 * 1024 * 1024;
+
+	private static final int MIN_SIZE_CLASS_SHIFT = 6;
+
+	private static final int MAX_THREAD_CACHE_SIZE = 8;
+
+	private static final int MAX_THREAD_CACHE_MEMORY_PER_SIZE_CLASS = 16 * 1024;
+
+
+	private final boolean preferDirect;
+
+	private volatile SizeClass[] sizeClasses;
+
+	private final ThreadLocal<ThreadCache> threadCache = new ThreadLocal<>();
+
+	/** All thread caches, for reclaiming the memory of terminated threads. */
+	private final Queue<ThreadCache> threadCaches = new ConcurrentLinkedQueue<>();
+
+	private final LongAdder allocatedBufferCount = new LongAdder();
+
+
+	/**
+	 * Create a new {@code PoolingDataBufferFactory} with default settings.
+	 */
+	public PoolingDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Create a new {@code PoolingDataBufferFactory}, indicating whether direct
+	 * buffers should be created by {@link #allocateBuffer()} and
+	 * {@link #allocateBuffer(int)}.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PoolingDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Create a new {@code PoolingDataBufferFactory}, indicating whether direct
+	 * buffers should be created by {@link #allocateBuffer()} and
+	 * {@link #allocateBuffer(int)}, and what the capacity is to be used for
+	 * {@link #allocateBuffer()}.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PoolingDataBufferFactory(boolean preferDirect, int defaultInitialCapacity) {
+		super(preferDirect, defaultInitialCapacity);
+		this.preferDirect = preferDirect;
+		this.sizeClasses = createSizeClasses(DEFAULT_MAX_POOLED_CAPACITY, DEFAULT_MAX_POOLED_MEMORY_PER_SIZE_CLASS);
+	}
+
+
+	/**
+	 * Set the maximum capacity of pooled buffers, rounded up to the next power
+	 * of two. Buffers of a larger capacity are allocated and garbage collected
+	 * as with the {@link DefaultDataBufferFactory}.
+	 * <p>By default this is set to {@value #DEFAULT_MAX_POOLED_CAPACITY} bytes.
+	 * Changing this setting discards all currently pooled memory.
+	 */
+	public void setMaxPooledCapacity(int maxPooledCapacity) {
+		Assert.isTrue(maxPooledCapacity > 0, "'maxPooledCapacity' must be larger than 0");
+		this.sizeClasses = createSizeClasses(maxPooledCapacity, getMaxPooledMemoryPerSizeClass());
+	}
+
+	/**
+	 * Return the maximum capacity of pooled buffers.
+	 */
+	public int getMaxPooledCapacity() {
+		SizeClass[] sizeClasses = this.sizeClasses;
+		return sizeClasses[sizeClasses.length - 1].capacity;
+	}
+
+	/**
+	 * Set the maximum amount of memory to keep per size class, in the pool
+	 * shared across threads and in the per-thread caches together.
+	 * <p>By default this is set to {@value #DEFAULT_MAX_POOLED_MEMORY_PER_SIZE_CLASS}
+	 * bytes. Changing this setting discards all currently pooled memory.
+	 */
+	public void setMaxPooledMemoryPerSizeClass(int maxPooledMemory) {
+		Assert.isTrue(maxPooledMemory >= 0, "'maxPooledMemory' must not be negative");
+		this.sizeClasses = createSizeClasses(getMaxPooledCapacity(), maxPooledMemory);
+	}
+
+	/**
+	 * Return the maximum amount of memory to keep per size class.
+	 */
+	public int getMaxPooledMemoryPerSizeClass() {
+		return this.sizeClasses[0].maxPooledMemory;
+	}
+
+	/**
+	 * Return the number of buffers which have been allocated by this factory
+	 * and not been released yet.
+	 */
+	public long getAllocatedBufferCount() {
+		return this.allocatedBufferCount.sum();
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' must not be negative");
+		PooledDefaultDataBuffer dataBuffer =
+				new PooledDefaultDataBuffer(this, acquire(initialCapacity), initialCapacity);
+		this.allocatedBufferCount.increment();
+		return dataBuffer;
+	}
+
+	@Override
+	public String toString() {
+		return "PoolingDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + getMaxPooledCapacity() + ")";
+	}
+
+
+	/**
+	 * Obtain memory for a buffer of the given capacity, from the thread cache or
+	 * the shared pool if possible.
+	 * @return the memory, with a capacity of at least the given capacity
+	 */
+	private ByteBuffer acquire(int capacity) {
+		SizeClass[] sizeClasses = this.sizeClasses;
+		int index = sizeClassIndex(capacity);
+		if (index >= sizeClasses.length) {
+			return allocate(capacity);
+		}
+		SizeClass sizeClass = sizeClasses[index];
+		ThreadCache cache = this.threadCache.get();
+		ByteBuffer memory = null;
+		if (cache != null && cache.sizeClasses == sizeClasses) {
+			memory = cache.poll(index);
+		}
+		if (memory == null) {
+			memory = sizeClass.poll();
+		}
+		return (memory != null ? memory : allocate(sizeClass.capacity));
+	}
+
+	/**
+	 * Return the given memory to the pool, if it matches a size class and there
+	 * is room for it: to the thread cache if released on the thread which
+	 * allocated the buffer, and to the shared pool otherwise or if the thread
+	 * cache is full.
+	 * @param memory the memory to recycle
+	 * @param allocatingThread the thread which allocated the buffer
+	 */
+	private void recycle(ByteBuffer memory, Thread allocatingThread) {
+		if (memory.isDirect() != this.preferDirect) {
+			return;
+		}
+		SizeClass[] sizeClasses = this.sizeClasses;
+		int index = sizeClassIndex(memory.capacity());
+		if (index >= sizeClasses.length || sizeClasses[index].capacity != memory.capacity()) {
+			return;
+		}
+		SizeClass sizeClass = sizeClasses[index];
+		if (!sizeClass.reserve()) {
+			return;
+		}
+		if (Thread.currentThread() == allocatingThread) {
+			ThreadCache cache = this.threadCache.get();
+			if (cache == null || cache.sizeClasses != sizeClasses) {
+				cache = createThreadCache(sizeClasses);
+			}
+			if (cache.offer(index, memory)) {
+				return;
+			}
+		}
+		sizeClass.push(memory);
+	}
+
+	/**
+	 * Create a cache for the current thread, first moving the memory held by
+	 * the caches of terminated threads to the shared pool.
+	 */
+	private ThreadCache createThreadCache(SizeClass[] sizeClasses) {
+		for (Iterator<ThreadCache> it = this.threadCaches.iterator(); it.hasNext();) {
+			ThreadCache cache = it.next();
+			if (cache.sizeClasses != sizeClasses) {
+				it.remove();
+			}
+			else if (!cache.owner.isAlive() && this.threadCaches.remove(cache)) {
+				cache.drain();
+			}
+		}
+		ThreadCache cache = new ThreadCache(sizeClasses, Thread.currentThread());
+		this.threadCache.set(cache);
+		this.threadCaches.add(cache);
+		return cache;
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return (this.preferDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	private static int sizeClassIndex(int capacity) {
+		if (capacity <= (1 << MIN_SIZE_CLASS_SHIFT)) {
+			return 0;
+		}
+		return (Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1)) - MIN_SIZE_CLASS_SHIFT;
+	}
+
+	private static SizeClass[] createSizeClasses(int maxPooledCapacity, int maxPooledMemory) {
+		SizeClass[] sizeClasses = new SizeClass[sizeClassIndex(maxPooledCapacity) + 1];
+		for (int i = 0; i < sizeClasses.length; i++) {
+			sizeClasses[i] = new SizeClass(1 << (i + MIN_SIZE_CLASS_SHIFT), maxPooledMemory);
+		}
+		return sizeClasses;
+	}
+
+	/**
+	 * Return a view of the given memory, limited to the given capacity.
+	 */
+	private static ByteBuffer view(ByteBuffer memory, int capacity) {
+		ByteBuffer view = memory.duplicate();
+		((Buffer) view).limit(capacity);
+		return view.slice();
+	}
+
+
+	/**
+	 * Pool of memory of a specific capacity, shared across threads. Also keeps
+	 * count of the memory of this capacity held in thread caches.
+	 */
+	private static final class SizeClass {
+
+		final int capacity;
+
+		final int maxPooledMemory;
+
+		private final int maxSize;
+
+		private final Queue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+
+		/** The number of pooled buffers, including the ones held in thread caches. */
+		private final AtomicInteger size = new AtomicInteger();
+
+		SizeClass(int capacity, int maxPooledMemory) {
+			this.capacity = capacity;
+			this.maxPooledMemory = maxPooledMemory;
+			this.maxSize = maxPooledMemory / capacity;
+		}
+
+		@Nullable
+		ByteBuffer poll() {
+			ByteBuffer memory = this.pool.poll();
+			if (memory != null) {
+				this.size.decrementAndGet();
+			}
+			return memory;
+		}
+
+		/**
+		 * Reserve room for a buffer, either in this pool or in a thread cache.
+		 * @return {@code true} if reserved, {@code false} if the pool is full
+		 */
+		boolean reserve() {
+			if (this.size.incrementAndGet() <= this.maxSize) {
+				return true;
+			}
+			this.size.decrementAndGet();
+			return false;
+		}
+
+		/**
+		 * Give up the room reserved for a buffer taken from a thread cache.
+		 */
+		void unreserve() {
+			this.size.decrementAndGet();
+		}
+
+		/**
+		 * Add memory to this pool, for which room has been reserved already.
+		 */
+		void push(ByteBuffer memory) {
+			this.pool.offer(memory);
+		}
+	}
+
+
+	/**
+	 * Per-thread cache of memory, avoiding contention on the shared pool for
+	 * buffers allocated and released on the same thread. Only accessed by its
+	 * owner thread, or by others once that thread has terminated.
+	 */
+	private static final class ThreadCache {
+
+		final SizeClass[] sizeClasses;
+
+		final Thread owner;
+
+		private final ByteBuffer[][] stacks;
+
+		private final int[] sizes;
+
+		ThreadCache(SizeClass[] sizeClasses, Thread owner) {
+			this.sizeClasses = sizeClasses;
+			this.owner = owner;
+			this.stacks = new ByteBuffer[sizeClasses.length][];
+			this.sizes = new int[sizeClasses.length];
+			for (int i = 0; i < sizeClasses.length; i++) {
+				int maxSize = MAX_THREAD_CACHE_MEMORY_PER_SIZE_CLASS / sizeClasses[i].capacity;
+				this.stacks[i] = new ByteBuffer[Math.min(MAX_THREAD_CACHE_SIZE, maxSize)];
+			}
+		}
+
+		@Nullable
+		ByteBuffer poll(int index) {
+			int size = this.sizes[index];
+			if (size == 0) {
+				return null;
+			}
+			ByteBuffer[] stack = this.stacks[index];
+			ByteBuffer memory = stack[--size];
+			stack[size] = null;
+			this.sizes[index] = size;
+			this.sizeClasses[index].unreserve();
+			return memory;
+		}
+
+		boolean offer(int index, ByteBuffer memory) {
+			int size = this.sizes[index];
+			ByteBuffer[] stack = this.stacks[index];
+			if (size == stack.length) {
+				return false;
+			}
+			stack[size] = memory;
+			this.sizes[index] = size + 1;
+			return true;
+		}
+
+		/**
+		 * Move all memory in this cache to the shared pool.
+		 */
+		void drain() {
+			for (int i = 0; i < this.stacks.length; i++) {
+				ByteBuffer[] stack = this.stacks[i];
+				for (int j = 0; j < this.sizes[i]; j++) {
+					this.sizeClasses[i].push(stack[j]);
+					stack[j] = null;
+				}
+				this.sizes[i] = 0;
+			}
+		}
+	}
+
+
+	/**
+	 * {@link DefaultDataBuffer} based on pooled memory, returned to the pool
+	 * once the reference count drops to zero.
+	 */
+	private static class PooledDefaultDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private final PoolingDataBufferFactory dataBufferFactory;
+
+		/** Reference count shared with slices of this buffer. */
+		private final AtomicInteger refCount = new AtomicInteger(1);
+
+		/** The thread which allocated this buffer. */
+		private final Thread allocatingThread = Thread.currentThread();
+
+		/** The pooled memory the native buffer is a view of. */
+		private ByteBuffer memory;
+
+		@Nullable
+		private ByteBuffer newMemory;
+
+		PooledDefaultDataBuffer(PoolingDataBufferFactory dataBufferFactory, ByteBuffer memory, int capacity) {
+			super(dataBufferFactory, view(memory, capacity));
+			this.dataBufferFactory = dataBufferFactory;
+			this.memory = memory;
+		}
+
+		@Override
+		ByteBuffer allocateNativeBuffer(int capacity, boolean direct) {
+			this.newMemory = this.dataBufferFactory.acquire(capacity);
+			return view(this.newMemory, capacity);
+		}
+
+		@Override
+		void releaseNativeBuffer(ByteBuffer byteBuffer) {
+			Assert.state(this.newMemory != null, "No new memory allocated");
+			this.dataBufferFactory.recycle(this.memory, this.allocatingThread);
+			this.memory = this.newMemory;
+			this.newMemory = null;
+		}
+
+		@Override
+		public DefaultDataBuffer slice(int index, int length) {
+			return new PooledSlice(this, super.slice(index, length).getNativeBuffer(), length);
+		}
+
+		@Override
+		public InputStream asInputStream(boolean releaseOnClose) {
+			InputStream inputStream = super.asInputStream(releaseOnClose);
+			return (releaseOnClose ? new ReleasingInputStream(inputStream, this) : inputStream);
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return (this.refCount.get() > 0);
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			int count;
+			do {
+				count = this.refCount.get();
+				Assert.state(count > 0, "Buffer has already been released");
+			}
+			while (!this.refCount.compareAndSet(count, count + 1));
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			int count;
+			do {
+				count = this.refCount.get();
+				Assert.state(count > 0, "Buffer has already been released");
+			}
+			while (!this.refCount.compareAndSet(count, count - 1));
+			if (count == 1) {
+				this.dataBufferFactory.recycle(this.memory, this.allocatingThread);
+				this.dataBufferFactory.allocatedBufferCount.decrement();
+				return true;
+			}
+			return false;
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link PooledDefaultDataBuffer}, sharing its reference count.
+	 */
+	private static class PooledSlice extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledDefaultDataBuffer parent;
+
+		PooledSlice(PooledDefaultDataBuffer parent, ByteBuffer byteBuffer, int length) {
+			super(parent.factory(), byteBuffer);
+			this.parent = parent;
+			writePosition(length);
+		}
+
+		@Override
+		public DefaultDataBuffer capacity(int newCapacity) {
+			throw new UnsupportedOperationException("Changing the capacity of a sliced buffer is not supported");
+		}
+
+		@Override
+		public DefaultDataBuffer slice(int index, int length) {
+			return new PooledSlice(this.parent, super.slice(index, length).getNativeBuffer(), length);
+		}
+
+		@Override
+		public InputStream asInputStream(boolean releaseOnClose) {
+			InputStream inputStream = super.asInputStream(releaseOnClose);
+			return (releaseOnClose ? new ReleasingInputStream(inputStream, this) : inputStream);
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+	}
+
+
+	/**
+	 * InputStream which releases the underlying buffer when closed.
+	 */
+	private static class ReleasingInputStream extends FilterInputStream {
+
+		private final PooledDataBuffer dataBuffer;
+
+		private boolean closed;
+
+		ReleasingInputStream(InputStream inputStream, PooledDataBuffer dataBuffer) {
+			super(inputStream);
+			this.dataBuffer = dataBuffer;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!this.closed) {
+				this.closed = true;
+				this.dataBuffer.release();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.IntPredicate;
+
+/**
+ * {@link PooledDataBuffer} created by a {@link TrackingDataBufferFactory},
+ * delegating to the buffer allocated by the decorated factory.
+ *
+ * @author agent
+ * @since 5.1.4
+ */
+class TrackingDataBuffer implements PooledDataBuffer {
+
+	private final DataBuffer delegate;
+
+	private final TrackingDataBufferFactory.Tracker tracker;
+
+	private final TrackingDataBufferFactory dataBufferFactory;
+
+
+	TrackingDataBuffer(DataBuffer delegate, TrackingDataBufferFactory.Tracker tracker,
+			TrackingDataBufferFactory dataBufferFactory) {
+
+		this.delegate = delegate;
+		this.tracker = tracker;
+		this.dataBufferFactory = dataBufferFactory;
+	}
+
+
+	/**
+	 * Return the buffer allocated by the decorated factory, transferring the
+	 * ownership of this buffer to the caller.
+	 */
+	DataBuffer handOver() {
+		this.tracker.handOver();
+		return this.delegate;
+	}
+
+	@Override
+	public boolean isAllocated() {
+		return this.tracker.isAllocated();
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		this.tracker.retain();
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		return this.tracker.release();
+	}
+
+
+	// delegation
+
+	@Override
+	public TrackingDataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		return this.delegate.indexOf(predicate, fromIndex);
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		return this.delegate.lastIndexOf(predicate, fromIndex);
+	}
+
+	@Override
+	public int readableByteCount() {
+		return this.delegate.readableByteCount();
+	}
+
+	@Override
+	public int writableByteCount() {
+		return this.delegate.writableByteCount();
+	}
+
+	@Override
+	public int capacity() {
+		return this.delegate.capacity();
+	}
+
+	@Override
+	public TrackingDataBuffer capacity(int newCapacity) {
+		this.delegate.capacity(newCapacity);
+		return this;
+	}
+
+	@Override
+	public int readPosition() {
+		return this.delegate.readPosition();
+	}
+
+	@Override
+	public TrackingDataBuffer readPosition(int readPosition) {
+		this.delegate.readPosition(readPosition);
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return this.delegate.writePosition();
+	}
+
+	@Override
+	public TrackingDataBuffer writePosition(int writePosition) {
+		this.delegate.writePosition(writePosition);
+		return this;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		return this.delegate.getByte(index);
+	}
+
+	@Override
+	public byte read() {
+		return this.delegate.read();
+	}
+
+	@Override
+	public TrackingDataBuffer read(byte[] destination) {
+		this.delegate.read(destination);
+		return this;
+	}
+
+	@Override
+	public TrackingDataBuffer read(byte[] destination, int offset, int length) {
+		this.delegate.read(destination, offset, length);
+		return this;
+	}
+
+	@Override
+	public TrackingDataBuffer write(byte b) {
+		this.delegate.write(b);
+		return this;
+	}
+
+	@Override
+	public TrackingDataBuffer write(byte[] source) {
+		this.delegate.write(source);
+		return this;
+	}
+
+	@Override
+	public TrackingDataBuffer write(byte[] source, int offset, int length) {
+		this.delegate.write(source, offset, length);
+		return this;
+	}
+
+	@Override
+	public TrackingDataBuffer write(DataBuffer... buffers) {
+		this.delegate.write(buffers);
+		return this;
+	}
+
+	@Override
+	public TrackingDataBuffer write(ByteBuffer... buffers) {
+		this.delegate.write(buffers);
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The slice shares the reference count of this buffer.
+	 */
+	@Override
+	public TrackingDataBuffer slice(int index, int length) {
+		return new TrackingDataBuffer(this.delegate.slice(index, length), this.tracker, this.dataBufferFactory);
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+		return this.delegate.asByteBuffer();
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		return this.delegate.asByteBuffer(index, length);
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return this.delegate.asInputStream();
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		InputStream inputStream = this.delegate.asInputStream(false);
+		return (releaseOnClose ? new ReleasingInputStream(inputStream) : inputStream);
+	}
+
+	@Override
+	public OutputStream asOutputStream() {
+		return this.delegate.asOutputStream();
+	}
+
+
+	@Override
+	public boolean equals(Object other) {
+		return (this == other || (other instanceof TrackingDataBuffer &&
+				this.delegate.equals(((TrackingDataBuffer) other).delegate)));
+	}
+
+	@Override
+	public int hashCode() {
+		return this.delegate.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "TrackingDataBuffer (" + this.delegate + ")";
+	}
+
+
+	/**
+	 * InputStream which releases this buffer when closed.
+	 */
+	private class ReleasingInputStream extends FilterInputStream {
+
+		private boolean closed;
+
+		ReleasingInputStream(InputStream inputStream) {
+			super(inputStream);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!this.closed) {
+				this.closed = true;
+				release();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Decorator for a {@link DataBufferFactory} which keeps track of the buffers
+ * allocated through it, in order to find buffers which are never released.
+ *
+ * <p>All buffers allocated or joined by this factory are {@link PooledDataBuffer}s
+ * with their own reference count, even if the delegate factory does not pool
+ * its buffers. Once released, the underlying buffer is released as well.
+ * The number of allocated and released buffers is available through
+ * {@link #getAllocatedBufferCount()} and {@link #getReleasedBufferCount()}.
+ *
+ * <p>For a sample of the allocated buffers, as determined by the
+ * {@linkplain #setSamplingInterval sampling interval}, the allocation site is
+ * recorded as well. A sampled buffer which is garbage collected without having
+ * been released is logged as an error, along with its allocation site, and
+ * counted as {@linkplain #getLeakedBufferCount() leaked}. The sampled buffers
+ * which have not been released yet can also be checked on demand through
+ * {@link #checkForLeaks()}, e.g. at the end of a test.
+ *
+ * <p>By default, every buffer is sampled, which is appropriate for tests.
+ * In production, a larger sampling interval keeps the overhead of recording
+ * allocation sites low while still revealing leaks over time.
+ *
+ * @author agent
+ * @since 5.1.4
+ * @see DataBufferUtils#release(DataBuffer)
+ */
+public class TrackingDataBufferFactory implements DataBufferFactory {
+
+	private static final Log logger = LogFactory.getLog(TrackingDataBufferFactory.class);
+
+
+	private final DataBufferFactory delegate;
+
+	private volatile int samplingInterval = 1;
+
+	private final Set<AllocationRecord> records = ConcurrentHashMap.newKeySet();
+
+	private final ReferenceQueue<Tracker> queue = new ReferenceQueue<>();
+
+	private final LongAdder allocatedBufferCount = new LongAdder();
+
+	private final LongAdder releasedBufferCount = new LongAdder();
+
+	private final LongAdder leakedBufferCount = new LongAdder();
+
+
+	/**
+	 * Create a new {@code TrackingDataBufferFactory} decorating a
+	 * {@link DefaultDataBufferFactory}.
+	 */
+	public TrackingDataBufferFactory() {
+		this(new DefaultDataBufferFactory());
+	}
+
+	/**
+	 * Create a new {@code TrackingDataBufferFactory} decorating the given factory.
+	 * @param delegate the factory to allocate buffers with
+	 */
+	public TrackingDataBufferFactory(DataBufferFactory delegate) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		this.delegate = delegate;
+	}
+
+
+	/**
+	 * Return the factory which buffers are allocated with.
+	 */
+	public DataBufferFactory getDelegate() {
+		return this.delegate;
+	}
+
+	/**
+	 * Set the interval at which allocated buffers are sampled, i.e. have their
+	 * allocation site recorded: on average, one out of {@code samplingInterval}
+	 * buffers is sampled.
+	 * <p>By default this is set to 1, sampling every buffer. A value of 0 turns
+	 * sampling off, only counting allocated and released buffers.
+	 */
+	public void setSamplingInterval(int samplingInterval) {
+		Assert.isTrue(samplingInterval >= 0, "'samplingInterval' must not be negative");
+		this.samplingInterval = samplingInterval;
+	}
+
+	/**
+	 * Return the interval at which allocated buffers are sampled.
+	 */
+	public int getSamplingInterval() {
+		return this.samplingInterval;
+	}
+
+	/**
+	 * Return the number of buffers allocated or joined by this factory.
+	 */
+	public long getAllocatedBufferCount() {
+		return this.allocatedBufferCount.sum();
+	}
+
+	/**
+	 * Return the number of buffers allocated or joined by this factory which
+	 * have been released since.
+	 */
+	public long getReleasedBufferCount() {
+		return this.releasedBufferCount.sum();
+	}
+
+	/**
+	 * Return the number of sampled buffers which have been garbage collected
+	 * without having been released.
+	 */
+	public long getLeakedBufferCount() {
+		expungeCollectedRecords();
+		return this.leakedBufferCount.sum();
+	}
+
+	/**
+	 * Check whether all sampled buffers have been released, throwing an
+	 * {@link IllegalStateException} otherwise. The allocation site of the first
+	 * unreleased buffer is the cause of the exception, further ones are added
+	 * as suppressed exceptions.
+	 * <p>Buffers which are released concurrently may or may not be reported.
+	 * @throws IllegalStateException if any sampled buffer has not been released
+	 */
+	public void checkForLeaks() {
+		expungeCollectedRecords();
+		List<AllocationRecord> unreleased = new ArrayList<>(this.records);
+		if (!unreleased.isEmpty()) {
+			IllegalStateException ex = new IllegalStateException(
+					unreleased.size() + " data buffer(s) have not been released");
+			ex.initCause(unreleased.get(0).allocationSite);
+			for (int i = 1; i < unreleased.size(); i++) {
+				ex.addSuppressed(unreleased.get(i).allocationSite);
+			}
+			throw ex;
+		}
+	}
+
+
+	@Override
+	public DataBuffer allocateBuffer() {
+		return track(this.delegate.allocateBuffer());
+	}
+
+	@Override
+	public DataBuffer allocateBuffer(int initialCapacity) {
+		return track(this.delegate.allocateBuffer(initialCapacity));
+	}
+
+	@Override
+	public DataBuffer wrap(ByteBuffer byteBuffer) {
+		return this.delegate.wrap(byteBuffer);
+	}
+
+	@Override
+	public DataBuffer wrap(byte[] bytes) {
+		return this.delegate.wrap(bytes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Tracked buffers are handed over to the delegate factory, which takes
+	 * ownership of them: they count as released, with the joined buffer being
+	 * tracked in their place.
+	 */
+	@Override
+	public DataBuffer join(List<? extends DataBuffer> dataBuffers) {
+		Assert.notEmpty(dataBuffers, "DataBuffer List must not be empty");
+		return track(this.delegate.join(handOver(dataBuffers)));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Tracked buffers are handed over to the delegate factory, as with
+	 * {@link #join(List)}.
+	 */
+	@Override
+	public DataBuffer compose(List<? extends DataBuffer> dataBuffers) {
+		Assert.notEmpty(dataBuffers, "DataBuffer List must not be empty");
+		return track(this.delegate.compose(handOver(dataBuffers)));
+	}
+
+	@Override
+	public String toString() {
+		return "TrackingDataBufferFactory (" + this.delegate + ")";
+	}
+
+
+	private List<DataBuffer> handOver(List<? extends DataBuffer> dataBuffers) {
+		List<DataBuffer> delegateBuffers = new ArrayList<>(dataBuffers.size());
+		for (DataBuffer dataBuffer : dataBuffers) {
+			if (dataBuffer instanceof TrackingDataBuffer) {
+				delegateBuffers.add(((TrackingDataBuffer) dataBuffer).handOver());
+			}
+			else {
+				delegateBuffers.add(dataBuffer);
+			}
+		}
+		return delegateBuffers;
+	}
+
+	private DataBuffer track(DataBuffer dataBuffer) {
+		expungeCollectedRecords();
+		this.allocatedBufferCount.increment();
+		Tracker tracker = new Tracker(dataBuffer);
+		int samplingInterval = this.samplingInterval;
+		if (samplingInterval == 1 ||
+				(samplingInterval > 1 && ThreadLocalRandom.current().nextInt(samplingInterval) == 0)) {
+			AllocationRecord record = new AllocationRecord(tracker, dataBuffer, this.queue);
+			tracker.record = record;
+			this.records.add(record);
+		}
+		return new TrackingDataBuffer(dataBuffer, tracker, this);
+	}
+
+	private void expungeCollectedRecords() {
+		AllocationRecord record = (AllocationRecord) this.queue.poll();
+		while (record != null) {
+			if (this.records.remove(record)) {
+				this.leakedBufferCount.increment();
+				if (logger.isErrorEnabled()) {
+					logger.error("DataBuffer garbage collected without having been released", record.allocationSite);
+				}
+			}
+			record = (AllocationRecord) this.queue.poll();
+		}
+	}
+
+
+	/**
+	 * Reference count of a tracked buffer, shared with its slices. Holds a
+	 * reference to the underlying buffer as long as the count is positive.
+	 */
+	final class Tracker {
+
+		private final DataBuffer dataBuffer;
+
+		private final AtomicInteger refCount = new AtomicInteger(1);
+
+		@Nullable
+		volatile AllocationRecord record;
+
+		Tracker(DataBuffer dataBuffer) {
+			this.dataBuffer = dataBuffer;
+		}
+
+		boolean isAllocated() {
+			return (this.refCount.get() > 0);
+		}
+
+		void retain() {
+			int count;
+			do {
+				count = this.refCount.get();
+				Assert.state(count > 0, "Buffer has already been released");
+			}
+			while (!this.refCount.compareAndSet(count, count + 1));
+		}
+
+		boolean release() {
+			if (!decrement()) {
+				return false;
+			}
+			DataBufferUtils.release(this.dataBuffer);
+			return true;
+		}
+
+		/**
+		 * Hand the reference to the underlying buffer over to a new owner,
+		 * e.g. a joined buffer, retaining it if still referenced by this tracker.
+		 */
+		void handOver() {
+			if (!decrement()) {
+				DataBufferUtils.retain(this.dataBuffer);
+			}
+		}
+
+		private boolean decrement() {
+			int count;
+			do {
+				count = this.refCount.get();
+				Assert.state(count > 0, "Buffer has already been released");
+			}
+			while (!this.refCount.compareAndSet(count, count - 1));
+			if (count > 1) {
+				return false;
+			}
+			releasedBufferCount.increment();
+			AllocationRecord record = this.record;
+			if (record != null) {
+				records.remove(record);
+				record.clear();
+			}
+			return true;
+		}
+	}
+
+
+	/**
+	 * Weak reference to the tracker of a sampled buffer, enqueued once it is
+	 * garbage collected, with the allocation site of the buffer.
+	 */
+	private static final class AllocationRecord extends WeakReference<Tracker> {
+
+		final Throwable allocationSite;
+
+		AllocationRecord(Tracker tracker, DataBuffer dataBuffer, ReferenceQueue<Tracker> queue) {
+			super(tracker, queue);
+			this.allocationSite = new Throwable("Allocation site of " + dataBuffer);
+		}
+	}
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Simple concurrent cache with a size limit, evicting entries according to
+ * an approximation of the least-recently-used policy once the size limit is
+ * exceeded.
+ *
+ * <p>Lookups are lock-free and only mark the entry found as recently used.
+ * Eviction follows the "clock" (second chance) algorithm: entries are kept
+ * in insertion order, and an entry which has been used since it was last
+ * considered for eviction is moved to the end instead of being evicted.
+ *
+ * <p>A size limit of 0 effectively turns caching off, whereas a size limit of
+ * {@link Integer#MAX_VALUE} makes for an unbounded cache.
+ * Neither keys nor values may be {@code null}.
+ *
+ * @author agent
+ * @since 5.1.4
+ * @param <K> the type of the key used for cache retrieval
+ * @param <V> the type of the cached values
+ */
+public class ConcurrentLruCache<K, V> {
+
+	private final int sizeLimit;
+
+	private final ConcurrentMap<K, Node<K, V>> cache;
+
+	/** Cached nodes in insertion order, possibly including nodes already removed. */
+	private final Queue<Node<K, V>> clock = new ConcurrentLinkedQueue<>();
+
+	/** Number of nodes in the clock which have not been removed. */
+	private final AtomicInteger clockSize = new AtomicInteger();
+
+	/** Approximate number of removed nodes still in the clock. */
+	private final AtomicInteger removedNodes = new AtomicInteger();
+
+
+	/**
+	 * Create a new cache instance with the given size limit.
+	 * @param sizeLimit the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value)
+	 */
+	public ConcurrentLruCache(int sizeLimit) {
+		Assert.isTrue(sizeLimit >= 0, "Cache size limit must not be negative");
+		this.sizeLimit = sizeLimit;
+		this.cache = new ConcurrentHashMap<>(Math.min(sizeLimit, 256));
+	}
+
+
+	/**
+	 * Retrieve the value for the given key, if cached.
+	 * @param key the key to look up
+	 * @return the cached value, or {@code null} if none
+	 */
+	@Nullable
+	public V get(K key) {
+		Node<K, V> node = this.cache.get(key);
+		if (node == null) {
+			return null;
+		}
+		node.markUsed();
+		return node.value;
+	}
+
+	/**
+	 * Retrieve the value for the given key, generating and caching it if necessary.
+	 * <p>The generator function is not invoked under a lock: in case of concurrent
+	 * retrieval of the same key, it may be invoked more than once, with the value
+	 * cached first being returned for all of them.
+	 * @param key the key to look up
+	 * @param generator the function to generate a new value for a given key
+	 * @return the cached or newly generated value
+	 */
+	public V get(K key, Function<? super K, ? extends V> generator) {
+		V value = get(key);
+		if (value == null) {
+			value = generator.apply(key);
+			Assert.state(value != null, "Generator function must not return null");
+			if (this.sizeLimit > 0) {
+				Node<K, V> node = new Node<>(key, value);
+				Node<K, V> existing = this.cache.putIfAbsent(key, node);
+				if (existing != null) {
+					existing.markUsed();
+					return existing.value;
+				}
+				addToClock(node);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Cache the given value for the given key, replacing any existing value.
+	 * @param key the key to cache the value for
+	 * @param value the value to cache
+	 */
+	public void put(K key, V value) {
+		Assert.notNull(value, "Value must not be null");
+		if (this.sizeLimit == 0) {
+			return;
+		}
+		Node<K, V> node = this.cache.get(key);
+		if (node == null) {
+			node = new Node<>(key, value);
+			Node<K, V> existing = this.cache.putIfAbsent(key, node);
+			if (existing == null) {
+				addToClock(node);
+				return;
+			}
+			node = existing;
+		}
+		node.value = value;
+		node.markUsed();
+	}
+
+	/**
+	 * Determine whether the given key is present in this cache.
+	 * @param key the key to check for
+	 * @return {@code true} if the key is present, {@code false} if there was no matching key
+	 */
+	public boolean contains(K key) {
+		return this.cache.containsKey(key);
+	}
+
+	/**
+	 * Immediately remove the given key and any associated value.
+	 * @param key the key to evict the entry for
+	 * @return {@code true} if the key was present before, {@code false} if there was no matching key
+	 */
+	public boolean remove(K key) {
+		Node<K, V> node = this.cache.remove(key);
+		if (node == null) {
+			return false;
+		}
+		if (node.markRemoved()) {
+			// No longer counting against the size limit, to be dropped from the clock later on
+			this.clockSize.decrementAndGet();
+			this.removedNodes.incrementAndGet();
+		}
+		return true;
+	}
+
+	/**
+	 * Immediately remove all entries from this cache.
+	 */
+	public void clear() {
+		// Drain the clock before removing its nodes from the map: entries added
+		// concurrently then remain in both the map and the clock, or in neither.
+		Node<K, V> node = this.clock.poll();
+		while (node != null) {
+			if (node.markRemoved()) {
+				this.clockSize.decrementAndGet();
+				this.cache.remove(node.key, node);
+			}
+			else {
+				this.removedNodes.decrementAndGet();
+			}
+			node = this.clock.poll();
+		}
+	}
+
+	/**
+	 * Perform the given action for each entry in this cache,
+	 * in no particular order.
+	 * <p>Entries added or removed concurrently may or may not be included.
+	 * @param action the action to perform with each key and value
+	 */
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		this.cache.forEach((key, node) -> action.accept(key, node.value));
+	}
+
+	/**
+	 * Return the current size of the cache.
+	 * @see #sizeLimit()
+	 */
+	public int size() {
+		return this.cache.size();
+	}
+
+	/**
+	 * Return whether this cache is currently empty.
+	 */
+	public boolean isEmpty() {
+		return this.cache.isEmpty();
+	}
+
+	/**
+	 * Return the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value).
+	 * @see #size()
+	 */
+	public int sizeLimit() {
+		return this.sizeLimit;
+	}
+
+
+	private void addToClock(Node<K, V> node) {
+		if (this.clockSize.get() >= this.sizeLimit) {
+			evict();
+		}
+		else if (this.removedNodes.get() > this.sizeLimit) {
+			purgeRemovedNodes();
+		}
+		this.clock.add(node);
+		this.clockSize.incrementAndGet();
+	}
+
+	/**
+	 * Make room for a new entry, evicting entries which have not been used
+	 * since they were last considered for eviction.
+	 */
+	private void evict() {
+		int secondChances = 0;
+		while (this.clockSize.get() >= this.sizeLimit) {
+			Node<K, V> node = this.clock.poll();
+			if (node == null) {
+				return;
+			}
+			if (node.isRemoved()) {
+				// Not counted anymore: just drop it
+				this.removedNodes.decrementAndGet();
+			}
+			else if (node.used && secondChances++ < this.sizeLimit) {
+				// Recently used: move to the end of the clock
+				node.used = false;
+				this.clock.add(node);
+			}
+			else if (node.markRemoved()) {
+				this.clockSize.decrementAndGet();
+				this.cache.remove(node.key, node);
+			}
+			else {
+				// Removed in the meantime: counted as a removed node still in the clock
+				this.removedNodes.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Drop removed nodes from the clock, in case of many entries having been
+	 * removed explicitly without any eviction taking place.
+	 */
+	private void purgeRemovedNodes() {
+		this.removedNodes.set(0);
+		this.clock.removeIf(Node::isRemoved);
+	}
+
+
+	private static final class Node<K, V> {
+
+		final K key;
+
+		volatile V value;
+
+		volatile boolean used;
+
+		private final AtomicBoolean removed = new AtomicBoolean();
+
+		Node(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		void markUsed() {
+			// Avoid redundant writes to a shared cache line on the read path
+			if (!this.used) {
+				this.used = true;
+			}
+		}
+
+		boolean isRemoved() {
+			return this.removed.get();
+		}
+
+		/**
+		 * Mark this node as removed, returning whether it has been live before:
+		 * only the caller that succeeds accounts for the removal.
+		 */
+		boolean markRemoved() {
+			return this.removed.compareAndSet(false, true);
+		}
+	}
+
+}
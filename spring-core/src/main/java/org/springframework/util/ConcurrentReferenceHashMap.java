@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,8 +28,10 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -53,6 +55,10 @@ import org.springframework.lang.Nullable;
  * <p>If not explicitly specified, this implementation will use
  * {@linkplain SoftReference soft entry references}.
  *
+ * <p>Read operations never block: garbage collected entries are purged by a
+ * reading thread only if the affected segment is not locked at that time,
+ * otherwise purging is left to the next thread restructuring the segment.
+ *
  * @author Phillip Webb
  * @author Juergen Hoeller
  * @since 3.2
@@ -481,6 +487,12 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		 */
 		private int resizeThreshold;
 
+		/**
+		 * References polled for purging by a reading thread that could not acquire
+		 * the lock, to be purged on the next restructure of this segment.
+		 */
+		private final Queue<Reference<K, V>> pendingPurges = new ConcurrentLinkedQueue<>();
+
 		public Segment(int initialCapacity) {
 			this.referenceManager = createReferenceManager();
 			this.initialSize = 1 << calculateShift(initialCapacity, MAXIMUM_SEGMENT_SIZE);
@@ -491,7 +503,7 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		@Nullable
 		public Reference<K, V> getReference(@Nullable Object key, int hash, Restructure restructure) {
 			if (restructure == Restructure.WHEN_NECESSARY) {
-				restructureIfNecessary(false);
+				purgeIfPossible();
 			}
 			if (this.count == 0) {
 				return null;
@@ -558,6 +570,7 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 				this.references = createReferenceArray(this.initialSize);
 				this.resizeThreshold = (int) (this.references.length * getLoadFactor());
 				this.count = 0;
+				this.pendingPurges.clear();
 			}
 			finally {
 				unlock();
@@ -571,66 +584,108 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		 * @param allowResize if resizing is permitted
 		 */
 		protected final void restructureIfNecessary(boolean allowResize) {
-			boolean needsResize = (this.count > 0 && this.count >= this.resizeThreshold);
+			int currCount = this.count;
+			boolean needsResize = allowResize && (currCount > 0 && currCount >= this.resizeThreshold);
 			Reference<K, V> ref = this.referenceManager.pollForPurge();
-			if (ref != null || (needsResize && allowResize)) {
+			if (ref != null || needsResize || !this.pendingPurges.isEmpty()) {
 				lock();
 				try {
-					int countAfterRestructure = this.count;
-					Set<Reference<K, V>> toPurge = Collections.emptySet();
-					if (ref != null) {
-						toPurge = new HashSet<>();
-						while (ref != null) {
-							toPurge.add(ref);
-							ref = this.referenceManager.pollForPurge();
-						}
-					}
-					countAfterRestructure -= toPurge.size();
-
-					// Recalculate taking into account count inside lock and items that
-					// will be purged
-					needsResize = (countAfterRestructure > 0 && countAfterRestructure >= this.resizeThreshold);
-					boolean resizing = false;
-					int restructureSize = this.references.length;
-					if (allowResize && needsResize && restructureSize < MAXIMUM_SEGMENT_SIZE) {
-						restructureSize <<= 1;
-						resizing = true;
-					}
+					restructure(allowResize, ref);
+				}
+				finally {
+					unlock();
+				}
+			}
+		}
 
-					// Either create a new table or reuse the existing one
-					Reference<K, V>[] restructured =
-							(resizing ? createReferenceArray(restructureSize) : this.references);
+		/**
+		 * Purge any references that have been garbage collected, unless this segment
+		 * is currently locked: readers never wait for a lock, leaving the purge to
+		 * the next thread restructuring this segment instead.
+		 */
+		private void purgeIfPossible() {
+			Reference<K, V> ref = this.referenceManager.pollForPurge();
+			if (ref == null && this.pendingPurges.isEmpty()) {
+				return;
+			}
+			if (tryLock()) {
+				try {
+					restructure(false, ref);
+				}
+				finally {
+					unlock();
+				}
+			}
+			else if (ref != null) {
+				this.pendingPurges.add(ref);
+			}
+		}
 
-					// Restructure
-					for (int i = 0; i < this.references.length; i++) {
-						ref = this.references[i];
-						if (!resizing) {
-							restructured[i] = null;
+		/**
+		 * Purge the given and all further references to be purged, resizing the
+		 * references table if necessary. To be called with the lock held.
+		 * @param allowResize if resizing is permitted
+		 * @param ref the first reference to purge, or {@code null} if none
+		 */
+		private void restructure(boolean allowResize, @Nullable Reference<K, V> ref) {
+			Set<Reference<K, V>> toPurge = Collections.emptySet();
+			if (ref != null || !this.pendingPurges.isEmpty()) {
+				toPurge = new HashSet<>();
+				while (ref != null) {
+					toPurge.add(ref);
+					ref = this.referenceManager.pollForPurge();
+				}
+				ref = this.pendingPurges.poll();
+				while (ref != null) {
+					toPurge.add(ref);
+					ref = this.pendingPurges.poll();
+				}
+			}
+			int countAfterRestructure = this.count - toPurge.size();
+
+			// Recalculate taking into account count inside lock and items that
+			// will be purged
+			boolean needsResize = (countAfterRestructure > 0 && countAfterRestructure >= this.resizeThreshold);
+			if (allowResize && needsResize && this.references.length < MAXIMUM_SEGMENT_SIZE) {
+				Reference<K, V>[] resized = createReferenceArray(this.references.length << 1);
+				for (Reference<K, V> head : this.references) {
+					for (ref = head; ref != null; ref = ref.getNext()) {
+						if (!toPurge.contains(ref)) {
+							Entry<K, V> entry = ref.get();
+							if (entry != null) {
+								int index = getIndex(ref.getHash(), resized);
+								resized[index] = this.referenceManager.createReference(
+										entry, ref.getHash(), resized[index]);
+							}
 						}
-						while (ref != null) {
+					}
+				}
+				// Replace volatile members
+				this.references = resized;
+				this.resizeThreshold = (int) (this.references.length * getLoadFactor());
+			}
+			else if (!toPurge.isEmpty()) {
+				// Only rebuild the chains containing purged references, replacing each
+				// chain at once so that concurrent readers see either version of it
+				Reference<K, V>[] references = this.references;
+				Set<Integer> purgedIndexes = new HashSet<>();
+				for (Reference<K, V> purged : toPurge) {
+					int index = getIndex(purged.getHash(), references);
+					if (purgedIndexes.add(index)) {
+						Reference<K, V> rebuilt = null;
+						for (ref = references[index]; ref != null; ref = ref.getNext()) {
 							if (!toPurge.contains(ref)) {
 								Entry<K, V> entry = ref.get();
 								if (entry != null) {
-									int index = getIndex(ref.getHash(), restructured);
-									restructured[index] = this.referenceManager.createReference(
-											entry, ref.getHash(), restructured[index]);
+									rebuilt = this.referenceManager.createReference(entry, ref.getHash(), rebuilt);
 								}
 							}
-							ref = ref.getNext();
 						}
+						references[index] = rebuilt;
 					}
-
-					// Replace volatile members
-					if (resizing) {
-						this.references = restructured;
-						this.resizeThreshold = (int) (this.references.length * getLoadFactor());
-					}
-					this.count = Math.max(countAfterRestructure, 0);
-				}
-				finally {
-					unlock();
 				}
 			}
+			this.count = Math.max(countAfterRestructure, 0);
 		}
 
 		@Nullable
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -102,6 +102,9 @@ public class MimeType implements Comparable<MimeType>, Serializable {
 
 	private final Map<String, String> parameters;
 
+	@Nullable
+	private transient volatile String toStringValue;
+
 
 	/**
 	 * Create a new {@code MimeType} for the given primary type.
@@ -310,7 +313,7 @@ public class MimeType implements Comparable<MimeType>, Serializable {
 		if (other == null) {
 			return false;
 		}
-		if (isWildcardType()) {
+		if (this == other || isWildcardType()) {
 			// */* includes anything
 			return true;
 		}
@@ -327,13 +330,9 @@ public class MimeType implements Comparable<MimeType>, Serializable {
 				else {
 					// application/*+xml includes application/soap+xml
 					int otherPlusIdx = other.getSubtype().lastIndexOf('+');
-					if (otherPlusIdx != -1) {
-						String thisSubtypeNoSuffix = getSubtype().substring(0, thisPlusIdx);
-						String thisSubtypeSuffix = getSubtype().substring(thisPlusIdx + 1);
-						String otherSubtypeSuffix = other.getSubtype().substring(otherPlusIdx + 1);
-						if (thisSubtypeSuffix.equals(otherSubtypeSuffix) && WILDCARD_TYPE.equals(thisSubtypeNoSuffix)) {
-							return true;
-						}
+					if (otherPlusIdx != -1 && isWildcardPrefix(getSubtype(), thisPlusIdx) &&
+							suffixesAreEqual(getSubtype(), thisPlusIdx, other.getSubtype(), otherPlusIdx)) {
+						return true;
 					}
 				}
 			}
@@ -354,7 +353,7 @@ public class MimeType implements Comparable<MimeType>, Serializable {
 		if (other == null) {
 			return false;
 		}
-		if (isWildcardType() || other.isWildcardType()) {
+		if (this == other || isWildcardType() || other.isWildcardType()) {
 			return true;
 		}
 		else if (getType().equals(other.getType())) {
@@ -369,12 +368,9 @@ public class MimeType implements Comparable<MimeType>, Serializable {
 					return true;
 				}
 				else if (thisPlusIdx != -1 && otherPlusIdx != -1) {
-					String thisSubtypeNoSuffix = getSubtype().substring(0, thisPlusIdx);
-					String otherSubtypeNoSuffix = other.getSubtype().substring(0, otherPlusIdx);
-					String thisSubtypeSuffix = getSubtype().substring(thisPlusIdx + 1);
-					String otherSubtypeSuffix = other.getSubtype().substring(otherPlusIdx + 1);
-					if (thisSubtypeSuffix.equals(otherSubtypeSuffix) &&
-							(WILDCARD_TYPE.equals(thisSubtypeNoSuffix) || WILDCARD_TYPE.equals(otherSubtypeNoSuffix))) {
+					if (suffixesAreEqual(getSubtype(), thisPlusIdx, other.getSubtype(), otherPlusIdx) &&
+							(isWildcardPrefix(getSubtype(), thisPlusIdx) ||
+									isWildcardPrefix(other.getSubtype(), otherPlusIdx))) {
 						return true;
 					}
 				}
@@ -383,6 +379,24 @@ public class MimeType implements Comparable<MimeType>, Serializable {
 		return false;
 	}
 
+	/**
+	 * Determine whether the part of the given subtype before the suffix
+	 * separator at the given index is the wildcard, without creating substrings.
+	 */
+	private static boolean isWildcardPrefix(String subtype, int plusIdx) {
+		return (plusIdx == WILDCARD_TYPE.length() && subtype.startsWith(WILDCARD_TYPE));
+	}
+
+	/**
+	 * Determine whether the suffixes after the suffix separators at the given
+	 * indexes are equal, without creating substrings.
+	 */
+	private static boolean suffixesAreEqual(String subtype, int plusIdx, String otherSubtype, int otherPlusIdx) {
+		int length = subtype.length() - plusIdx;
+		return (length == otherSubtype.length() - otherPlusIdx &&
+				subtype.regionMatches(plusIdx, otherSubtype, otherPlusIdx, length));
+	}
+
 
 	@Override
 	public boolean equals(Object other) {
@@ -437,9 +451,14 @@ public class MimeType implements Comparable<MimeType>, Serializable {
 
 	@Override
 	public String toString() {
-		StringBuilder builder = new StringBuilder();
-		appendTo(builder);
-		return builder.toString();
+		String value = this.toStringValue;
+		if (value == null) {
+			StringBuilder builder = new StringBuilder();
+			appendTo(builder);
+			value = builder.toString();
+			this.toStringValue = value;
+		}
+		return value;
 	}
 
 	protected void appendTo(StringBuilder builder) {
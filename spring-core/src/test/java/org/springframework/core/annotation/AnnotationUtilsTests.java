@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,6 +39,7 @@ import org.springframework.core.annotation.subpackage.NonPublicAnnotatedClass;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
 
 import static java.util.Arrays.*;
 import static java.util.stream.Collectors.*;
@@ -1454,6 +1455,93 @@ public class AnnotationUtilsTests {
 		assertThat(webMappingWithAliases.hashCode(), is(not(synthesizedWebMapping1.hashCode())));
 	}
 
+	@Test
+	public void attributesForSynthesizedAnnotationWithManyAttributes() throws Exception {
+		ManyAttributes manyAttributes = ManyAttributesClass.class.getAnnotation(ManyAttributes.class);
+		ManyAttributes synthesized = synthesizeAnnotation(manyAttributes, ManyAttributesClass.class);
+		assertThat(synthesized, instanceOf(SynthesizedAnnotation.class));
+
+		for (Method attributeMethod : getAttributeMethods(ManyAttributes.class)) {
+			Object expected = attributeMethod.invoke(manyAttributes);
+			Object actual = attributeMethod.invoke(synthesized);
+			assertTrue(attributeMethod.getName(), ObjectUtils.nullSafeEquals(expected, actual));
+		}
+		assertEquals("one", synthesized.text());
+		assertEquals(12, synthesized.number());
+		assertEquals(RetentionPolicy.CLASS, synthesized.policy());
+		assertEquals(String.class, synthesized.type());
+		assertArrayEquals(new int[] {1, 2, 3}, synthesized.numbers());
+		assertArrayEquals(new char[] {'x'}, synthesized.characters());
+		assertEquals("*Foo", synthesized.filter().pattern());
+		assertEquals(2, synthesized.filters().length);
+		assertEquals("*Baz", synthesized.filters()[1].pattern());
+		assertEquals("default", synthesized.defaultText());
+		assertEquals("many", synthesized.value());
+		assertEquals("many", synthesized.name());
+
+		// Arrays are cloned for each invocation
+		synthesized.numbers()[0] = 42;
+		assertArrayEquals(new int[] {1, 2, 3}, synthesized.numbers());
+	}
+
+	@Test
+	public void equalsHashCodeAndToStringForSynthesizedAnnotationWithManyAttributes() throws Exception {
+		ManyAttributes manyAttributes = ManyAttributesClass.class.getAnnotation(ManyAttributes.class);
+		ManyAttributes synthesized1 = synthesizeAnnotation(manyAttributes, ManyAttributesClass.class);
+		ManyAttributes synthesized2 = synthesizeAnnotation(getAnnotationAttributes(manyAttributes),
+				ManyAttributes.class, ManyAttributesClass.class);
+
+		// Compatible with the JDK annotation in both directions
+		assertEquals(manyAttributes, synthesized1);
+		assertEquals(synthesized1, manyAttributes);
+		assertEquals(manyAttributes.hashCode(), synthesized1.hashCode());
+		assertEquals(synthesized1, synthesized2);
+		assertEquals(synthesized2, synthesized1);
+		assertEquals(synthesized1.hashCode(), synthesized2.hashCode());
+
+		// Cached hash code remains stable
+		assertEquals(manyAttributes.hashCode(), synthesized1.hashCode());
+
+		Map<String, Object> attributes = getAnnotationAttributes(manyAttributes);
+		attributes.put("numbers", new int[] {1, 2, 4});
+		ManyAttributes different = synthesizeAnnotation(attributes, ManyAttributes.class, ManyAttributesClass.class);
+		assertNotEquals(synthesized1, different);
+		assertNotEquals(different, synthesized1);
+		assertNotEquals(manyAttributes, different);
+		assertNotEquals(synthesized1.hashCode(), different.hashCode());
+
+		assertNotEquals(synthesized1, null);
+		assertNotEquals(synthesized1, "text");
+		assertNotEquals(synthesized1, synthesizeAnnotation(
+				ComponentScanSingleFilterClass.class.getAnnotation(ComponentScanSingleFilter.class)));
+
+		String string = synthesized1.toString();
+		assertThat(string, startsWith("@" + ManyAttributes.class.getName() + "("));
+		assertThat(string, containsString("text=one"));
+		assertThat(string, containsString("value=many"));
+		assertThat(string, containsString("numbers=[1, 2, 3]"));
+		assertThat(string, containsString("characters=[x]"));
+		assertThat(string, containsString("bytes=[1, 2]"));
+		assertThat(string, containsString("number=12"));
+		assertThat(string, containsString("policy=CLASS"));
+		assertThat(string, containsString("defaultText=default"));
+		assertThat(string, containsString("filter=@" + Filter.class.getName() + "("));
+		assertThat(string, endsWith(")"));
+		assertEquals(string, synthesized2.toString());
+	}
+
+	@Test
+	public void equalsForSynthesizedAnnotationsAfterCacheReset() throws Exception {
+		ManyAttributes manyAttributes = ManyAttributesClass.class.getAnnotation(ManyAttributes.class);
+		ManyAttributes synthesized1 = synthesizeAnnotation(manyAttributes, ManyAttributesClass.class);
+		AnnotationUtils.clearCache();
+		ManyAttributes synthesized2 = synthesizeAnnotation(manyAttributes, ManyAttributesClass.class);
+
+		assertEquals(synthesized1, synthesized2);
+		assertEquals(synthesized2, synthesized1);
+		assertEquals(synthesized1.hashCode(), synthesized2.hashCode());
+	}
+
 	/**
 	 * Fully reflection-based test that verifies support for
 	 * {@linkplain AnnotationUtils#synthesizeAnnotation synthesizing annotations}
@@ -2382,6 +2470,35 @@ public class AnnotationUtilsTests {
 		String text();
 	}
 
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface ManyAttributes {
+		@AliasFor("name")
+		String value() default "";
+		@AliasFor("value")
+		String name() default "";
+		String text();
+		int number();
+		long big();
+		double fraction();
+		boolean flag();
+		RetentionPolicy policy();
+		Class<?> type();
+		int[] numbers();
+		char[] characters();
+		String[] texts();
+		Filter filter();
+		Filter[] filters();
+		String defaultText() default "default";
+		byte[] bytes() default {1, 2};
+	}
+
+	@ManyAttributes(value = "many", name = "many", text = "one", number = 12, big = 3L, fraction = 0.5, flag = true,
+			policy = RetentionPolicy.CLASS, type = String.class, numbers = {1, 2, 3}, characters = 'x',
+			texts = {"a", "b"}, filter = @Filter(pattern = "*Foo"),
+			filters = {@Filter(pattern = "*Bar"), @Filter(pattern = "*Baz")})
+	static class ManyAttributesClass {
+	}
+
 	@ContextConfig(value = "foo", location = "bar")
 	interface ContextConfigMismatch {
 	}
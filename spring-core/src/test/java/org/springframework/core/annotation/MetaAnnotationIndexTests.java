@@ -0,0 +1,232 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import org.springframework.core.OverridingClassLoader;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link MetaAnnotationIndex}, and for the meta-annotation
+ * searches in {@link AnnotatedElementUtils} which are pruned through it.
+ *
+ * @author agent
+ */
+public class MetaAnnotationIndexTests {
+
+	@Test
+	public void mayContainDirectMetaAnnotation() {
+		MetaAnnotationIndex index = MetaAnnotationIndex.forAnnotationType(Composed.class);
+		assertTrue(index.mayContain(types(Meta.class), null, null));
+		assertTrue(index.mayContain(Collections.emptySet(), Meta.class.getName(), null));
+	}
+
+	@Test
+	public void mayNotContainUnrelatedAnnotation() {
+		MetaAnnotationIndex index = MetaAnnotationIndex.forAnnotationType(Composed.class);
+		assertFalse(index.mayContain(types(Unrelated.class), null, null));
+		assertFalse(index.mayContain(Collections.emptySet(), Unrelated.class.getName(), null));
+		assertFalse(index.mayContain(types(Composed.class), null, null));
+	}
+
+	@Test
+	public void mayNotContainAnythingWithoutMetaAnnotations() {
+		MetaAnnotationIndex index = MetaAnnotationIndex.forAnnotationType(Meta.class);
+		assertFalse(index.mayContain(types(Meta.class), Meta.class.getName(), null));
+		assertFalse(index.mayContain(types(Unrelated.class), null, null));
+	}
+
+	@Test
+	public void javaLangAnnotationsAreNotIndexed() {
+		MetaAnnotationIndex index = MetaAnnotationIndex.forAnnotationType(Composed.class);
+		assertFalse(index.mayContain(types(Retention.class, Documented.class), null, null));
+	}
+
+	@Test
+	public void mayContainMultiLevelMetaAnnotations() {
+		MetaAnnotationIndex index = MetaAnnotationIndex.forAnnotationType(TwiceComposed.class);
+		assertTrue(index.mayContain(types(Composed.class), null, null));
+		assertTrue(index.mayContain(types(Meta.class), null, null));
+		assertTrue(index.mayContain(types(Unrelated.class, Meta.class), null, null));
+		assertFalse(index.mayContain(types(Unrelated.class), null, null));
+	}
+
+	@Test
+	public void mayContainRepeatableContainer() {
+		MetaAnnotationIndex index = MetaAnnotationIndex.forAnnotationType(ComposedRepeated.class);
+		assertTrue(index.mayContain(types(Repeated.class), null, RepeatedContainer.class));
+		assertTrue(index.mayContain(Collections.emptySet(), null, RepeatedContainer.class));
+		assertFalse(index.mayContain(types(Unrelated.class), null, null));
+		assertFalse(MetaAnnotationIndex.forAnnotationType(TwiceComposed.class)
+				.mayContain(types(Repeated.class), null, RepeatedContainer.class));
+	}
+
+	@Test
+	public void indexIsCachedUntilCacheReset() {
+		MetaAnnotationIndex index = MetaAnnotationIndex.forAnnotationType(Composed.class);
+		assertSame(index, MetaAnnotationIndex.forAnnotationType(Composed.class));
+
+		AnnotationUtils.clearCache();
+		MetaAnnotationIndex resolved = MetaAnnotationIndex.forAnnotationType(Composed.class);
+		assertNotSame(index, resolved);
+		assertTrue(resolved.mayContain(types(Meta.class), null, null));
+		assertFalse(resolved.mayContain(types(Unrelated.class), null, null));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void indexForAnnotationTypeFromOtherClassLoader() throws Exception {
+		ClassLoader classLoader = new OverridingClassLoader(getClass().getClassLoader());
+		Class<? extends Annotation> otherComposed =
+				(Class<? extends Annotation>) classLoader.loadClass(Composed.class.getName());
+		assertNotSame(Composed.class, otherComposed);
+
+		MetaAnnotationIndex index = MetaAnnotationIndex.forAnnotationType(otherComposed);
+		assertNotSame(MetaAnnotationIndex.forAnnotationType(Composed.class), index);
+		Class<? extends Annotation> otherMeta =
+				(Class<? extends Annotation>) classLoader.loadClass(Meta.class.getName());
+		assertTrue(index.mayContain(types(otherMeta), null, null));
+		// Lookups by name may report a same-named type from another ClassLoader: never skipping too much
+		assertTrue(index.mayContain(types(Meta.class), null, null));
+		assertFalse(index.mayContain(types(Unrelated.class), null, null));
+	}
+
+	@Test
+	public void searchesFindMultiLevelMetaAnnotations() {
+		assertTrue(AnnotatedElementUtils.hasAnnotation(TwiceComposedClass.class, Meta.class));
+		assertTrue(AnnotatedElementUtils.isAnnotated(TwiceComposedClass.class, Meta.class.getName()));
+		assertNotNull(AnnotatedElementUtils.findMergedAnnotation(TwiceComposedClass.class, Meta.class));
+		assertNotNull(AnnotatedElementUtils.getMergedAnnotation(TwiceComposedClass.class, Composed.class));
+		assertFalse(AnnotatedElementUtils.hasAnnotation(TwiceComposedClass.class, Unrelated.class));
+		assertFalse(AnnotatedElementUtils.isAnnotated(TwiceComposedClass.class, Unrelated.class.getName()));
+		assertNull(AnnotatedElementUtils.findMergedAnnotation(TwiceComposedClass.class, Unrelated.class));
+	}
+
+	@Test
+	public void searchesApplyAliasForOverrides() {
+		Meta meta = AnnotatedElementUtils.getMergedAnnotation(AliasedClass.class, Meta.class);
+		assertNotNull(meta);
+		assertEquals("aliased", meta.value());
+		meta = AnnotatedElementUtils.findMergedAnnotation(AliasedClass.class, Meta.class);
+		assertNotNull(meta);
+		assertEquals("aliased", meta.value());
+		assertEquals("aliased", AnnotatedElementUtils.getMergedAnnotationAttributes(
+				AliasedClass.class, Meta.class.getName()).getString("value"));
+		assertNull(AnnotatedElementUtils.findMergedAnnotation(AliasedClass.class, Unrelated.class));
+	}
+
+	@Test
+	public void searchesFindComposedRepeatableAnnotations() {
+		Set<Repeated> repeated = AnnotatedElementUtils.findMergedRepeatableAnnotations(
+				ComposedRepeatedClass.class, Repeated.class, RepeatedContainer.class);
+		assertEquals(2, repeated.size());
+		repeated = AnnotatedElementUtils.getMergedRepeatableAnnotations(
+				ComposedRepeatedClass.class, Repeated.class, RepeatedContainer.class);
+		assertEquals(2, repeated.size());
+	}
+
+
+	@SafeVarargs
+	private static Set<Class<? extends Annotation>> types(Class<? extends Annotation>... annotationTypes) {
+		Set<Class<? extends Annotation>> types = new LinkedHashSet<>();
+		Collections.addAll(types, annotationTypes);
+		return types;
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+	@interface Meta {
+
+		String value() default "";
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+	@interface Unrelated {
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+	@Documented
+	@Meta
+	@interface Composed {
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@Composed
+	@interface TwiceComposed {
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@Meta
+	@interface Aliased {
+
+		@AliasFor(annotation = Meta.class, attribute = "value")
+		String name() default "";
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+	@interface RepeatedContainer {
+
+		Repeated[] value();
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+	@Repeatable(RepeatedContainer.class)
+	@interface Repeated {
+
+		String value();
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@Repeated("a")
+	@Repeated("b")
+	@interface ComposedRepeated {
+	}
+
+	@TwiceComposed
+	static class TwiceComposedClass {
+	}
+
+	@Aliased(name = "aliased")
+	static class AliasedClass {
+	}
+
+	@ComposedRepeated
+	static class ComposedRepeatedClass {
+	}
+
+}
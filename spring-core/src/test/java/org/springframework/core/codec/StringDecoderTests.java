@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.core.codec;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -183,6 +184,41 @@ public class StringDecoderTests extends AbstractDecoderTestCase<StringDecoder> {
 				.verify());
 	}
 
+	@Test
+	public void decodeDelimiterAcrossBuffers() {
+		this.decoder = StringDecoder.allMimeTypes(Arrays.asList("\r\n", "--boundary--"), true);
+
+		Flux<DataBuffer> input = Flux.just(
+				stringBuffer("abc\r"),
+				stringBuffer("\ndef--boun"),
+				stringBuffer("dary-"),
+				stringBuffer("-ghi--bou"),
+				stringBuffer("ndary--")
+		);
+
+		testDecode(input, String.class, step -> step
+				.expectNext("abc")
+				.expectNext("def")
+				.expectNext("ghi")
+				.expectComplete()
+				.verify());
+	}
+
+	@Test
+	public void decodeMaxLineLength() {
+		this.decoder.setMaxLineLength(5);
+
+		Flux<DataBuffer> input = Flux.just(
+				stringBuffer("abc\nde"),
+				stringBuffer("fghi\n")
+		);
+
+		testDecode(input, String.class, step -> step
+				.expectNext("abc")
+				.expectError(DecodingException.class)
+				.verify());
+	}
+
 	@Test
 	public void decodeEmptyFlux() {
 		Flux<DataBuffer> input = Flux.empty();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -127,6 +127,55 @@ public class GenericConversionServiceTests {
 		conversionService.convert("3", null, TypeDescriptor.valueOf(int.class));
 	}
 
+	@Test
+	public void getConverterForClassPair() {
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		Converter<String, Integer> converter = conversionService.getConverter(String.class, Integer.class);
+		assertNotNull(converter);
+		assertEquals(Integer.valueOf(3), converter.convert("3"));
+		assertEquals(Integer.valueOf(4), converter.convert("4"));
+		assertNull(conversionService.getConverter(String.class, Color.class));
+	}
+
+	@Test
+	public void getConverterForClassPairWithPrimitiveTarget() {
+		conversionService.addConverter(String.class, Integer.class, source -> null);
+		Converter<String, Integer> converter = conversionService.getConverter(String.class, int.class);
+		assertNotNull(converter);
+		try {
+			converter.convert("3");
+			fail("Should have thrown ConversionFailedException");
+		}
+		catch (ConversionFailedException ex) {
+			assertEquals(TypeDescriptor.valueOf(int.class), ex.getTargetType());
+		}
+	}
+
+	@Test
+	public void getConverterForClassPairWrapsConverterException() {
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		Converter<String, Integer> converter = conversionService.getConverter(String.class, Integer.class);
+		try {
+			converter.convert("three");
+			fail("Should have thrown ConversionFailedException");
+		}
+		catch (ConversionFailedException ex) {
+			assertEquals("three", ex.getValue());
+			assertTrue(ex.getCause() instanceof NumberFormatException);
+		}
+	}
+
+	@Test
+	public void convertAfterConverterRegistrationChange() {
+		assertFalse(conversionService.canConvert(String.class, Integer.class));
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+		conversionService.addConverter(String.class, Integer.class, source -> 42);
+		assertEquals(Integer.valueOf(42), conversionService.convert("3", Integer.class));
+		conversionService.removeConvertible(String.class, Integer.class);
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+	}
+
 	@Test
 	public void convertAssignableSource() {
 		assertEquals(Boolean.FALSE, conversionService.convert(false, boolean.class));
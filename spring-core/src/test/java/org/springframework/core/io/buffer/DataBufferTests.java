@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 import org.junit.Test;
@@ -513,6 +514,30 @@ public class DataBufferTests extends AbstractDataBufferAllocatingTestCase {
 		release(composite);
 	}
 
+	@Test
+	public void compose() throws IOException {
+		DataBuffer composite = this.bufferFactory.compose(Arrays.asList(stringBuffer("ab"),
+				stringBuffer("cd"), stringBuffer("ef")));
+		assertTrue(composite instanceof CompositeDataBuffer);
+		assertEquals(3, ((CompositeDataBuffer) composite).componentCount());
+
+		ByteBuffer[] byteBuffers = ((CompositeDataBuffer) composite).asByteBuffers();
+		assertEquals(3, byteBuffers.length);
+		assertEquals("cd", StandardCharsets.UTF_8.decode(byteBuffers[1]).toString());
+
+		assertEquals('d', composite.getByte(3));
+		assertEquals(4, composite.indexOf(b -> b == 'e', 1));
+		assertEquals(1, composite.lastIndexOf(b -> b == 'b', 4));
+		assertEquals("bcde", StandardCharsets.UTF_8.decode(composite.asByteBuffer(1, 4)).toString());
+
+		composite.read();
+		byte[] bytes = new byte[5];
+		assertEquals(5, composite.asInputStream().read(bytes));
+		assertArrayEquals(new byte[] {'b','c','d','e','f'}, bytes);
+
+		release(composite);
+	}
+
 	@Test
 	public void getByte() {
 		DataBuffer buffer = stringBuffer("abc");
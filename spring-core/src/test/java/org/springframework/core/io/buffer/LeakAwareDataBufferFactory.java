@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -106,4 +106,9 @@ public class LeakAwareDataBufferFactory implements DataBufferFactory {
 		return new LeakAwareDataBuffer(this.delegate.join(dataBuffers), this);
 	}
 
+	@Override
+	public DataBuffer compose(List<? extends DataBuffer> dataBuffers) {
+		return new LeakAwareDataBuffer(this.delegate.compose(dataBuffers), this);
+	}
+
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PoolingDataBufferFactory}.
+ *
+ * @author agent
+ */
+public class PoolingDataBufferFactoryTests {
+
+	private final PoolingDataBufferFactory bufferFactory = new PoolingDataBufferFactory();
+
+
+	@Test
+	public void recyclesReleasedMemory() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		assertEquals(100, buffer.capacity());
+		assertEquals(1, this.bufferFactory.getAllocatedBufferCount());
+		buffer.write((byte) 'a');
+		byte[] memory = buffer.getNativeBuffer().array();
+		assertTrue(DataBufferUtils.release(buffer));
+		assertEquals(0, this.bufferFactory.getAllocatedBufferCount());
+
+		DefaultDataBuffer other = this.bufferFactory.allocateBuffer(120);
+		assertEquals(120, other.capacity());
+		assertEquals(0, other.readableByteCount());
+		assertSame(memory, other.getNativeBuffer().array());
+		DataBufferUtils.release(other);
+	}
+
+	@Test
+	public void doesNotRecycleAcrossSizeClasses() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		byte[] memory = buffer.getNativeBuffer().array();
+		DataBufferUtils.release(buffer);
+
+		DefaultDataBuffer other = this.bufferFactory.allocateBuffer(200);
+		assertNotSame(memory, other.getNativeBuffer().array());
+		DataBufferUtils.release(other);
+	}
+
+	@Test
+	public void doesNotPoolLargeBuffers() {
+		this.bufferFactory.setMaxPooledCapacity(1000);
+		assertEquals(1024, this.bufferFactory.getMaxPooledCapacity());
+
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(2000);
+		byte[] memory = buffer.getNativeBuffer().array();
+		DataBufferUtils.release(buffer);
+		assertEquals(0, this.bufferFactory.getAllocatedBufferCount());
+
+		DefaultDataBuffer other = this.bufferFactory.allocateBuffer(2000);
+		assertNotSame(memory, other.getNativeBuffer().array());
+		DataBufferUtils.release(other);
+	}
+
+	@Test
+	public void recyclesMemoryReleasedOnOtherThreadToSharedPool() throws Exception {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		byte[] memory = buffer.getNativeBuffer().array();
+		runOnOtherThread(() -> DataBufferUtils.release(buffer));
+
+		AtomicReference<byte[]> otherMemory = new AtomicReference<>();
+		runOnOtherThread(() -> {
+			DefaultDataBuffer other = this.bufferFactory.allocateBuffer(100);
+			otherMemory.set(other.getNativeBuffer().array());
+			DataBufferUtils.release(other);
+		});
+		assertSame(memory, otherMemory.get());
+	}
+
+	@Test
+	public void threadCacheCountsAgainstPoolLimit() {
+		this.bufferFactory.setMaxPooledMemoryPerSizeClass(128);
+		DefaultDataBuffer buffer1 = this.bufferFactory.allocateBuffer(128);
+		DefaultDataBuffer buffer2 = this.bufferFactory.allocateBuffer(128);
+		byte[] memory1 = buffer1.getNativeBuffer().array();
+		byte[] memory2 = buffer2.getNativeBuffer().array();
+		DataBufferUtils.release(buffer1);
+		DataBufferUtils.release(buffer2);
+
+		DefaultDataBuffer other1 = this.bufferFactory.allocateBuffer(128);
+		DefaultDataBuffer other2 = this.bufferFactory.allocateBuffer(128);
+		assertSame(memory1, other1.getNativeBuffer().array());
+		assertNotSame(memory2, other2.getNativeBuffer().array());
+		DataBufferUtils.release(other1);
+		DataBufferUtils.release(other2);
+	}
+
+	@Test
+	public void reclaimsThreadCacheOfTerminatedThread() throws Exception {
+		AtomicReference<byte[]> memory = new AtomicReference<>();
+		runOnOtherThread(() -> {
+			DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+			memory.set(buffer.getNativeBuffer().array());
+			DataBufferUtils.release(buffer);
+		});
+
+		// Creating the cache of this thread moves the memory of the terminated thread
+		DataBufferUtils.release(this.bufferFactory.allocateBuffer(100));
+		DefaultDataBuffer cached = this.bufferFactory.allocateBuffer(100);
+		DefaultDataBuffer reclaimed = this.bufferFactory.allocateBuffer(100);
+		assertSame(memory.get(), reclaimed.getNativeBuffer().array());
+		DataBufferUtils.release(cached);
+		DataBufferUtils.release(reclaimed);
+	}
+
+	@Test
+	public void capacityIncrease() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		buffer.write(new byte[100]);
+		assertTrue(buffer.capacity() >= 103);
+		assertEquals(103, buffer.readableByteCount());
+		assertEquals('f', buffer.read());
+		assertEquals(1, this.bufferFactory.getAllocatedBufferCount());
+		DataBufferUtils.release(buffer);
+		assertEquals(0, this.bufferFactory.getAllocatedBufferCount());
+	}
+
+	@Test
+	public void sliceSharesReferenceCount() {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foobar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(3, 3);
+		assertTrue(slice instanceof PooledDataBuffer);
+		assertEquals('b', slice.read());
+
+		DataBufferUtils.retain(slice);
+		assertFalse(DataBufferUtils.release(buffer));
+		assertTrue(((PooledDataBuffer) buffer).isAllocated());
+		assertTrue(DataBufferUtils.release(slice));
+		assertFalse(((PooledDataBuffer) buffer).isAllocated());
+		assertEquals(0, this.bufferFactory.getAllocatedBufferCount());
+	}
+
+	@Test
+	public void inputStreamReleasesOnClose() throws IOException {
+		DefaultDataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		InputStream inputStream = buffer.asInputStream(true);
+		assertEquals('f', inputStream.read());
+		inputStream.close();
+		inputStream.close();
+		assertFalse(((PooledDataBuffer) buffer).isAllocated());
+	}
+
+	@Test
+	public void wrapIsNotPooled() {
+		DataBuffer buffer = this.bufferFactory.wrap("foo".getBytes(StandardCharsets.UTF_8));
+		assertFalse(buffer instanceof PooledDataBuffer);
+		assertEquals(0, this.bufferFactory.getAllocatedBufferCount());
+	}
+
+
+	private static void runOnOtherThread(Runnable runnable) throws InterruptedException {
+		Thread thread = new Thread(runnable);
+		thread.start();
+		thread.join();
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.springframework.core.io.buffer.support.DataBufferTestUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link TrackingDataBufferFactory}.
+ *
+ * @author agent
+ */
+public class TrackingDataBufferFactoryTests {
+
+	private final PoolingDataBufferFactory poolingFactory = new PoolingDataBufferFactory();
+
+	private final TrackingDataBufferFactory bufferFactory = new TrackingDataBufferFactory(this.poolingFactory);
+
+
+	@Test
+	public void countsAllocationsAndReleases() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		assertTrue(buffer instanceof PooledDataBuffer);
+		assertSame(this.bufferFactory, buffer.factory());
+		assertEquals(1, this.bufferFactory.getAllocatedBufferCount());
+		assertEquals(0, this.bufferFactory.getReleasedBufferCount());
+		assertEquals(1, this.poolingFactory.getAllocatedBufferCount());
+
+		DataBufferUtils.retain(buffer);
+		assertFalse(DataBufferUtils.release(buffer));
+		assertEquals(0, this.bufferFactory.getReleasedBufferCount());
+		assertTrue(DataBufferUtils.release(buffer));
+		assertEquals(1, this.bufferFactory.getReleasedBufferCount());
+		assertEquals(0, this.poolingFactory.getAllocatedBufferCount());
+		this.bufferFactory.checkForLeaks();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void tooManyReleases() {
+		PooledDataBuffer buffer = (PooledDataBuffer) this.bufferFactory.allocateBuffer(10);
+		buffer.release();
+		buffer.release();
+	}
+
+	@Test
+	public void checkForLeaks() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer();
+		try {
+			this.bufferFactory.checkForLeaks();
+			fail("IllegalStateException expected");
+		}
+		catch (IllegalStateException ex) {
+			assertNotNull(ex.getCause());
+			assertTrue(Arrays.stream(ex.getCause().getStackTrace())
+					.anyMatch(element -> element.getMethodName().equals("checkForLeaks")));
+		}
+		DataBufferUtils.release(buffer);
+		this.bufferFactory.checkForLeaks();
+	}
+
+	@Test
+	public void noSampling() {
+		this.bufferFactory.setSamplingInterval(0);
+		DataBuffer buffer = this.bufferFactory.allocateBuffer();
+		this.bufferFactory.checkForLeaks();
+		assertEquals(1, this.bufferFactory.getAllocatedBufferCount());
+		DataBufferUtils.release(buffer);
+		assertEquals(1, this.bufferFactory.getReleasedBufferCount());
+	}
+
+	@Test
+	public void sliceSharesReferenceCount() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foobar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(3, 3);
+		assertSame(this.bufferFactory, slice.factory());
+		assertEquals('b', slice.read());
+
+		DataBufferUtils.retain(slice);
+		assertFalse(DataBufferUtils.release(buffer));
+		assertTrue(DataBufferUtils.release(slice));
+		assertFalse(((PooledDataBuffer) buffer).isAllocated());
+		this.bufferFactory.checkForLeaks();
+	}
+
+	@Test
+	public void join() {
+		DataBuffer foo = this.bufferFactory.allocateBuffer(3).write("foo".getBytes(StandardCharsets.UTF_8));
+		DataBuffer bar = this.bufferFactory.allocateBuffer(3).write("bar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer joined = this.bufferFactory.join(Arrays.asList(foo, bar));
+		assertEquals("foobar", DataBufferTestUtils.dumpString(joined, StandardCharsets.UTF_8));
+		assertEquals(3, this.bufferFactory.getAllocatedBufferCount());
+		assertEquals(2, this.bufferFactory.getReleasedBufferCount());
+		assertEquals(1, this.poolingFactory.getAllocatedBufferCount());
+
+		DataBufferUtils.release(joined);
+		assertEquals(3, this.bufferFactory.getReleasedBufferCount());
+		assertEquals(0, this.poolingFactory.getAllocatedBufferCount());
+		this.bufferFactory.checkForLeaks();
+	}
+
+	@Test
+	public void compose() {
+		DataBuffer foo = this.bufferFactory.allocateBuffer(3).write("foo".getBytes(StandardCharsets.UTF_8));
+		DataBuffer bar = this.bufferFactory.allocateBuffer(3).write("bar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer composite = this.bufferFactory.compose(Arrays.asList(foo, bar));
+		assertEquals("foobar", DataBufferTestUtils.dumpString(composite, StandardCharsets.UTF_8));
+		assertEquals(3, this.bufferFactory.getAllocatedBufferCount());
+		assertEquals(2, this.bufferFactory.getReleasedBufferCount());
+		assertEquals(2, this.poolingFactory.getAllocatedBufferCount());
+
+		DataBufferUtils.release(composite);
+		assertEquals(3, this.bufferFactory.getReleasedBufferCount());
+		assertEquals(0, this.poolingFactory.getAllocatedBufferCount());
+		this.bufferFactory.checkForLeaks();
+	}
+
+	@Test
+	public void inputStreamReleasesOnClose() throws IOException {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		InputStream inputStream = buffer.asInputStream(true);
+		assertEquals('f', inputStream.read());
+		inputStream.close();
+		assertFalse(((PooledDataBuffer) buffer).isAllocated());
+		this.bufferFactory.checkForLeaks();
+	}
+
+	@Test
+	public void wrapIsNotTracked() {
+		DataBuffer buffer = this.bufferFactory.wrap("foo".getBytes(StandardCharsets.UTF_8));
+		assertFalse(buffer instanceof PooledDataBuffer);
+		assertEquals(0, this.bufferFactory.getAllocatedBufferCount());
+	}
+
+}
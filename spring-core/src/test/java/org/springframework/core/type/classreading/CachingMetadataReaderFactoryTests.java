@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ClassUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for concurrent access to a {@link CachingMetadataReaderFactory}.
+ *
+ * @author agent
+ */
+public class CachingMetadataReaderFactoryTests {
+
+	private static final Class<?>[] CLASSES = {String.class, Integer.class, Long.class, List.class,
+			ArrayList.class, Resource.class, ClassPathResource.class, ClassUtils.class};
+
+	private static final int THREADS = 8;
+
+
+	@Test
+	public void concurrentAccessWithLocalCache() throws Exception {
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		List<MetadataReader[]> results = readConcurrently(factory);
+
+		// Every thread sees the same cached reader for the same resource
+		MetadataReader[] first = results.get(0);
+		for (MetadataReader[] readers : results) {
+			for (int i = 0; i < CLASSES.length; i++) {
+				assertSame(first[i], readers[i]);
+				assertSame(first[i], factory.getMetadataReader(resource(CLASSES[i])));
+			}
+		}
+	}
+
+	@Test
+	public void concurrentAccessWithExceededCacheLimit() throws Exception {
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		factory.setCacheLimit(2);
+		readConcurrently(factory);
+		assertEquals(2, factory.getCacheLimit());
+	}
+
+	@Test
+	public void concurrentAccessWithClearCache() throws Exception {
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		MetadataReader reader = factory.getMetadataReader(resource(String.class));
+		readConcurrently(factory, factory::clearCache);
+		factory.clearCache();
+		assertNotSame(reader, factory.getMetadataReader(resource(String.class)));
+	}
+
+
+	private List<MetadataReader[]> readConcurrently(CachingMetadataReaderFactory factory) throws Exception {
+		return readConcurrently(factory, () -> {});
+	}
+
+	/**
+	 * Read the metadata of all test classes from several threads at the same time,
+	 * asserting that each thread gets the metadata of the requested class.
+	 */
+	private List<MetadataReader[]> readConcurrently(CachingMetadataReaderFactory factory, Runnable between)
+			throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<MetadataReader[]>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int offset = t;
+				Callable<MetadataReader[]> task = () -> {
+					start.await();
+					MetadataReader[] readers = new MetadataReader[CLASSES.length];
+					for (int i = 0; i < CLASSES.length; i++) {
+						// Each thread starts at a different class, to read different resources at the same time
+						int index = (i + offset) % CLASSES.length;
+						readers[index] = factory.getMetadataReader(resource(CLASSES[index]));
+						assertEquals(CLASSES[index].getName(), readers[index].getClassMetadata().getClassName());
+						between.run();
+					}
+					return readers;
+				};
+				futures.add(executor.submit(task));
+			}
+			start.countDown();
+			List<MetadataReader[]> results = new ArrayList<>();
+			for (Future<MetadataReader[]> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Resource resource(Class<?> clazz) {
+		return new ClassPathResource(ClassUtils.convertClassNameToResourcePath(clazz.getName()) +
+				ClassUtils.CLASS_FILE_SUFFIX, clazz.getClassLoader());
+	}
+
+}
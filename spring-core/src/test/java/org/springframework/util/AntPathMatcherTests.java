@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -616,10 +616,11 @@ public class AntPathMatcherTests {
 		assertTrue(pathMatcher.stringMatcherCache.size() > 20);
 
 		for (int i = 0; i < 65536; i++) {
-			pathMatcher.match("test" + i, "test");
+			pathMatcher.match("test" + i, "test" + i);
 		}
-		// Cache turned off because it went beyond the threshold
-		assertTrue(pathMatcher.stringMatcherCache.isEmpty());
+		// Cache bounded to its size limit, keeping the most recent patterns
+		assertEquals(65536, pathMatcher.stringMatcherCache.size());
+		assertTrue(pathMatcher.stringMatcherCache.contains("test65535"));
 	}
 
 	@Test
@@ -631,8 +632,9 @@ public class AntPathMatcherTests {
 		for (int i = 0; i < 65536; i++) {
 			pathMatcher.match("test" + i, "test" + i);
 		}
-		// Cache keeps being alive due to the explicit cache setting
-		assertTrue(pathMatcher.stringMatcherCache.size() > 65536);
+		// Cache keeps being alive due to the explicit cache setting, still bounded
+		assertEquals(65536, pathMatcher.stringMatcherCache.size());
+		assertTrue(pathMatcher.stringMatcherCache.contains("test65535"));
 	}
 
 	@Test
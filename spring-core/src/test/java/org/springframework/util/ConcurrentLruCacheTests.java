@@ -0,0 +1,208 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ConcurrentLruCache}.
+ *
+ * @author agent
+ */
+public class ConcurrentLruCacheTests {
+
+	private final ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(2);
+
+
+	@Test
+	public void getAndSize() {
+		assertEquals(2, this.cache.sizeLimit());
+		assertTrue(this.cache.isEmpty());
+		assertNull(this.cache.get("k1"));
+		assertEquals("k1value", this.cache.get("k1", key -> key + "value"));
+		assertEquals(1, this.cache.size());
+		assertEquals("k1value", this.cache.get("k1"));
+		assertEquals("k1value", this.cache.get("k1", key -> "other"));
+		assertEquals(1, this.cache.size());
+		assertTrue(this.cache.contains("k1"));
+		assertFalse(this.cache.contains("k2"));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		this.cache.put("k1", "v1");
+		this.cache.put("k2", "v2");
+		assertEquals("v1", this.cache.get("k1"));
+		this.cache.put("k3", "v3");
+		assertEquals(2, this.cache.size());
+		assertEquals("v1", this.cache.get("k1"));
+		assertNull(this.cache.get("k2"));
+		assertEquals("v3", this.cache.get("k3"));
+	}
+
+	@Test
+	public void evictsOldestIfAllRecentlyUsed() {
+		this.cache.put("k1", "v1");
+		this.cache.put("k2", "v2");
+		this.cache.get("k1");
+		this.cache.get("k2");
+		this.cache.put("k3", "v3");
+		assertEquals(2, this.cache.size());
+		assertFalse(this.cache.contains("k1"));
+		assertTrue(this.cache.contains("k2"));
+		assertTrue(this.cache.contains("k3"));
+	}
+
+	@Test
+	public void putReplacesExistingValue() {
+		this.cache.put("k1", "v1");
+		this.cache.put("k1", "v1b");
+		assertEquals(1, this.cache.size());
+		assertEquals("v1b", this.cache.get("k1"));
+	}
+
+	@Test
+	public void removeAndClear() {
+		this.cache.put("k1", "v1");
+		this.cache.put("k2", "v2");
+		assertTrue(this.cache.remove("k1"));
+		assertFalse(this.cache.remove("k1"));
+		this.cache.put("k3", "v3");
+		assertEquals("v2", this.cache.get("k2"));
+		assertEquals("v3", this.cache.get("k3"));
+
+		this.cache.clear();
+		assertTrue(this.cache.isEmpty());
+		this.cache.put("k4", "v4");
+		this.cache.put("k5", "v5");
+		assertEquals(2, this.cache.size());
+	}
+
+	@Test
+	public void removeThenPut() {
+		ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(100);
+		for (int i = 0; i < 100; i++) {
+			cache.put("k" + i, "v" + i);
+		}
+		for (int i = 10; i < 100; i++) {
+			assertTrue(cache.remove("k" + i));
+		}
+		cache.put("k100", "v100");
+		assertEquals(11, cache.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals("v" + i, cache.get("k" + i));
+		}
+		assertEquals("v100", cache.get("k100"));
+	}
+
+	@Test
+	public void removedEntriesDoNotCountAgainstSizeLimit() {
+		ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(4);
+		cache.put("k1", "v1");
+		cache.put("k2", "v2");
+		cache.put("k3", "v3");
+		for (int i = 0; i < 1000; i++) {
+			cache.put("temp", "v" + i);
+			assertTrue(cache.remove("temp"));
+		}
+		assertEquals(3, cache.size());
+		assertEquals("v1", cache.get("k1"));
+		assertEquals("v2", cache.get("k2"));
+		assertEquals("v3", cache.get("k3"));
+
+		cache.put("k4", "v4");
+		cache.put("k5", "v5");
+		assertEquals(4, cache.size());
+		assertFalse(cache.contains("temp"));
+	}
+
+	@Test
+	public void clearWithConcurrentRetrieval() throws Exception {
+		ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(16);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean clearing = new AtomicBoolean(true);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 3; t++) {
+				String prefix = "t" + t + "-";
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; clearing.get(); i++) {
+						String key = prefix + (i % 64);
+						assertEquals(key, cache.get(key, k -> k));
+					}
+					return null;
+				}));
+			}
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < 10000; i++) {
+					cache.clear();
+				}
+				clearing.set(false);
+				return null;
+			}));
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		// No entry left behind in the cache without being subject to eviction
+		for (int i = 0; i < 32; i++) {
+			cache.put("k" + i, "v" + i);
+		}
+		assertEquals(16, cache.size());
+	}
+
+	@Test
+	public void forEach() {
+		this.cache.put("k1", "v1");
+		this.cache.put("k2", "v2");
+		Map<String, String> entries = new HashMap<>();
+		this.cache.forEach(entries::put);
+		assertEquals(2, entries.size());
+		assertEquals("v1", entries.get("k1"));
+		assertEquals("v2", entries.get("k2"));
+	}
+
+	@Test
+	public void zeroSizeLimit() {
+		ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(0);
+		assertEquals("k1value", cache.get("k1", key -> key + "value"));
+		cache.put("k2", "v2");
+		assertTrue(cache.isEmpty());
+		assertNull(cache.get("k2"));
+	}
+
+}
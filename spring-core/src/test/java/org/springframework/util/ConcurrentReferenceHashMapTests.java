@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.Ignore;
 import org.junit.Rule;
@@ -255,6 +256,40 @@ public class ConcurrentReferenceHashMapTests {
 		assertThat(this.map.get(5), is("5"));
 	}
 
+	@Test(timeout = 5000)
+	public void shouldNotBlockOnPurgeWhileSegmentIsLocked() throws Exception {
+		this.map = new TestWeakConcurrentCache<>(1, 0.75f, 1);
+		for (int i = 1; i <= 5; i++) {
+			this.map.put(i, String.valueOf(i));
+		}
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread lockHolder = new Thread(() -> {
+			this.map.getSegment(0).lock();
+			try {
+				locked.countDown();
+				release.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				this.map.getSegment(0).unlock();
+			}
+		});
+		lockHolder.start();
+		locked.await();
+		this.map.getMockReference(1, Restructure.NEVER).queueForPurge();
+		assertThat(this.map.get(2), is("2"));
+		assertThat(this.map.get(3), is("3"));
+		release.countDown();
+		lockHolder.join();
+		this.map.put(4, "4b");
+		assertThat(this.map.getReference(1, Restructure.NEVER), is(nullValue()));
+		assertThat(this.map.get(4), is("4b"));
+		assertThat(this.map.get(5), is("5"));
+	}
+
 	@Test
 	public void shouldPutIfAbsent() {
 		assertThat(this.map.putIfAbsent(123, "123"), is(nullValue()));
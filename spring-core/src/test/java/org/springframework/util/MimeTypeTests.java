@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -181,6 +181,19 @@ public class MimeTypeTests {
 		assertEquals("Invalid subtype", "*", mimeType.getSubtype());
 	}
 
+	@Test
+	public void parseMimeTypeCached() {
+		MimeType mimeType = MimeTypeUtils.parseMimeType("text/plain;charset=UTF-8");
+		assertSame(mimeType, MimeTypeUtils.parseMimeType("text/plain;charset=UTF-8"));
+		assertEquals(new MimeType("text", "plain", StandardCharsets.UTF_8), mimeType);
+	}
+
+	@Test
+	public void parseMultipartMimeTypeNotCached() {
+		String s = "multipart/form-data;boundary=0aA";
+		assertNotSame(MimeTypeUtils.parseMimeType(s), MimeTypeUtils.parseMimeType(s));
+	}
+
 	@Test(expected = InvalidMimeTypeException.class)
 	public void parseMimeTypeNoSubtype() {
 		MimeTypeUtils.parseMimeType("audio");
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.jdbc.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Benchmarks for {@link JdbcTemplate#query} row mapping against an embedded
+ * HSQL database, comparing a hand-written {@link RowMapper} with
+ * {@link BeanPropertyRowMapper}, {@link ColumnMapRowMapper} and
+ * {@link SingleColumnRowMapper}.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class JdbcTemplateQueryBenchmark {
+
+	private static final String QUERY = "SELECT id, name, age FROM person";
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public EmbeddedDatabase database;
+
+		public JdbcTemplate jdbcTemplate;
+
+		public RowMapper<Person> personRowMapper = (rs, rowNum) ->
+				new Person(rs.getLong("id"), rs.getString("name"), rs.getInt("age"));
+
+		public RowMapper<Person> beanPropertyRowMapper = BeanPropertyRowMapper.newInstance(Person.class);
+
+		@Setup
+		public void setup() {
+			this.database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.HSQL).build();
+			this.jdbcTemplate = new JdbcTemplate(this.database);
+			this.jdbcTemplate.execute("CREATE TABLE person (id BIGINT PRIMARY KEY, name VARCHAR(50), age INT)");
+			for (int i = 0; i < 100; i++) {
+				this.jdbcTemplate.update("INSERT INTO person VALUES (?, ?, ?)", i, "name" + i, i % 80);
+			}
+		}
+
+		@TearDown
+		public void tearDown() {
+			this.database.shutdown();
+		}
+	}
+
+
+	@Benchmark
+	public void queryWithRowMapper(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.jdbcTemplate.query(QUERY, data.personRowMapper));
+	}
+
+	@Benchmark
+	public void queryWithBeanPropertyRowMapper(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.jdbcTemplate.query(QUERY, data.beanPropertyRowMapper));
+	}
+
+	@Benchmark
+	public void queryForList(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.jdbcTemplate.queryForList(QUERY));
+	}
+
+	@Benchmark
+	public void queryForSingleColumn(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.jdbcTemplate.queryForList("SELECT name FROM person", String.class));
+	}
+
+
+	public static class Person {
+
+		private long id;
+
+		private String name;
+
+		private int age;
+
+		public Person() {
+		}
+
+		public Person(long id, String name, int age) {
+			this.id = id;
+			this.name = name;
+			this.age = age;
+		}
+
+		public long getId() {
+			return this.id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+	}
+
+}
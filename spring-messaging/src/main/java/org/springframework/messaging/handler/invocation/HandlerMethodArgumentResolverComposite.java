@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.messaging.handler.invocation;
 
+import java.lang.reflect.Executable;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,7 +30,7 @@ import org.springframework.messaging.Message;
 /**
  * Resolves method parameters by delegating to a list of registered
  * {@link HandlerMethodArgumentResolver}. Previously resolved method parameters are cached
- * for faster lookups.
+ * for faster lookups, as are the resolvers for all the parameters of a handler method.
  *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
@@ -37,17 +38,24 @@ import org.springframework.messaging.Message;
  */
 public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgumentResolver {
 
+	private static final HandlerMethodArgumentResolver[] NO_RESOLVERS = new HandlerMethodArgumentResolver[0];
+
+
 	private final List<HandlerMethodArgumentResolver> argumentResolvers = new LinkedList<>();
 
 	private final Map<MethodParameter, HandlerMethodArgumentResolver> argumentResolverCache =
 			new ConcurrentHashMap<>(256);
 
+	private final Map<Executable, HandlerMethodArgumentResolver[]> methodArgumentResolverCache =
+			new ConcurrentHashMap<>(64);
+
 
 	/**
 	 * Add the given {@link HandlerMethodArgumentResolver}.
 	 */
 	public HandlerMethodArgumentResolverComposite addResolver(HandlerMethodArgumentResolver argumentResolver) {
 		this.argumentResolvers.add(argumentResolver);
+		this.methodArgumentResolverCache.clear();
 		return this;
 	}
 
@@ -58,6 +66,7 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 	public HandlerMethodArgumentResolverComposite addResolvers(@Nullable HandlerMethodArgumentResolver... resolvers) {
 		if (resolvers != null) {
 			Collections.addAll(this.argumentResolvers, resolvers);
+			this.methodArgumentResolverCache.clear();
 		}
 		return this;
 	}
@@ -70,6 +79,7 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 
 		if (argumentResolvers != null) {
 			this.argumentResolvers.addAll(argumentResolvers);
+			this.methodArgumentResolverCache.clear();
 		}
 		return this;
 	}
@@ -86,6 +96,7 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 	 */
 	public void clear() {
 		this.argumentResolvers.clear();
+		this.methodArgumentResolverCache.clear();
 	}
 
 
@@ -117,6 +128,35 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 		return resolver.resolveArgument(parameter, message);
 	}
 
+	/**
+	 * Find the registered {@link HandlerMethodArgumentResolver} supporting each
+	 * of the given method parameters, or {@code null} for a parameter which is
+	 * not supported by any of them.
+	 * <p>The parameters are expected to be all the parameters of one method, in
+	 * declaration order, as exposed by a {@link org.springframework.messaging.handler.HandlerMethod}.
+	 * The resolvers are cached per method, so that invoking a handler method
+	 * does not look up the resolver of each of its parameters every time.
+	 * The returned array is shared and must not be modified.
+	 * @since 5.1.4
+	 */
+	HandlerMethodArgumentResolver[] getArgumentResolvers(MethodParameter[] parameters) {
+		if (parameters.length == 0) {
+			return NO_RESOLVERS;
+		}
+		Executable executable = parameters[0].getExecutable();
+		HandlerMethodArgumentResolver[] result = this.methodArgumentResolverCache.get(executable);
+		if (result == null || result.length != parameters.length) {
+			result = new HandlerMethodArgumentResolver[parameters.length];
+			for (int i = 0; i < parameters.length; i++) {
+				result[i] = getArgumentResolver(parameters[i]);
+			}
+			if (parameters.length == executable.getParameterCount()) {
+				this.methodArgumentResolverCache.put(executable, result);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Find a registered {@link HandlerMethodArgumentResolver} that supports
 	 * the given method parameter.
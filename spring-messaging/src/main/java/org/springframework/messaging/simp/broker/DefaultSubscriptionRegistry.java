@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,6 @@ package org.springframework.messaging.simp.broker;
 
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,6 +40,7 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.PathMatcher;
@@ -106,6 +106,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	 */
 	public void setCacheLimit(int cacheLimit) {
 		this.cacheLimit = cacheLimit;
+		this.destinationCache.updateCacheLimit(cacheLimit);
 	}
 
 	/**
@@ -253,30 +254,17 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	private class DestinationCache {
 
 		/** Map from destination to {@code <sessionId, subscriptionId>} for fast look-ups. */
-		private final Map<String, LinkedMultiValueMap<String, String>> accessCache =
-				new ConcurrentHashMap<>(DEFAULT_CACHE_LIMIT);
-
-		/** Map from destination to {@code <sessionId, subscriptionId>} with locking. */
-		@SuppressWarnings("serial")
-		private final Map<String, LinkedMultiValueMap<String, String>> updateCache =
-				new LinkedHashMap<String, LinkedMultiValueMap<String, String>>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-					@Override
-					protected boolean removeEldestEntry(Map.Entry<String, LinkedMultiValueMap<String, String>> eldest) {
-						if (size() > getCacheLimit()) {
-							accessCache.remove(eldest.getKey());
-							return true;
-						}
-						else {
-							return false;
-						}
-					}
-				};
+		private volatile ConcurrentLruCache<String, LinkedMultiValueMap<String, String>> accessCache =
+				new ConcurrentLruCache<>(getCacheLimit());
+
+		/** Monitor for updates, with cached values replaced rather than modified. */
+		private final Object updateMonitor = new Object();
 
 
 		public LinkedMultiValueMap<String, String> getSubscriptions(String destination, Message<?> message) {
 			LinkedMultiValueMap<String, String> result = this.accessCache.get(destination);
 			if (result == null) {
-				synchronized (this.updateCache) {
+				synchronized (this.updateMonitor) {
 					result = new LinkedMultiValueMap<>();
 					for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
 						for (String destinationPattern : info.getDestinations()) {
@@ -288,7 +276,6 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 						}
 					}
 					if (!result.isEmpty()) {
-						this.updateCache.put(destination, result.deepCopy());
 						this.accessCache.put(destination, result);
 					}
 				}
@@ -297,14 +284,15 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		}
 
 		public void updateAfterNewSubscription(String destination, String sessionId, String subsId) {
-			synchronized (this.updateCache) {
-				this.updateCache.forEach((cachedDestination, subscriptions) -> {
+			synchronized (this.updateMonitor) {
+				this.accessCache.forEach((cachedDestination, subscriptions) -> {
 					if (getPathMatcher().match(destination, cachedDestination)) {
 						// Subscription id's may also be populated via getSubscriptions()
 						List<String> subsForSession = subscriptions.get(sessionId);
 						if (subsForSession == null || !subsForSession.contains(subsId)) {
-							subscriptions.add(sessionId, subsId);
-							this.accessCache.put(cachedDestination, subscriptions.deepCopy());
+							LinkedMultiValueMap<String, String> updated = subscriptions.deepCopy();
+							updated.add(sessionId, subsId);
+							this.accessCache.put(cachedDestination, updated);
 						}
 					}
 				});
@@ -312,50 +300,60 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		}
 
 		public void updateAfterRemovedSubscription(String sessionId, String subsId) {
-			synchronized (this.updateCache) {
+			synchronized (this.updateMonitor) {
 				Set<String> destinationsToRemove = new HashSet<>();
-				this.updateCache.forEach((destination, sessionMap) -> {
+				this.accessCache.forEach((destination, sessionMap) -> {
 					List<String> subscriptions = sessionMap.get(sessionId);
 					if (subscriptions != null) {
+						LinkedMultiValueMap<String, String> updated = sessionMap.deepCopy();
+						subscriptions = updated.get(sessionId);
 						subscriptions.remove(subsId);
 						if (subscriptions.isEmpty()) {
-							sessionMap.remove(sessionId);
+							updated.remove(sessionId);
 						}
-						if (sessionMap.isEmpty()) {
+						if (updated.isEmpty()) {
 							destinationsToRemove.add(destination);
 						}
 						else {
-							this.accessCache.put(destination, sessionMap.deepCopy());
+							this.accessCache.put(destination, updated);
 						}
 					}
 				});
 				for (String destination : destinationsToRemove) {
-					this.updateCache.remove(destination);
 					this.accessCache.remove(destination);
 				}
 			}
 		}
 
 		public void updateAfterRemovedSession(SessionSubscriptionInfo info) {
-			synchronized (this.updateCache) {
+			synchronized (this.updateMonitor) {
 				Set<String> destinationsToRemove = new HashSet<>();
-				this.updateCache.forEach((destination, sessionMap) -> {
-					if (sessionMap.remove(info.getSessionId()) != null) {
-						if (sessionMap.isEmpty()) {
+				this.accessCache.forEach((destination, sessionMap) -> {
+					if (sessionMap.containsKey(info.getSessionId())) {
+						LinkedMultiValueMap<String, String> updated = sessionMap.deepCopy();
+						updated.remove(info.getSessionId());
+						if (updated.isEmpty()) {
 							destinationsToRemove.add(destination);
 						}
 						else {
-							this.accessCache.put(destination, sessionMap.deepCopy());
+							this.accessCache.put(destination, updated);
 						}
 					}
 				});
 				for (String destination : destinationsToRemove) {
-					this.updateCache.remove(destination);
 					this.accessCache.remove(destination);
 				}
 			}
 		}
 
+		public void updateCacheLimit(int cacheLimit) {
+			synchronized (this.updateMonitor) {
+				if (cacheLimit != this.accessCache.sizeLimit()) {
+					this.accessCache = new ConcurrentLruCache<>(cacheLimit);
+				}
+			}
+		}
+
 		@Override
 		public String toString() {
 			return "cache[" + this.accessCache.size() + " destination(s)]";
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -80,6 +80,24 @@ public class InvocableHandlerMethodTests {
 		}
 	}
 
+	@Test
+	public void resolveArgAfterAddingResolvers() throws Exception {
+		Method method = ResolvableMethod.on(Handler.class).mockCall(c -> c.handle(0, "")).method();
+		try {
+			invoke(new Handler(), method);
+			fail("Expected exception");
+		}
+		catch (MethodArgumentResolutionException ex) {
+			// expected
+		}
+
+		this.resolvers.addResolver(new StubArgumentResolver(99));
+		this.resolvers.addResolver(new StubArgumentResolver("value"));
+		assertEquals("99-value", invoke(new Handler(), method));
+		assertEquals("99-value", invoke(new Handler(), method));
+		assertEquals(2, getStubResolver(0).getResolvedParameters().size());
+	}
+
 	@Test
 	public void resolveProvidedArg() throws Exception {
 		Method method = ResolvableMethod.on(Handler.class).mockCall(c -> c.handle(0, "")).method();
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the per-request media type handling of content negotiation:
+ * parsing a typical "Accept" header with {@link MediaType#parseMediaTypes(String)}
+ * and checking it against the producible media types.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class MediaTypeBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public String acceptHeader =
+				"text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8";
+
+		public List<MediaType> producibleTypes;
+
+		public List<MediaType> acceptedTypes;
+
+		@Setup
+		public void setup() {
+			this.producibleTypes = Arrays.asList(MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON_UTF8,
+					MediaType.valueOf("application/*+json"), MediaType.APPLICATION_XML, MediaType.TEXT_PLAIN);
+			this.acceptedTypes = MediaType.parseMediaTypes(this.acceptHeader);
+		}
+	}
+
+
+	@Benchmark
+	public void parseAcceptHeader(BenchmarkData data, Blackhole bh) {
+		bh.consume(MediaType.parseMediaTypes(data.acceptHeader));
+	}
+
+	@Benchmark
+	public void parseMediaType(BenchmarkData data, Blackhole bh) {
+		bh.consume(MediaType.parseMediaType("application/json;charset=UTF-8"));
+	}
+
+	@Benchmark
+	public void matchCompatibleTypes(BenchmarkData data, Blackhole bh) {
+		for (MediaType acceptedType : data.acceptedTypes) {
+			for (MediaType producibleType : data.producibleTypes) {
+				bh.consume(acceptedType.isCompatibleWith(producibleType));
+				bh.consume(acceptedType.includes(producibleType));
+			}
+		}
+	}
+
+	@Benchmark
+	public void toStringValue(BenchmarkData data, Blackhole bh) {
+		for (MediaType acceptedType : data.acceptedTypes) {
+			bh.consume(acceptedType.toString());
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.http.codec.json;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * Benchmarks for {@link Jackson2JsonEncoder}, encoding a single value as well
+ * as a stream of values.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class Jackson2JsonEncoderBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"1", "100"})
+		public int elementCount;
+
+		public Jackson2JsonEncoder encoder;
+
+		public DataBufferFactory bufferFactory;
+
+		public ResolvableType elementType = ResolvableType.forClass(Pojo.class);
+
+		public List<Pojo> elements;
+
+		@Setup
+		public void setup() {
+			this.encoder = new Jackson2JsonEncoder();
+			this.bufferFactory = new DefaultDataBufferFactory();
+			this.elements = new ArrayList<>(this.elementCount);
+			for (int i = 0; i < this.elementCount; i++) {
+				this.elements.add(new Pojo("foo" + i, "bar" + i));
+			}
+		}
+	}
+
+
+	@Benchmark
+	public void encodeValue(BenchmarkData data, Blackhole bh) {
+		Flux<DataBuffer> result = data.encoder.encode(Mono.just(data.elements.get(0)), data.bufferFactory,
+				data.elementType, MediaType.APPLICATION_JSON, Collections.emptyMap());
+		consume(result, bh);
+	}
+
+	@Benchmark
+	public void encodeArray(BenchmarkData data, Blackhole bh) {
+		Flux<DataBuffer> result = data.encoder.encode(Flux.fromIterable(data.elements), data.bufferFactory,
+				data.elementType, MediaType.APPLICATION_JSON, Collections.emptyMap());
+		consume(result, bh);
+	}
+
+	@Benchmark
+	public void encodeStream(BenchmarkData data, Blackhole bh) {
+		Flux<DataBuffer> result = data.encoder.encode(Flux.fromIterable(data.elements), data.bufferFactory,
+				data.elementType, MediaType.APPLICATION_STREAM_JSON, Collections.emptyMap());
+		consume(result, bh);
+	}
+
+	private static void consume(Flux<DataBuffer> result, Blackhole bh) {
+		result.doOnNext(buffer -> {
+			bh.consume(buffer.readableByteCount());
+			DataBufferUtils.release(buffer);
+		}).blockLast();
+	}
+
+
+	public static class Pojo {
+
+		private String foo;
+
+		private String bar;
+
+		public Pojo() {
+		}
+
+		public Pojo(String foo, String bar) {
+			this.foo = foo;
+			this.bar = bar;
+		}
+
+		public String getFoo() {
+			return this.foo;
+		}
+
+		public void setFoo(String foo) {
+			this.foo = foo;
+		}
+
+		public String getBar() {
+			return this.bar;
+		}
+
+		public void setBar(String bar) {
+			this.bar = bar;
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.mock.web.test.MockHttpServletRequest;
+
+/**
+ * Benchmarks for determining the lookup path of a request once for each of
+ * the components processing it, e.g. handler mappings, interceptors and CORS
+ * configuration sources, compared to resolving it once and reusing it through
+ * {@link UrlPathHelper#resolveAndCacheLookupPath}.
+ * <p>Run with "-prof gc" to compare the allocations per request.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class UrlPathHelperBenchmark {
+
+	@State(Scope.Thread)
+	public static class BenchmarkData {
+
+		@Param({"5"})
+		public int consumers;
+
+		public UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+		public MockHttpServletRequest request;
+
+		@Setup
+		public void setup() {
+			this.request = new MockHttpServletRequest("GET",
+					"/app/spring%20framework/docs;jsessionid=0123456789ABCDEF/reference/index.html");
+			this.request.setContextPath("/app");
+		}
+	}
+
+
+	@Benchmark
+	public void getLookupPathPerConsumer(BenchmarkData data, Blackhole bh) {
+		for (int i = 0; i < data.consumers; i++) {
+			bh.consume(data.urlPathHelper.getLookupPathForRequest(data.request));
+		}
+	}
+
+	@Benchmark
+	public void resolveAndCacheLookupPath(BenchmarkData data, Blackhole bh) {
+		data.request.removeAttribute(UrlPathHelper.PATH_ATTRIBUTE);
+		for (int i = 0; i < data.consumers; i++) {
+			bh.consume(data.urlPathHelper.resolveAndCacheLookupPath(data.request));
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.http.server.PathContainer;
+
+/**
+ * Benchmarks for {@link PathPattern#matches(PathContainer)} against a set of
+ * typical request mapping patterns.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class PathPatternBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public List<PathPattern> patterns = new ArrayList<>();
+
+		public List<PathContainer> paths = new ArrayList<>();
+
+		@Setup
+		public void setup() {
+			PathPatternParser parser = new PathPatternParser();
+			String[] patterns = new String[] {
+					"/", "/static/**", "/static/css/*.css", "/api/users", "/api/users/{id}",
+					"/api/users/{id}/orders/{orderId}", "/api/projects/{project}/**", "/docs/{*path}"};
+			for (String pattern : patterns) {
+				this.patterns.add(parser.parse(pattern));
+			}
+			String[] paths = new String[] {
+					"/", "/static/css/main.css", "/static/js/app.js", "/api/users", "/api/users/42",
+					"/api/users/42/orders/1337", "/api/projects/spring/issues/12", "/docs/index.html"};
+			for (String path : paths) {
+				this.paths.add(PathContainer.parsePath(path));
+			}
+		}
+	}
+
+
+	@Benchmark
+	public void matchPatterns(BenchmarkData data, Blackhole bh) {
+		for (PathContainer path : data.paths) {
+			for (PathPattern pattern : data.patterns) {
+				bh.consume(pattern.matches(path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void parseAndMatchPath(BenchmarkData data, Blackhole bh) {
+		PathContainer path = PathContainer.parsePath("/api/users/42/orders/1337");
+		for (PathPattern pattern : data.patterns) {
+			bh.consume(pattern.matches(path));
+		}
+	}
+
+}
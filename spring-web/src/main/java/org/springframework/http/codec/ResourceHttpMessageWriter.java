@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -93,6 +93,21 @@ public class ResourceHttpMessageWriter implements HttpMessageWriter<Resource> {
 	}
 
 
+	/**
+	 * Whether to map file resources into memory when encoding them, rather
+	 * than copying their content into newly allocated buffers. This applies
+	 * when the response does not support zero-copy file transfer.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.1.4
+	 * @see ResourceEncoder#setMemoryMapped
+	 * @see ResourceRegionEncoder#setMemoryMapped
+	 */
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.encoder.setMemoryMapped(memoryMapped);
+		this.regionEncoder.setMemoryMapped(memoryMapped);
+	}
+
+
 	@Override
 	public boolean canWrite(ResolvableType elementType, @Nullable MediaType mediaType) {
 		return this.encoder.canEncode(elementType, mediaType);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.http.codec.json;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
@@ -48,22 +49,36 @@ final class Jackson2Tokenizer {
 
 	private final boolean tokenizeArrayElements;
 
+	private final int maxInMemorySize;
+
 	private TokenBuffer tokenBuffer;
 
 	private int objectDepth;
 
 	private int arrayDepth;
 
+	private boolean tokenBufferEmpty = true;
+
+	/** Byte offset of the input at which the current token buffer started. */
+	private long tokenBufferOffset;
+
+	/** Byte offset of the input fed so far. */
+	private long inputOffset;
+
 	// TODO: change to ByteBufferFeeder when supported by Jackson
 	// See https://github.com/FasterXML/jackson-core/issues/478
 	private final ByteArrayFeeder inputFeeder;
 
+	/** Reusable input array for buffers not backed by an accessible array. */
+	private byte[] inputArray = new byte[0];
+
 
-	private Jackson2Tokenizer(JsonParser parser, boolean tokenizeArrayElements) {
+	private Jackson2Tokenizer(JsonParser parser, boolean tokenizeArrayElements, int maxInMemorySize) {
 		Assert.notNull(parser, "'parser' must not be null");
 
 		this.parser = parser;
 		this.tokenizeArrayElements = tokenizeArrayElements;
+		this.maxInMemorySize = maxInMemorySize;
 		this.tokenBuffer = new TokenBuffer(parser);
 		this.inputFeeder = (ByteArrayFeeder) this.parser.getNonBlockingInputFeeder();
 	}
@@ -80,9 +95,27 @@ final class Jackson2Tokenizer {
 	public static Flux<TokenBuffer> tokenize(Flux<DataBuffer> dataBuffers, JsonFactory jsonFactory,
 			boolean tokenizeArrayElements) {
 
+		return tokenize(dataBuffers, jsonFactory, tokenizeArrayElements, -1);
+	}
+
+	/**
+	 * Tokenize the given {@code Flux<DataBuffer>} into {@code Flux<TokenBuffer>}.
+	 * @param dataBuffers the source data buffers
+	 * @param jsonFactory the factory to use
+	 * @param tokenizeArrayElements if {@code true} and the "top level" JSON
+	 * object is an array, each element is returned individually, immediately
+	 * after it is received.
+	 * @param maxInMemorySize the maximum number of bytes of input for a single
+	 * token buffer, or -1 for unlimited
+	 * @return the result token buffers
+	 * @since 5.1.4
+	 */
+	public static Flux<TokenBuffer> tokenize(Flux<DataBuffer> dataBuffers, JsonFactory jsonFactory,
+			boolean tokenizeArrayElements, int maxInMemorySize) {
+
 		try {
 			JsonParser parser = jsonFactory.createNonBlockingByteArrayParser();
-			Jackson2Tokenizer tokenizer = new Jackson2Tokenizer(parser, tokenizeArrayElements);
+			Jackson2Tokenizer tokenizer = new Jackson2Tokenizer(parser, tokenizeArrayElements, maxInMemorySize);
 			return dataBuffers.flatMap(tokenizer::tokenize, Flux::error, tokenizer::endOfInput);
 		}
 		catch (IOException ex) {
@@ -91,13 +124,25 @@ final class Jackson2Tokenizer {
 	}
 
 	private Flux<TokenBuffer> tokenize(DataBuffer dataBuffer) {
-		byte[] bytes = new byte[dataBuffer.readableByteCount()];
-		dataBuffer.read(bytes);
-		DataBufferUtils.release(dataBuffer);
-
 		try {
-			this.inputFeeder.feedInput(bytes, 0, bytes.length);
-			return parseTokenBufferFlux();
+			int length = dataBuffer.readableByteCount();
+			ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
+			if (byteBuffer.hasArray()) {
+				// Feed the backing array as-is: the parser is done with it once all tokens are parsed
+				this.inputFeeder.feedInput(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(),
+						byteBuffer.arrayOffset() + byteBuffer.position() + length);
+			}
+			else {
+				if (this.inputArray.length < length) {
+					this.inputArray = new byte[length];
+				}
+				byteBuffer.get(this.inputArray, 0, length);
+				this.inputFeeder.feedInput(this.inputArray, 0, length);
+			}
+			this.inputOffset += length;
+			List<TokenBuffer> result = parseTokenBuffers();
+			checkInMemorySize(this.inputOffset);
+			return Flux.fromIterable(result);
 		}
 		catch (JsonProcessingException ex) {
 			return Flux.error(new DecodingException(
@@ -106,12 +151,18 @@ final class Jackson2Tokenizer {
 		catch (IOException ex) {
 			return Flux.error(ex);
 		}
+		catch (DecodingException ex) {
+			return Flux.error(ex);
+		}
+		finally {
+			DataBufferUtils.release(dataBuffer);
+		}
 	}
 
 	private Flux<TokenBuffer> endOfInput() {
 		this.inputFeeder.endOfInput();
 		try {
-			return parseTokenBufferFlux();
+			return Flux.fromIterable(parseTokenBuffers());
 		}
 		catch (JsonProcessingException ex) {
 			return Flux.error(new DecodingException(
@@ -120,9 +171,12 @@ final class Jackson2Tokenizer {
 		catch (IOException ex) {
 			return Flux.error(ex);
 		}
+		catch (DecodingException ex) {
+			return Flux.error(ex);
+		}
 	}
 
-	private Flux<TokenBuffer> parseTokenBufferFlux() throws IOException {
+	private List<TokenBuffer> parseTokenBuffers() throws IOException {
 		List<TokenBuffer> result = new ArrayList<>();
 
 		while (true) {
@@ -141,7 +195,7 @@ final class Jackson2Tokenizer {
 				processTokenArray(token, result);
 			}
 		}
-		return Flux.fromIterable(result);
+		return result;
 	}
 
 	private void updateDepth(JsonToken token) {
@@ -162,26 +216,25 @@ final class Jackson2Tokenizer {
 	}
 
 	private void processTokenNormal(JsonToken token, List<TokenBuffer> result) throws IOException {
-		this.tokenBuffer.copyCurrentEvent(this.parser);
+		copyCurrentEvent();
 
 		if ((token.isStructEnd() || token.isScalarValue()) &&
 				this.objectDepth == 0 && this.arrayDepth == 0) {
-			result.add(this.tokenBuffer);
-			this.tokenBuffer = new TokenBuffer(this.parser);
+			completeTokenBuffer(result);
 		}
 
 	}
 
 	private void processTokenArray(JsonToken token, List<TokenBuffer> result) throws IOException {
 		if (!isTopLevelArrayToken(token)) {
-			this.tokenBuffer.copyCurrentEvent(this.parser);
+			copyCurrentEvent();
 		}
 
 		if (this.objectDepth == 0 &&
 				(this.arrayDepth == 0 || this.arrayDepth == 1) &&
-				(token == JsonToken.END_OBJECT || token.isScalarValue())) {
-			result.add(this.tokenBuffer);
-			this.tokenBuffer = new TokenBuffer(this.parser);
+				(token == JsonToken.END_OBJECT || token.isScalarValue() ||
+						(token == JsonToken.END_ARRAY && this.arrayDepth == 1))) {
+			completeTokenBuffer(result);
 		}
 	}
 
@@ -190,4 +243,33 @@ final class Jackson2Tokenizer {
 				(token == JsonToken.END_ARRAY && this.arrayDepth == 0));
 	}
 
+	private void copyCurrentEvent() throws IOException {
+		if (this.tokenBufferEmpty) {
+			// Do not count any input before the value, e.g. separators between array elements
+			this.tokenBufferOffset = this.parser.getTokenLocation().getByteOffset();
+			this.tokenBufferEmpty = false;
+		}
+		this.tokenBuffer.copyCurrentEvent(this.parser);
+	}
+
+	private void completeTokenBuffer(List<TokenBuffer> result) {
+		long offset = this.parser.getCurrentLocation().getByteOffset();
+		checkInMemorySize(offset);
+		result.add(this.tokenBuffer);
+		this.tokenBuffer = new TokenBuffer(this.parser);
+		this.tokenBufferEmpty = true;
+		this.tokenBufferOffset = offset;
+	}
+
+	/**
+	 * Check the input held for the current token buffer, up to the given
+	 * offset, against the maximum in-memory size.
+	 */
+	private void checkInMemorySize(long offset) {
+		if (this.maxInMemorySize >= 0 && offset - this.tokenBufferOffset > this.maxInMemorySize) {
+			throw new DecodingException(
+					"Exceeded limit on max bytes per JSON value: " + this.maxInMemorySize);
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,6 +35,7 @@ import reactor.core.publisher.Mono;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.codec.Decoder;
 import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.CompositeDataBuffer;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.lang.Nullable;
@@ -125,8 +126,15 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 		return DataBufferUtils.join(inputStream).map(dataBuffer -> {
 					try {
 						Message.Builder builder = getMessageBuilder(elementType.toClass());
-						ByteBuffer buffer = dataBuffer.asByteBuffer();
-						builder.mergeFrom(CodedInputStream.newInstance(buffer), this.extensionRegistry);
+						CodedInputStream input;
+						if (dataBuffer instanceof CompositeDataBuffer) {
+							// Read across the components rather than copying them into a single ByteBuffer
+							input = CodedInputStream.newInstance(dataBuffer.asInputStream());
+						}
+						else {
+							input = CodedInputStream.newInstance(dataBuffer.asByteBuffer());
+						}
+						builder.mergeFrom(input, this.extensionRegistry);
 						return builder.build();
 					}
 					catch (IOException ex) {
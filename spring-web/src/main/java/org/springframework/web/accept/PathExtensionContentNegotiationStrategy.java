@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -91,7 +91,7 @@ public class PathExtensionContentNegotiationStrategy extends AbstractMappingCont
 		if (request == null) {
 			return null;
 		}
-		String path = this.urlPathHelper.getLookupPathForRequest(request);
+		String path = this.urlPathHelper.resolveAndCacheLookupPath(request);
 		String extension = UriUtils.extractFileExtension(path);
 		return (StringUtils.hasText(extension) ? extension.toLowerCase(Locale.ENGLISH) : null);
 	}
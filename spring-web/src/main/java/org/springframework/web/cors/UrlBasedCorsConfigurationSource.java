@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,18 +21,24 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 
+import org.springframework.http.server.PathContainer;
 import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.PathMatcher;
+import org.springframework.web.util.ServletRequestPathUtils;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Provide a per request {@link CorsConfiguration} instance based on a
  * collection of {@link CorsConfiguration} mapped on path patterns.
  *
  * <p>Exact path mapping URIs (such as {@code "/admin"}) are supported
- * as well as Ant-style path patterns (such as {@code "/admin/**"}).
+ * as well as Ant-style path patterns (such as {@code "/admin/**"}), or
+ * {@link PathPattern PathPatterns} if a {@link #setPatternParser PathPatternParser}
+ * is configured.
  *
  * @author Sebastien Deleuze
  * @since 4.2
@@ -45,6 +51,11 @@ public class UrlBasedCorsConfigurationSource implements CorsConfigurationSource
 
 	private UrlPathHelper urlPathHelper = new UrlPathHelper();
 
+	@Nullable
+	private PathPatternParser patternParser;
+
+	private Map<String, PathPattern> pathPatterns = Collections.emptyMap();
+
 
 	/**
 	 * Set the PathMatcher implementation to use for matching URL paths
@@ -89,6 +100,27 @@ public class UrlBasedCorsConfigurationSource implements CorsConfigurationSource
 		this.urlPathHelper = urlPathHelper;
 	}
 
+	/**
+	 * Set the {@link PathPatternParser} to parse the URL patterns with, in order
+	 * to match them as {@link PathPattern PathPatterns} against the lookup path,
+	 * rather than through the {@link #setPathMatcher PathMatcher}.
+	 * <p>By default this is not set.
+	 * @since 5.1.4
+	 */
+	public void setPatternParser(@Nullable PathPatternParser patternParser) {
+		this.patternParser = patternParser;
+		initPathPatterns();
+	}
+
+	/**
+	 * Return the configured {@link PathPatternParser}, if any.
+	 * @since 5.1.4
+	 */
+	@Nullable
+	public PathPatternParser getPatternParser() {
+		return this.patternParser;
+	}
+
 	/**
 	 * Set CORS configuration based on URL patterns.
 	 */
@@ -97,6 +129,7 @@ public class UrlBasedCorsConfigurationSource implements CorsConfigurationSource
 		if (corsConfigurations != null) {
 			this.corsConfigurations.putAll(corsConfigurations);
 		}
+		initPathPatterns();
 	}
 
 	/**
@@ -111,13 +144,35 @@ public class UrlBasedCorsConfigurationSource implements CorsConfigurationSource
 	 */
 	public void registerCorsConfiguration(String path, CorsConfiguration config) {
 		this.corsConfigurations.put(path, config);
+		initPathPatterns();
+	}
+
+	private void initPathPatterns() {
+		if (this.patternParser == null) {
+			this.pathPatterns = Collections.emptyMap();
+			return;
+		}
+		Map<String, PathPattern> pathPatterns = new LinkedHashMap<>(this.corsConfigurations.size());
+		for (String pattern : this.corsConfigurations.keySet()) {
+			pathPatterns.put(pattern, this.patternParser.parse(pattern));
+		}
+		this.pathPatterns = pathPatterns;
 	}
 
 
 	@Override
 	@Nullable
 	public CorsConfiguration getCorsConfiguration(HttpServletRequest request) {
-		String lookupPath = this.urlPathHelper.getLookupPathForRequest(request);
+		String lookupPath = this.urlPathHelper.resolveAndCacheLookupPath(request);
+		if (this.patternParser != null) {
+			PathContainer path = ServletRequestPathUtils.parseLookupPath(request, lookupPath);
+			for (Map.Entry<String, PathPattern> entry : this.pathPatterns.entrySet()) {
+				if (entry.getValue().matches(path)) {
+					return this.corsConfigurations.get(entry.getKey());
+				}
+			}
+			return null;
+		}
 		for (Map.Entry<String, CorsConfiguration> entry : this.corsConfigurations.entrySet()) {
 			if (this.pathMatcher.match(entry.getKey(), lookupPath)) {
 				return entry.getValue();
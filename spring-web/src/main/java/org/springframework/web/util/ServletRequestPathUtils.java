@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.StringUtils;
+
+/**
+ * Utility methods to parse the lookup path of a request into a
+ * {@link PathContainer}, in order to match it against
+ * {@link org.springframework.web.util.pattern.PathPattern PathPatterns}.
+ *
+ * <p>The lookup path, as determined by a {@link UrlPathHelper}, is matched
+ * as is, i.e. decoded or not depending on the {@code UrlPathHelper}, and is
+ * parsed once per request, with subsequent calls for the same request and
+ * lookup path reusing the result through a request attribute.
+ *
+ * @author agent
+ * @since 5.1.4
+ */
+public abstract class ServletRequestPathUtils {
+
+	/**
+	 * Name of the request attribute holding the parsed lookup path.
+	 */
+	public static final String PATH_ATTRIBUTE = ServletRequestPathUtils.class.getName() + ".PATH";
+
+
+	/**
+	 * Return the given lookup path parsed into a {@link PathContainer}, reusing
+	 * the result of a previous call for the same request and lookup path.
+	 * @param request the current request
+	 * @param lookupPath the lookup path of the request
+	 * @return the parsed lookup path
+	 */
+	public static PathContainer parseLookupPath(HttpServletRequest request, String lookupPath) {
+		String path = escape(lookupPath);
+		Object attribute = request.getAttribute(PATH_ATTRIBUTE);
+		if (attribute instanceof PathContainer && ((PathContainer) attribute).value().equals(path)) {
+			return (PathContainer) attribute;
+		}
+		PathContainer pathContainer = PathContainer.parsePath(path);
+		request.setAttribute(PATH_ATTRIBUTE, pathContainer);
+		return pathContainer;
+	}
+
+	/**
+	 * Return the given lookup path parsed into a {@link PathContainer}, for use
+	 * when no request is available.
+	 * @param lookupPath the lookup path
+	 * @return the parsed lookup path
+	 */
+	public static PathContainer parseLookupPath(String lookupPath) {
+		return PathContainer.parsePath(escape(lookupPath));
+	}
+
+	/**
+	 * Return the value of a lookup path parsed through this class, or of a
+	 * sub-path of it, in the same form as the lookup path.
+	 * @param path the parsed lookup path, or a sub-path of it
+	 * @return the corresponding portion of the lookup path
+	 */
+	public static String getLookupPath(PathContainer path) {
+		String value = path.value();
+		return (value.indexOf('%') != -1 ? StringUtils.replace(value, "%25", "%") : value);
+	}
+
+	/**
+	 * The lookup path may be decoded already: escape '%' so that parsing the
+	 * path yields segments to match with the same value as in the lookup path.
+	 */
+	private static String escape(String lookupPath) {
+		return (lookupPath.indexOf('%') != -1 ? StringUtils.replace(lookupPath, "%", "%25") : lookupPath);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,6 +30,7 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -47,6 +48,13 @@ import org.springframework.util.StringUtils;
  */
 public class UrlPathHelper {
 
+	/**
+	 * Name of the request attribute holding the lookup path resolved through
+	 * {@link #resolveAndCacheLookupPath(HttpServletRequest)}.
+	 * @since 5.1.4
+	 */
+	public static final String PATH_ATTRIBUTE = UrlPathHelper.class.getName() + ".PATH";
+
 	/**
 	 * Special WebSphere request attribute, indicating the original request URI.
 	 * Preferable over the standard Servlet 2.4 forward attribute on WebSphere,
@@ -175,6 +183,32 @@ public class UrlPathHelper {
 		}
 	}
 
+	/**
+	 * Return the mapping lookup path for the given request, as determined by
+	 * {@link #getLookupPathForRequest(HttpServletRequest)}, reusing the lookup
+	 * path resolved for the same request by a {@code UrlPathHelper} of the same
+	 * type and configuration.
+	 * <p>The lookup path is cached in the {@link #PATH_ATTRIBUTE} request attribute,
+	 * along with the request URI, context path and servlet path it was resolved
+	 * from, and is resolved again once any of those changes, e.g. within a
+	 * forward or include. This allows the components processing a request, such
+	 * as handler mappings, interceptors and CORS configuration sources, to decode
+	 * and clean the path only once.
+	 * @param request current HTTP request
+	 * @return the lookup path
+	 * @since 5.1.4
+	 * @see #getLookupPathForRequest(HttpServletRequest)
+	 */
+	public String resolveAndCacheLookupPath(HttpServletRequest request) {
+		Object attribute = request.getAttribute(PATH_ATTRIBUTE);
+		if (attribute instanceof ResolvedLookupPath && ((ResolvedLookupPath) attribute).isResolvedBy(this, request)) {
+			return ((ResolvedLookupPath) attribute).lookupPath;
+		}
+		String lookupPath = getLookupPathForRequest(request);
+		request.setAttribute(PATH_ATTRIBUTE, new ResolvedLookupPath(this, request, lookupPath));
+		return lookupPath;
+	}
+
 	/**
 	 * Return the path within the servlet mapping for the given request,
 	 * i.e. the part of the request's URL beyond the part that called the servlet,
@@ -605,4 +639,79 @@ public class UrlPathHelper {
 		return !flagToUse;
 	}
 
+
+	/**
+	 * Lookup path cached by {@link #resolveAndCacheLookupPath}, along with
+	 * what it was resolved from.
+	 */
+	private static final class ResolvedLookupPath {
+
+		private final Class<?> helperType;
+
+		private final boolean alwaysUseFullPath;
+
+		private final boolean urlDecode;
+
+		private final boolean removeSemicolonContent;
+
+		private final String defaultEncoding;
+
+		@Nullable
+		private final String requestUri;
+
+		@Nullable
+		private final String contextPath;
+
+		@Nullable
+		private final String servletPath;
+
+		@Nullable
+		private final String characterEncoding;
+
+		final String lookupPath;
+
+		ResolvedLookupPath(UrlPathHelper helper, HttpServletRequest request, String lookupPath) {
+			this.helperType = helper.getClass();
+			this.alwaysUseFullPath = helper.alwaysUseFullPath;
+			this.urlDecode = helper.urlDecode;
+			this.removeSemicolonContent = helper.removeSemicolonContent;
+			this.defaultEncoding = helper.defaultEncoding;
+			this.requestUri = getRawRequestUri(request);
+			this.contextPath = getRawContextPath(request);
+			this.servletPath = getRawServletPath(request);
+			this.characterEncoding = request.getCharacterEncoding();
+			this.lookupPath = lookupPath;
+		}
+
+		boolean isResolvedBy(UrlPathHelper helper, HttpServletRequest request) {
+			return (this.helperType == helper.getClass() &&
+					this.alwaysUseFullPath == helper.alwaysUseFullPath &&
+					this.urlDecode == helper.urlDecode &&
+					this.removeSemicolonContent == helper.removeSemicolonContent &&
+					this.defaultEncoding.equals(helper.defaultEncoding) &&
+					ObjectUtils.nullSafeEquals(this.requestUri, getRawRequestUri(request)) &&
+					ObjectUtils.nullSafeEquals(this.servletPath, getRawServletPath(request)) &&
+					ObjectUtils.nullSafeEquals(this.contextPath, getRawContextPath(request)) &&
+					ObjectUtils.nullSafeEquals(this.characterEncoding, request.getCharacterEncoding()));
+		}
+
+		@Nullable
+		private static String getRawRequestUri(HttpServletRequest request) {
+			String uri = (String) request.getAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE);
+			return (uri != null ? uri : request.getRequestURI());
+		}
+
+		@Nullable
+		private static String getRawContextPath(HttpServletRequest request) {
+			String contextPath = (String) request.getAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE);
+			return (contextPath != null ? contextPath : request.getContextPath());
+		}
+
+		@Nullable
+		private static String getRawServletPath(HttpServletRequest request) {
+			String servletPath = (String) request.getAttribute(WebUtils.INCLUDE_SERVLET_PATH_ATTRIBUTE);
+			return (servletPath != null ? servletPath : request.getServletPath());
+		}
+	}
+
 }
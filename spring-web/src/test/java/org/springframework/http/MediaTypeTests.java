@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -67,6 +67,19 @@ public class MediaTypeTests {
 		assertEquals("Invalid quality factor", 0.2D, mediaType.getQualityValue(), 0D);
 	}
 
+	@Test
+	public void parseMediaTypeCached() {
+		MediaType mediaType = MediaType.parseMediaType("application/json;q=0.9");
+		assertSame(mediaType, MediaType.parseMediaType("application/json;q=0.9"));
+		assertEquals(0.9D, mediaType.getQualityValue(), 0D);
+	}
+
+	@Test
+	public void parseMultipartMediaTypeNotCached() {
+		String s = "multipart/form-data;boundary=0aA";
+		assertNotSame(MediaType.parseMediaType(s), MediaType.parseMediaType(s));
+	}
+
 	@Test(expected = InvalidMediaTypeException.class)
 	public void parseMediaTypeNoSubtype() {
 		MediaType.parseMediaType("audio");
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -179,6 +179,40 @@ public class Jackson2TokenizerTests extends AbstractLeakCheckingTestCase {
 		testTokenize(asList("[1", ",2,", "3]"), asList("1", "2", "3"), true);
 	}
 
+	@Test
+	public void tokenizeArrayOfArrays() {
+		testTokenize(asList("[[1,", "2],[", "3],[]]"), asList("[1,2]", "[3]", "[]"), true);
+	}
+
+	@Test
+	public void maxInMemorySizePerArrayElement() {
+		String element = "{\"id\":1,\"name\":\"Robert\"}";
+		List<String> source = asList("[" + element, "," + element + ",", element + "]");
+
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(
+				Flux.fromIterable(source).map(this::stringBuffer), this.jsonFactory, true, element.length());
+		StepVerifier.create(tokens)
+				.expectNextCount(3)
+				.verifyComplete();
+
+		tokens = Jackson2Tokenizer.tokenize(
+				Flux.fromIterable(source).map(this::stringBuffer), this.jsonFactory, false, element.length());
+		StepVerifier.create(tokens)
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@Test
+	public void maxInMemorySizeAcrossBuffers() {
+		Flux<DataBuffer> source = Flux.just("{\"foo\": \"foofoo", "foofoofoo", "foo\"}").map(this::stringBuffer);
+
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, false, 20);
+
+		StepVerifier.create(tokens)
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
 	@Test
 	public void errorInStream() {
 		DataBuffer buffer = stringBuffer("{\"id\":1,\"name\":");
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -74,6 +74,22 @@ public class HandlerMethodArgumentResolverCompositeTests {
 		assertEquals("Didn't use the first registered resolver", 1, resolvedValue);
 	}
 
+	@Test
+	public void argumentResolversPerMethod() {
+		StubArgumentResolver intResolver = new StubArgumentResolver(Integer.class);
+		this.resolverComposite.addResolver(intResolver);
+
+		HandlerMethodArgumentResolver[] resolvers =
+				this.resolverComposite.getArgumentResolvers(new MethodParameter[] {paramInt, paramStr});
+		assertArrayEquals(new HandlerMethodArgumentResolver[] {intResolver, null}, resolvers);
+		assertSame(resolvers, this.resolverComposite.getArgumentResolvers(new MethodParameter[] {paramInt, paramStr}));
+
+		StubArgumentResolver strResolver = new StubArgumentResolver(String.class);
+		this.resolverComposite.addResolver(strResolver);
+		assertArrayEquals(new HandlerMethodArgumentResolver[] {intResolver, strResolver},
+				this.resolverComposite.getArgumentResolvers(new MethodParameter[] {paramInt, paramStr}));
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void noSuitableArgumentResolver() throws Exception {
 		this.resolverComposite.resolveArgument(paramStr, null, null, null);
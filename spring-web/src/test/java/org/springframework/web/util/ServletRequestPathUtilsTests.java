@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import org.junit.Test;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ServletRequestPathUtils}.
+ *
+ * @author agent
+ */
+public class ServletRequestPathUtilsTests {
+
+	@Test
+	public void parseLookupPathOncePerRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo/bar");
+		PathContainer path = ServletRequestPathUtils.parseLookupPath(request, "/foo/bar");
+
+		assertEquals("/foo/bar", path.value());
+		assertSame(path, request.getAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE));
+		assertSame(path, ServletRequestPathUtils.parseLookupPath(request, "/foo/bar"));
+
+		PathContainer other = ServletRequestPathUtils.parseLookupPath(request, "/bar");
+		assertEquals("/bar", other.value());
+		assertSame(other, request.getAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE));
+	}
+
+	@Test
+	public void parseDecodedLookupPath() {
+		PathContainer path = ServletRequestPathUtils.parseLookupPath("/foo/100%/b%20r");
+		PathPattern pattern = new PathPatternParser().parse("/foo/{percentage}/{name}");
+
+		PathPattern.PathMatchInfo info = pattern.matchAndExtract(path);
+		assertNotNull(info);
+		assertEquals("100%", info.getUriVariables().get("percentage"));
+		assertEquals("b%20r", info.getUriVariables().get("name"));
+		assertEquals("/foo/100%/b%20r", ServletRequestPathUtils.getLookupPath(path));
+	}
+
+	@Test
+	public void getLookupPathWithinPattern() {
+		PathContainer path = ServletRequestPathUtils.parseLookupPath("/static/100%.css");
+		PathPattern pattern = new PathPatternParser().parse("/static/**");
+
+		assertEquals("100%.css", ServletRequestPathUtils.getLookupPath(pattern.extractPathWithinPattern(path)));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -166,6 +166,39 @@ public class UrlPathHelperTests {
 		assertEquals("/welcome.html;c=d", helper.getLookupPathForRequest(request));
 	}
 
+	@Test
+	public void resolveAndCacheLookupPath() {
+		request.setContextPath("/petclinic");
+		request.setServletPath("/main");
+		request.setRequestURI("/petclinic/main/welcome.html");
+
+		String lookupPath = helper.resolveAndCacheLookupPath(request);
+		assertEquals("/welcome.html", lookupPath);
+		assertNotNull(request.getAttribute(UrlPathHelper.PATH_ATTRIBUTE));
+		assertSame(lookupPath, helper.resolveAndCacheLookupPath(request));
+		assertSame(lookupPath, new UrlPathHelper().resolveAndCacheLookupPath(request));
+
+		request.setRequestURI("/petclinic/main/owners.html");
+		assertEquals("/owners.html", helper.resolveAndCacheLookupPath(request));
+
+		UrlPathHelper fullPathHelper = new UrlPathHelper();
+		fullPathHelper.setAlwaysUseFullPath(true);
+		assertEquals("/main/owners.html", fullPathHelper.resolveAndCacheLookupPath(request));
+		assertEquals("/owners.html", helper.resolveAndCacheLookupPath(request));
+	}
+
+	@Test
+	public void resolveAndCacheLookupPathWithinInclude() {
+		request.setRequestURI("/welcome.html");
+		assertEquals("/welcome.html", helper.resolveAndCacheLookupPath(request));
+
+		request.setAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE, "/included.html");
+		assertEquals("/included.html", helper.resolveAndCacheLookupPath(request));
+
+		request.removeAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE);
+		assertEquals("/welcome.html", helper.resolveAndCacheLookupPath(request));
+	}
+
 
 	//
 	// suite of tests root requests for default servlets (SRV 11.2) on Websphere vs Tomcat and other containers
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import java.util.function.Predicate;
 import org.springframework.lang.Nullable;
 import org.springframework.util.PathMatcher;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Helps with configuring HandlerMappings path matching options such as trailing
@@ -57,6 +58,9 @@ public class PathMatchConfigurer {
 	@Nullable
 	private PathMatcher pathMatcher;
 
+	@Nullable
+	private PathPatternParser patternParser;
+
 	@Nullable
 	private Map<String, Predicate<Class<?>>> pathPrefixes;
 
@@ -117,6 +121,26 @@ public class PathMatchConfigurer {
 		return this;
 	}
 
+	/**
+	 * Set the PathPatternParser to parse URL patterns with, matching them as
+	 * {@link org.springframework.web.util.pattern.PathPattern PathPatterns}
+	 * rather than through the {@link #setPathMatcher PathMatcher}.
+	 * <p>Suffix pattern matching does not apply to parsed patterns, and
+	 * trailing slash matching is configured on the parser itself.
+	 * <p><strong>Note:</strong> unlike with the {@code AntPathMatcher}, a
+	 * <code>&#42;&#42;</code> matches multiple path segments only at the end of a
+	 * pattern. Anywhere else it matches a single segment, e.g.
+	 * <code>/&#42;&#42;/&#42;.css</code> matches "/a/b.css" but neither "/a/b/c.css"
+	 * nor "/b.css".
+	 * <p>The patterns of mapped interceptors are parsed as well, when the handler
+	 * mappings are initialized, so that invalid patterns are rejected at startup.
+	 * @since 5.1.4
+	 */
+	public PathMatchConfigurer setPatternParser(PathPatternParser patternParser) {
+		this.patternParser = patternParser;
+		return this;
+	}
+
 	/**
 	 * Configure a path prefix to apply to matching controller methods.
 	 * <p>Prefixes are used to enrich the mappings of every {@code @RequestMapping}
@@ -162,6 +186,15 @@ public class PathMatchConfigurer {
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Return the PathPatternParser to parse URL patterns with, if any.
+	 * @since 5.1.4
+	 */
+	@Nullable
+	public PathPatternParser getPatternParser() {
+		return this.patternParser;
+	}
+
 	@Nullable
 	protected Map<String, Predicate<Class<?>>> getPathPrefixes() {
 		return this.pathPrefixes;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,7 @@ import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.core.Ordered;
+import org.springframework.http.server.PathContainer;
 import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
@@ -45,7 +46,9 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.servlet.HandlerExecutionChain;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * HandlerMapping的抽象实现
@@ -60,6 +63,9 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
+	@Nullable
+	private PathPatternParser patternParser;
+
 	private final List<Object> interceptors = new ArrayList<>();
 
 	private final List<HandlerInterceptor> adaptedInterceptors = new ArrayList<>();
@@ -134,6 +140,35 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Set the {@link PathPatternParser} to parse URL patterns with, in order to
+	 * match them as precompiled {@link org.springframework.web.util.pattern.PathPattern
+	 * PathPatterns} against the lookup path, parsed once per request, rather than
+	 * through the {@link #setPathMatcher PathMatcher}.
+	 * <p>Applies to the mappings of subclasses which support it, as well as to
+	 * {@link MappedInterceptor MappedInterceptors} without a PathMatcher of their
+	 * own and to the {@link #setCorsConfigurations global CORS configuration}.
+	 * Needs to be set before the handler mapping is initialized.
+	 * <p>By default this is not set.
+	 * @since 5.1.4
+	 * @see ServletRequestPathUtils#parseLookupPath(HttpServletRequest, String)
+	 */
+	public void setPatternParser(@Nullable PathPatternParser patternParser) {
+		this.patternParser = patternParser;
+		if (this.corsConfigurationSource instanceof UrlBasedCorsConfigurationSource) {
+			((UrlBasedCorsConfigurationSource) this.corsConfigurationSource).setPatternParser(patternParser);
+		}
+	}
+
+	/**
+	 * Return the configured {@link PathPatternParser}, if any.
+	 * @since 5.1.4
+	 */
+	@Nullable
+	public PathPatternParser getPatternParser() {
+		return this.patternParser;
+	}
+
 
 	public void setInterceptors(Object... interceptors) {
 		this.interceptors.addAll(Arrays.asList(interceptors));
@@ -146,6 +181,7 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 		source.setCorsConfigurations(corsConfigurations);
 		source.setPathMatcher(this.pathMatcher);
 		source.setUrlPathHelper(this.urlPathHelper);
+		source.setPatternParser(this.patternParser);
 		this.corsConfigurationSource = source;
 	}
 
@@ -205,6 +241,7 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 		// 将interceptors属性里所包含的
 		// 对象按类型添加到mappedInterceptors或者adaptedInterceptors
 		initInterceptors();
+		parseMappedInterceptorPatterns();
 	}
 
 
@@ -231,6 +268,27 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 	}
 
 
+	/**
+	 * Parse the path patterns of the {@link MappedInterceptor MappedInterceptors}
+	 * with the configured {@link #setPatternParser PathPatternParser}, if any, so
+	 * that invalid patterns fail the initialization of this handler mapping.
+	 */
+	private void parseMappedInterceptorPatterns() {
+		PathPatternParser patternParser = this.patternParser;
+		if (patternParser == null) {
+			return;
+		}
+		for (HandlerInterceptor interceptor : this.adaptedInterceptors) {
+			if (interceptor instanceof MappedInterceptor) {
+				MappedInterceptor mappedInterceptor = (MappedInterceptor) interceptor;
+				if (mappedInterceptor.getPathMatcher() == null) {
+					mappedInterceptor.parsePatterns(patternParser);
+				}
+			}
+		}
+	}
+
+
 	protected HandlerInterceptor adaptInterceptor(Object interceptor) {
 		if (interceptor instanceof HandlerInterceptor) {
 			return (HandlerInterceptor) interceptor;
@@ -310,11 +368,22 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 		HandlerExecutionChain chain = (handler instanceof HandlerExecutionChain ?
 				(HandlerExecutionChain) handler : new HandlerExecutionChain(handler));
 
-		String lookupPath = this.urlPathHelper.getLookupPathForRequest(request);
+		String lookupPath = this.urlPathHelper.resolveAndCacheLookupPath(request);
+		PathPatternParser patternParser = this.patternParser;
+		PathContainer path = null;
 		for (HandlerInterceptor interceptor : this.adaptedInterceptors) {
 			if (interceptor instanceof MappedInterceptor) {
 				MappedInterceptor mappedInterceptor = (MappedInterceptor) interceptor;
-				if (mappedInterceptor.matches(lookupPath, this.pathMatcher)) {
+				boolean matches;
+				if (patternParser != null && mappedInterceptor.getPathMatcher() == null) {
+					if (path == null) {
+						path = ServletRequestPathUtils.parseLookupPath(request, lookupPath);
+					}
+					matches = mappedInterceptor.matches(path, patternParser);
+				} else {
+					matches = mappedInterceptor.matches(lookupPath, this.pathMatcher);
+				}
+				if (matches) {
 					chain.addInterceptor(mappedInterceptor.getInterceptor());
 				}
 			} else {
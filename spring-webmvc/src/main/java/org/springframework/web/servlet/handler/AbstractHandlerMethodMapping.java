@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,6 +39,7 @@ import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
 import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
@@ -68,6 +69,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 	private boolean detectHandlerMethodsInAncestorContexts = false;
 
+	private boolean usePatternIndex = true;
+
 
 	/**
 	 * Mapping命名策略
@@ -95,6 +98,30 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		this.detectHandlerMethodsInAncestorContexts = detectHandlerMethodsInAncestorContexts;
 	}
 
+	/**
+	 * Whether to narrow down the mappings to match a request against through
+	 * an index of the segments of their URL patterns, when there is no direct
+	 * URL match, rather than matching the request against every mapping.
+	 * <p>Default is "true". The index is only used with a
+	 * {@link #setPatternParser PathPatternParser} or an {@link AntPathMatcher}
+	 * with the default "/" path separator, and relies on
+	 * {@link #getMappingPathPatterns} returning the patterns a mapping is matched
+	 * by, or none if a mapping may match any path. Switch this flag off if the
+	 * mappings of a subclass are matched in another way.
+	 * @since 5.1.4
+	 */
+	public void setUsePatternIndex(boolean usePatternIndex) {
+		this.usePatternIndex = usePatternIndex;
+	}
+
+	/**
+	 * Whether the mappings are narrowed down through an index of their URL patterns.
+	 * @since 5.1.4
+	 */
+	public boolean isUsePatternIndex() {
+		return this.usePatternIndex;
+	}
+
 	/**
 	 * Configure the naming strategy to use for assigning a default name to every
 	 * mapped handler method.
@@ -373,7 +400,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	@Override
 	protected HandlerMethod getHandlerInternal(HttpServletRequest request) throws Exception {
 		// <1> 获得请求的路径
-		String lookupPath = getUrlPathHelper().getLookupPathForRequest(request);
+		String lookupPath = getUrlPathHelper().resolveAndCacheLookupPath(request);
 		// <2> 获得读锁
 		this.mappingRegistry.acquireReadLock();
 		try {
@@ -407,10 +434,10 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		if (directPathMatches != null) {
 			addMatchingMappings(directPathMatches, matches, request);
 		}
-		// <1.2> 其次，扫描注册表的 Mapping 们，进行匹配
+		// <1.2> 其次，扫描注册表中可能匹配该路径的 Mapping 们，进行匹配
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...
-			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			// No choice but to go through all mappings that may match the path...
+			addMatchingMappings(this.mappingRegistry.getMappingsByPath(lookupPath), matches, request);
 		}
 		// <2> 如果匹配到，则获取最佳匹配的 Match 对象的 handlerMethod 属性
 		if (!matches.isEmpty()) {
@@ -592,6 +619,16 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 		//TODO：
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
+		/**
+		 * URL 路径模式的索引
+		 * <p>
+		 * 按路径的各个片段，筛选可能匹配的 Mapping
+		 */
+		private final PathSegmentTrie<T> patternIndex = new PathSegmentTrie<>();
+		/**
+		 * 注册的顺序号
+		 */
+		private int registrationCount;
 		/**
 		 * 读写锁
 		 */
@@ -616,6 +653,27 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.urlLookup.get(urlPath);
 		}
 
+		/**
+		 * Return the mappings which may match the given lookup path, in the order
+		 * of registration. Not thread-safe.
+		 *
+		 * @see #acquireReadLock()
+		 * @see #setUsePatternIndex(boolean)
+		 */
+		public Collection<T> getMappingsByPath(String lookupPath) {
+			if (isUsePatternIndex() && (getPatternParser() != null || getPathMatcher() instanceof AntPathMatcher)) {
+				Set<T> candidates = this.patternIndex.getCandidates(lookupPath);
+				if (candidates != null) {
+					List<T> result = new ArrayList<>(candidates);
+					if (result.size() > 1) {
+						result.sort(Comparator.comparingInt(mapping -> this.registry.get(mapping).getOrder()));
+					}
+					return result;
+				}
+			}
+			return this.mappingLookup.keySet();
+		}
+
 		/**
 		 * Return handler methods by mapping name. Thread-safe for concurrent use.
 		 */
@@ -681,10 +739,14 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				if (corsConfig != null) {
 					this.corsLookup.put(handlerMethod, corsConfig);
 				}
-				// <6> 创建 MappingRegistration 对象，并 mapping + MappingRegistration 添加到 registry 中
-				this.registry.put(mapping, new MappingRegistration<>(mapping, handlerMethod, directUrls, name));
+				// <6> 添加到 patternIndex 中，并保留已注册 mapping 的顺序号
+				addToPatternIndex(mapping);
+				MappingRegistration<T> existing = this.registry.get(mapping);
+				int order = (existing != null ? existing.getOrder() : this.registrationCount++);
+				// <7> 创建 MappingRegistration 对象，并 mapping + MappingRegistration 添加到 registry 中
+				this.registry.put(mapping, new MappingRegistration<>(mapping, handlerMethod, directUrls, name, order));
 			} finally {
-				// <7> 释放写锁
+				// <8> 释放写锁
 				this.readWriteLock.writeLock().unlock();
 			}
 		}
@@ -715,6 +777,26 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return urls;
 		}
 
+		private void addToPatternIndex(T mapping) {
+			Set<String> patterns = getMappingPathPatterns(mapping);
+			if (patterns.isEmpty()) {
+				this.patternIndex.addForAnyPath(mapping);
+			}
+			for (String pattern : patterns) {
+				this.patternIndex.add(pattern, mapping);
+			}
+		}
+
+		private void removeFromPatternIndex(T mapping) {
+			Set<String> patterns = getMappingPathPatterns(mapping);
+			if (patterns.isEmpty()) {
+				this.patternIndex.removeForAnyPath(mapping);
+			}
+			for (String pattern : patterns) {
+				this.patternIndex.remove(pattern, mapping);
+			}
+		}
+
 		// 获得 Mapping 的名字，对应的 HandlerMethod 数组
 		private void addMappingName(String name, HandlerMethod handlerMethod) {
 			List<HandlerMethod> oldList = this.nameLookup.get(name);
@@ -758,6 +840,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 						}
 					}
 				}
+				// 从 patternIndex 移除
+				removeFromPatternIndex(definition.getMapping());
 				// 从 nameLookup 移除
 				removeMappingName(definition);
 				// 从 corsLookup 中移除
@@ -815,9 +899,13 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		 */
 		@Nullable
 		private final String mappingName;
+		/**
+		 * 注册的顺序号
+		 */
+		private final int order;
 
 		public MappingRegistration(T mapping, HandlerMethod handlerMethod,
-								   @Nullable List<String> directUrls, @Nullable String mappingName) {
+								   @Nullable List<String> directUrls, @Nullable String mappingName, int order) {
 
 			Assert.notNull(mapping, "Mapping must not be null");
 			Assert.notNull(handlerMethod, "HandlerMethod must not be null");
@@ -825,6 +913,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			this.handlerMethod = handlerMethod;
 			this.directUrls = (directUrls != null ? directUrls : Collections.emptyList());
 			this.mappingName = mappingName;
+			this.order = order;
 		}
 
 		public T getMapping() {
@@ -843,6 +932,10 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		public String getMappingName() {
 			return this.mappingName;
 		}
+
+		public int getOrder() {
+			return this.order;
+		}
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,10 +27,14 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.server.PathContainer;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Abstract base class for URL-mapped {@link org.springframework.web.servlet.HandlerMapping}
@@ -47,6 +51,10 @@ import org.springframework.web.servlet.HandlerExecutionChain;
  * current request path. The most exact match is defined as the longest
  * path pattern that matches the current request path.
  *
+ * <p>If a {@link #setPatternParser PathPatternParser} is configured, the
+ * registered path patterns are parsed into {@link PathPattern PathPatterns}
+ * instead, and matched against the parsed request path.
+ *
  * @author Juergen Hoeller
  * @author Arjen Poutsma
  * @since 16.04.2003
@@ -62,6 +70,8 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 	//保存url与handler
 	private final Map<String, Object> handlerMap = new LinkedHashMap<>();
 
+	private final Map<PathPattern, Object> pathPatternHandlerMap = new LinkedHashMap<>();
+
 
 	/**
 	 * Set the root handler for this handler mapping, that is,
@@ -111,6 +121,20 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 		this.lazyInitHandlers = lazyInitHandlers;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>Handlers registered before are mapped to patterns parsed with the given parser.
+	 */
+	@Override
+	public void setPatternParser(@Nullable PathPatternParser patternParser) {
+		super.setPatternParser(patternParser);
+		this.pathPatternHandlerMap.clear();
+		if (patternParser != null) {
+			this.handlerMap.forEach((urlPath, handler) ->
+					this.pathPatternHandlerMap.put(patternParser.parse(urlPath), handler));
+		}
+	}
+
 	/**
 	 * 着重需要看的方法
 	 * 获取handler的入口方法
@@ -119,7 +143,7 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 	@Override
 	@Nullable
 	protected Object getHandlerInternal(HttpServletRequest request) throws Exception {
-		String lookupPath = getUrlPathHelper().getLookupPathForRequest(request);
+		String lookupPath = getUrlPathHelper().resolveAndCacheLookupPath(request);
 		// 从map中查找Handler
 		Object handler = lookupHandler(lookupPath, request);
 		// 如果lookupHandler()没能成功返回一个Handler的话，那么就走下面的if语句
@@ -168,6 +192,9 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 		}
 
 		// 2.Pattern匹配，比如使用带*号的模式与url进行匹配(/art/1/*,或者@Pathvariable)
+		if (getPatternParser() != null) {
+			return lookupPathPatternHandler(urlPath, request);
+		}
 		List<String> matchingPatterns = new ArrayList<>();
 		for (String registeredPattern : this.handlerMap.keySet()) {
 			if (getPathMatcher().match(registeredPattern, urlPath)) {
@@ -229,6 +256,45 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 		return null;
 	}
 
+	/**
+	 * Look up a handler for the given URL path through the registered patterns
+	 * parsed into {@link PathPattern PathPatterns}.
+	 */
+	@Nullable
+	private Object lookupPathPatternHandler(String urlPath, HttpServletRequest request) throws Exception {
+		PathContainer path = ServletRequestPathUtils.parseLookupPath(request, urlPath);
+		List<PathPattern> matchingPatterns = new ArrayList<>();
+		for (PathPattern pattern : this.pathPatternHandlerMap.keySet()) {
+			if (pattern.matches(path)) {
+				matchingPatterns.add(pattern);
+			}
+		}
+		if (matchingPatterns.isEmpty()) {
+			return null;
+		}
+		if (matchingPatterns.size() > 1) {
+			matchingPatterns.sort(PathPattern.SPECIFICITY_COMPARATOR);
+			if (logger.isTraceEnabled()) {
+				logger.trace("Matching patterns " + matchingPatterns);
+			}
+		}
+		PathPattern bestMatch = matchingPatterns.get(0);
+		Object handler = this.pathPatternHandlerMap.get(bestMatch);
+		if (handler instanceof String) {
+			String handlerName = (String) handler;
+			handler = obtainApplicationContext().getBean(handlerName);
+		}
+		validateHandler(handler, request);
+		String pathWithinMapping = ServletRequestPathUtils.getLookupPath(bestMatch.extractPathWithinPattern(path));
+		PathPattern.PathMatchInfo matchInfo = bestMatch.matchAndExtract(path);
+		Map<String, String> uriTemplateVariables = (matchInfo != null ?
+				getUrlPathHelper().decodePathVariables(request, matchInfo.getUriVariables()) : null);
+		if (logger.isTraceEnabled() && !CollectionUtils.isEmpty(uriTemplateVariables)) {
+			logger.trace("URI variables " + uriTemplateVariables);
+		}
+		return buildPathExposingHandler(handler, bestMatch.getPatternString(), pathWithinMapping, uriTemplateVariables);
+	}
+
 	/**
 	 * Validate the given handler against the current request.
 	 * <p>The default implementation is empty. Can be overridden in subclasses,
@@ -282,7 +348,7 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 	@Override
 	@Nullable
 	public RequestMatchResult match(HttpServletRequest request, String pattern) {
-		String lookupPath = getUrlPathHelper().getLookupPathForRequest(request);
+		String lookupPath = getUrlPathHelper().resolveAndCacheLookupPath(request);
 		if (getPathMatcher().match(pattern, lookupPath)) {
 			return new RequestMatchResult(pattern, lookupPath, getPathMatcher());
 		} else if (useTrailingSlashMatch()) {
@@ -344,6 +410,10 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 				setDefaultHandler(resolvedHandler);
 			} else {
 				this.handlerMap.put(urlPath, resolvedHandler);
+				PathPatternParser patternParser = getPatternParser();
+				if (patternParser != null) {
+					this.pathPatternHandlerMap.put(patternParser.parse(urlPath), resolvedHandler);
+				}
 				if (logger.isTraceEnabled()) {
 					logger.trace("Mapped [" + urlPath + "] onto " + getHandlerDescription(handler));
 				}
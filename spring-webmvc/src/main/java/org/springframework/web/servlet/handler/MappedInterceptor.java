@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,12 +19,15 @@ package org.springframework.web.servlet.handler;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.http.server.PathContainer;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.PathMatcher;
 import org.springframework.web.context.request.WebRequestInterceptor;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Contains and delegates calls to a {@link HandlerInterceptor} along with
@@ -55,6 +58,9 @@ public final class MappedInterceptor implements HandlerInterceptor {
 	@Nullable
 	private PathMatcher pathMatcher;
 
+	@Nullable
+	private volatile ParsedPatterns parsedPatterns;
+
 
 	/**
 	 * Create a new MappedInterceptor instance.
@@ -163,6 +169,52 @@ public final class MappedInterceptor implements HandlerInterceptor {
 		return false;
 	}
 
+	/**
+	 * Parse the include and exclude patterns into {@link PathPattern PathPatterns}
+	 * with the given parser, for {@link #matches(PathContainer, PathPatternParser)}.
+	 * <p>Handler mappings call this when initializing their interceptors, so that
+	 * invalid patterns are rejected at startup rather than on the first request.
+	 * @param patternParser the parser to parse the patterns with
+	 * @throws org.springframework.web.util.pattern.PatternParseException
+	 * if one of the patterns is invalid
+	 * @since 5.1.4
+	 */
+	public void parsePatterns(PathPatternParser patternParser) {
+		this.parsedPatterns = new ParsedPatterns(patternParser, this.includePatterns, this.excludePatterns);
+	}
+
+	/**
+	 * Determine a match for the given parsed lookup path, matching it against
+	 * the include and exclude patterns parsed into {@link PathPattern PathPatterns}.
+	 * <p>The patterns are expected to have been {@linkplain #parsePatterns parsed}
+	 * with the given parser up front; if not, they are parsed on this call.
+	 * @param lookupPath the current request path
+	 * @param patternParser the parser to parse the patterns with
+	 * @return {@code true} if the interceptor applies to the given request path
+	 * @since 5.1.4
+	 */
+	public boolean matches(PathContainer lookupPath, PathPatternParser patternParser) {
+		ParsedPatterns parsedPatterns = this.parsedPatterns;
+		if (parsedPatterns == null || parsedPatterns.patternParser != patternParser) {
+			parsePatterns(patternParser);
+			parsedPatterns = this.parsedPatterns;
+		}
+		for (PathPattern pattern : parsedPatterns.excludePatterns) {
+			if (pattern.matches(lookupPath)) {
+				return false;
+			}
+		}
+		if (parsedPatterns.includePatterns.length == 0) {
+			return true;
+		}
+		for (PathPattern pattern : parsedPatterns.includePatterns) {
+			if (pattern.matches(lookupPath)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
 			throws Exception {
@@ -184,4 +236,36 @@ public final class MappedInterceptor implements HandlerInterceptor {
 		this.interceptor.afterCompletion(request, response, handler, ex);
 	}
 
+
+	/**
+	 * The include and exclude patterns, parsed with a given parser.
+	 */
+	private static final class ParsedPatterns {
+
+		final PathPatternParser patternParser;
+
+		final PathPattern[] includePatterns;
+
+		final PathPattern[] excludePatterns;
+
+		ParsedPatterns(PathPatternParser patternParser,
+				@Nullable String[] includePatterns, @Nullable String[] excludePatterns) {
+
+			this.patternParser = patternParser;
+			this.includePatterns = parse(patternParser, includePatterns);
+			this.excludePatterns = parse(patternParser, excludePatterns);
+		}
+
+		private static PathPattern[] parse(PathPatternParser patternParser, @Nullable String[] patterns) {
+			if (ObjectUtils.isEmpty(patterns)) {
+				return new PathPattern[0];
+			}
+			PathPattern[] result = new PathPattern[patterns.length];
+			for (int i = 0; i < patterns.length; i++) {
+				result[i] = patternParser.parse(patterns[i]);
+			}
+			return result;
+		}
+	}
+
 }
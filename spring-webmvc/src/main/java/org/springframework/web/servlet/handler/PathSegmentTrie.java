@@ -0,0 +1,249 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Index of mappings by the "/"-separated segments of their URL patterns,
+ * narrowing down the mappings that may match a lookup path in time proportional
+ * to the length of the path rather than to the number of mappings.
+ *
+ * <p>Literal segments are indexed as they are, segments with wildcards or URI
+ * variables match any single segment, and a "**" or "{*var}" segment matches
+ * the rest of the path. Literal segments are compared ignoring case and
+ * surrounding whitespace, and the last segment of a lookup path also matches
+ * without its file extension, so the candidates include every mapping which an
+ * {@link org.springframework.util.AntPathMatcher} could match, regardless of
+ * its case sensitivity and token trimming or of suffix pattern and trailing
+ * slash matching. Segments are also compared without any ";"-separated matrix
+ * variables, as a {@link org.springframework.web.util.pattern.PathPattern}
+ * matches them. Candidates still need to be matched against the request.
+ *
+ * <p>Not thread-safe.
+ *
+ * @author agent
+ * @since 5.1.4
+ * @param <T> the mapping type
+ */
+final class PathSegmentTrie<T> {
+
+	private static final String PATH_SEPARATOR = "/";
+
+
+	private final Node<T> root = new Node<>();
+
+
+	/**
+	 * Add a mapping for the given URL pattern.
+	 */
+	public void add(String pattern, T mapping) {
+		Node<T> node = this.root;
+		for (String key : getKeys(pattern)) {
+			if (key.isEmpty() || isMultiSegmentWildcard(key)) {
+				node.addPrefixMapping(mapping);
+				return;
+			}
+			node = node.getOrCreateChild(isSingleSegmentWildcard(key) ? null : key);
+		}
+		node.addMapping(mapping);
+	}
+
+	/**
+	 * Add a mapping which is a candidate for any lookup path, e.g. one that
+	 * does not expose its URL patterns.
+	 */
+	public void addForAnyPath(T mapping) {
+		this.root.addPrefixMapping(mapping);
+	}
+
+	/**
+	 * Remove a mapping previously added for the given URL pattern.
+	 */
+	public void remove(String pattern, T mapping) {
+		remove(this.root, getKeys(pattern), 0, mapping);
+	}
+
+	/**
+	 * Remove a mapping previously added for any lookup path.
+	 */
+	public void removeForAnyPath(T mapping) {
+		this.root.prefixMappings.remove(mapping);
+	}
+
+	/**
+	 * Return the mappings that may match the given lookup path, or {@code null}
+	 * if the path cannot be narrowed down through this index.
+	 */
+	@Nullable
+	public Set<T> getCandidates(String lookupPath) {
+		String[] keys = getKeys(lookupPath);
+		for (String key : keys) {
+			if (key.isEmpty()) {
+				// Blank segment which may be dropped through token trimming...
+				return null;
+			}
+		}
+		Set<T> candidates = new HashSet<>();
+		collect(this.root, keys, 0, lookupPath.endsWith(PATH_SEPARATOR), candidates);
+		return candidates;
+	}
+
+	private void collect(Node<T> node, String[] keys, int index, boolean trailingSlash, Set<T> candidates) {
+		candidates.addAll(node.prefixMappings);
+		if (index == keys.length) {
+			candidates.addAll(node.mappings);
+			if (trailingSlash && node.wildcardChild != null) {
+				// A trailing "*" segment also matches the empty segment after a trailing slash
+				candidates.addAll(node.wildcardChild.mappings);
+			}
+			return;
+		}
+		String key = keys[index];
+		Node<T> child = node.getChild(key);
+		if (child != null) {
+			collect(child, keys, index + 1, trailingSlash, candidates);
+		}
+		if (index == keys.length - 1) {
+			// Suffix pattern match: the last segment with its extension(s) stripped
+			int dotIndex = key.indexOf('.');
+			while (dotIndex != -1) {
+				child = node.getChild(key.substring(0, dotIndex).trim());
+				if (child != null) {
+					collect(child, keys, index + 1, trailingSlash, candidates);
+				}
+				dotIndex = key.indexOf('.', dotIndex + 1);
+			}
+		}
+		if (node.wildcardChild != null) {
+			collect(node.wildcardChild, keys, index + 1, trailingSlash, candidates);
+		}
+	}
+
+	private boolean remove(Node<T> node, String[] keys, int index, T mapping) {
+		if (index == keys.length) {
+			node.mappings.remove(mapping);
+		}
+		else {
+			String key = keys[index];
+			if (key.isEmpty() || isMultiSegmentWildcard(key)) {
+				node.prefixMappings.remove(mapping);
+			}
+			else {
+				Node<T> child = (isSingleSegmentWildcard(key) ? node.wildcardChild : node.getChild(key));
+				if (child != null && remove(child, keys, index + 1, mapping)) {
+					node.removeChild(isSingleSegmentWildcard(key) ? null : key);
+				}
+			}
+		}
+		return node.isEmpty();
+	}
+
+	private static String[] getKeys(String path) {
+		String[] keys = StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+		for (int i = 0; i < keys.length; i++) {
+			String key = keys[i];
+			int semicolonIndex = key.indexOf(';');
+			if (semicolonIndex != -1) {
+				key = key.substring(0, semicolonIndex);
+			}
+			keys[i] = key.trim().toLowerCase(Locale.ROOT);
+		}
+		return keys;
+	}
+
+	private static boolean isMultiSegmentWildcard(String key) {
+		return (key.equals("**") || key.startsWith("{*"));
+	}
+
+	private static boolean isSingleSegmentWildcard(String key) {
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if (c == '*' || c == '?' || c == '{' || c == '}') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * A node of the trie, reached through the segments of a path.
+	 */
+	private static final class Node<T> {
+
+		private final Map<String, Node<T>> literalChildren = new HashMap<>(4);
+
+		@Nullable
+		private Node<T> wildcardChild;
+
+		private final List<T> mappings = new ArrayList<>(1);
+
+		private final List<T> prefixMappings = new ArrayList<>(1);
+
+		@Nullable
+		Node<T> getChild(String key) {
+			return this.literalChildren.get(key);
+		}
+
+		Node<T> getOrCreateChild(@Nullable String key) {
+			if (key == null) {
+				if (this.wildcardChild == null) {
+					this.wildcardChild = new Node<>();
+				}
+				return this.wildcardChild;
+			}
+			return this.literalChildren.computeIfAbsent(key, k -> new Node<>());
+		}
+
+		void removeChild(@Nullable String key) {
+			if (key == null) {
+				this.wildcardChild = null;
+			}
+			else {
+				this.literalChildren.remove(key);
+			}
+		}
+
+		void addMapping(T mapping) {
+			if (!this.mappings.contains(mapping)) {
+				this.mappings.add(mapping);
+			}
+		}
+
+		void addPrefixMapping(T mapping) {
+			if (!this.prefixMappings.contains(mapping)) {
+				this.prefixMappings.add(mapping);
+			}
+		}
+
+		boolean isEmpty() {
+			return (this.mappings.isEmpty() && this.prefixMappings.isEmpty() &&
+					this.literalChildren.isEmpty() && this.wildcardChild == null);
+		}
+	}
+
+}
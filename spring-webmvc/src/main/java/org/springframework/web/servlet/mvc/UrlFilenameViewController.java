@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -110,7 +110,7 @@ public class UrlFilenameViewController extends AbstractUrlViewController {
 	protected String extractOperableUrl(HttpServletRequest request) {
 		String urlPath = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
 		if (!StringUtils.hasText(urlPath)) {
-			urlPath = getUrlPathHelper().getLookupPathForRequest(request);
+			urlPath = getUrlPathHelper().resolveAndCacheLookupPath(request);
 		}
 		return urlPath;
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,21 +22,31 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.servlet.http.HttpServletRequest;
 
+import org.springframework.http.server.PathContainer;
 import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.PathMatcher;
 import org.springframework.util.StringUtils;
+import org.springframework.web.util.ServletRequestPathUtils;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * A logical disjunction (' || ') request condition that matches a request
  * against a set of URL path patterns.
  *
+ * <p>The patterns are matched through a {@link PathMatcher} by default, or
+ * parsed into {@link PathPattern PathPatterns} if created with a
+ * {@link PathPatternParser}.
+ *
  * @author Rossen Stoyanchev
  * @since 3.1
  */
@@ -55,6 +65,12 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 
 	private final List<String> fileExtensions = new ArrayList<>();
 
+	@Nullable
+	private final PathPatternParser patternParser;
+
+	@Nullable
+	private final Map<String, PathPattern> pathPatterns;
+
 
 	/**
 	 * Creates a new instance with the given URL patterns.
@@ -62,7 +78,7 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 * @param patterns 0 or more URL patterns; if 0 the condition will match to every request.
 	 */
 	public PatternsRequestCondition(String... patterns) {
-		this(Arrays.asList(patterns), null, null, true, true, null);
+		this(Arrays.asList(patterns), null, null, null, true, true, null);
 	}
 
 	/**
@@ -77,7 +93,7 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	public PatternsRequestCondition(String[] patterns, @Nullable UrlPathHelper urlPathHelper,
 			@Nullable PathMatcher pathMatcher, boolean useSuffixPatternMatch, boolean useTrailingSlashMatch) {
 
-		this(Arrays.asList(patterns), urlPathHelper, pathMatcher, useSuffixPatternMatch, useTrailingSlashMatch, null);
+		this(Arrays.asList(patterns), urlPathHelper, pathMatcher, null, useSuffixPatternMatch, useTrailingSlashMatch, null);
 	}
 
 	/**
@@ -94,22 +110,43 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 			@Nullable PathMatcher pathMatcher, boolean useSuffixPatternMatch,
 			boolean useTrailingSlashMatch, @Nullable List<String> fileExtensions) {
 
-		this(Arrays.asList(patterns), urlPathHelper, pathMatcher, useSuffixPatternMatch,
+		this(Arrays.asList(patterns), urlPathHelper, pathMatcher, null, useSuffixPatternMatch,
 				useTrailingSlashMatch, fileExtensions);
 	}
 
+	/**
+	 * Creates a new instance with the given URL patterns, parsed into
+	 * {@link PathPattern PathPatterns} and matched against the lookup path
+	 * parsed once per request.
+	 * Each pattern that is not empty and does not start with "/" is pre-pended with "/".
+	 * <p>Suffix pattern matching does not apply to parsed patterns, and trailing
+	 * slash matching is configured through the parser.
+	 * @param patterns the URL patterns to use; if 0, the condition will match to every request.
+	 * @param urlPathHelper a {@link UrlPathHelper} for determining the lookup path for a request
+	 * @param patternParser the parser to parse the patterns with
+	 * @since 5.1.4
+	 * @see ServletRequestPathUtils#parseLookupPath(HttpServletRequest, String)
+	 */
+	public PatternsRequestCondition(String[] patterns, @Nullable UrlPathHelper urlPathHelper,
+			PathPatternParser patternParser) {
+
+		this(Arrays.asList(patterns), urlPathHelper, null, patternParser, false, false, null);
+	}
+
 	/**
 	 * Private constructor accepting a collection of patterns.
 	 */
 	private PatternsRequestCondition(Collection<String> patterns, @Nullable UrlPathHelper urlPathHelper,
-			@Nullable PathMatcher pathMatcher, boolean useSuffixPatternMatch,
-			boolean useTrailingSlashMatch, @Nullable List<String> fileExtensions) {
+			@Nullable PathMatcher pathMatcher, @Nullable PathPatternParser patternParser,
+			boolean useSuffixPatternMatch, boolean useTrailingSlashMatch, @Nullable List<String> fileExtensions) {
 
 		this.patterns = Collections.unmodifiableSet(prependLeadingSlash(patterns));
 		this.pathHelper = (urlPathHelper != null ? urlPathHelper : new UrlPathHelper());
 		this.pathMatcher = (pathMatcher != null ? pathMatcher : new AntPathMatcher());
 		this.useSuffixPatternMatch = useSuffixPatternMatch;
 		this.useTrailingSlashMatch = useTrailingSlashMatch;
+		this.patternParser = patternParser;
+		this.pathPatterns = (patternParser != null ? parsePatterns(this.patterns, patternParser) : null);
 
 		if (fileExtensions != null) {
 			for (String fileExtension : fileExtensions) {
@@ -122,6 +159,22 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	}
 
 
+	/**
+	 * Private constructor for a condition with patterns matching a request,
+	 * parsed already.
+	 */
+	private PatternsRequestCondition(Map<String, PathPattern> pathPatterns, PatternsRequestCondition other) {
+		this.patterns = Collections.unmodifiableSet(pathPatterns.keySet());
+		this.pathHelper = other.pathHelper;
+		this.pathMatcher = other.pathMatcher;
+		this.useSuffixPatternMatch = other.useSuffixPatternMatch;
+		this.useTrailingSlashMatch = other.useTrailingSlashMatch;
+		this.fileExtensions.addAll(other.fileExtensions);
+		this.patternParser = other.patternParser;
+		this.pathPatterns = pathPatterns;
+	}
+
+
 	private static Set<String> prependLeadingSlash(Collection<String> patterns) {
 		Set<String> result = new LinkedHashSet<>(patterns.size());
 		for (String pattern : patterns) {
@@ -133,10 +186,29 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		return result;
 	}
 
+	private static Map<String, PathPattern> parsePatterns(Set<String> patterns, PathPatternParser patternParser) {
+		Map<String, PathPattern> result = new LinkedHashMap<>(patterns.size());
+		for (String pattern : patterns) {
+			result.put(pattern, patternParser.parse(pattern));
+		}
+		return result;
+	}
+
 	public Set<String> getPatterns() {
 		return this.patterns;
 	}
 
+	/**
+	 * Return the URL patterns parsed into {@link PathPattern PathPatterns}, in
+	 * the same order as {@link #getPatterns()}, or {@code null} if the patterns
+	 * are matched through a {@link PathMatcher}.
+	 * @since 5.1.4
+	 */
+	@Nullable
+	public Collection<PathPattern> getPathPatterns() {
+		return (this.pathPatterns != null ? this.pathPatterns.values() : null);
+	}
+
 	@Override
 	protected Collection<String> getContent() {
 		return this.patterns;
@@ -152,7 +224,8 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 * the "other" instance as follows:
 	 * <ul>
 	 * <li>If there are patterns in both instances, combine the patterns in "this" with
-	 * the patterns in "other" using {@link PathMatcher#combine(String, String)}.
+	 * the patterns in "other" using {@link PathMatcher#combine(String, String)},
+	 * or {@link PathPattern#combine(PathPattern)} for parsed patterns.
 	 * <li>If only one instance has patterns, use them.
 	 * <li>If neither instance has patterns, use an empty String (i.e. "").
 	 * </ul>
@@ -163,7 +236,9 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		if (!this.patterns.isEmpty() && !other.patterns.isEmpty()) {
 			for (String pattern1 : this.patterns) {
 				for (String pattern2 : other.patterns) {
-					result.add(this.pathMatcher.combine(pattern1, pattern2));
+					result.add(this.patternParser != null ?
+							this.patternParser.parse(pattern1).combine(this.patternParser.parse(pattern2)).getPatternString() :
+							this.pathMatcher.combine(pattern1, pattern2));
 				}
 			}
 		}
@@ -176,7 +251,7 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		else {
 			result.add("");
 		}
-		return new PatternsRequestCondition(result, this.pathHelper, this.pathMatcher,
+		return new PatternsRequestCondition(result, this.pathHelper, this.pathMatcher, this.patternParser,
 				this.useSuffixPatternMatch, this.useTrailingSlashMatch, this.fileExtensions);
 	}
 
@@ -202,10 +277,15 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		if (this.patterns.isEmpty()) {
 			return this;
 		}
-		String lookupPath = this.pathHelper.getLookupPathForRequest(request);
+		String lookupPath = this.pathHelper.resolveAndCacheLookupPath(request);
+		if (this.pathPatterns != null) {
+			PathContainer path = ServletRequestPathUtils.parseLookupPath(request, lookupPath);
+			Map<String, PathPattern> matches = getMatchingPathPatterns(this.pathPatterns, path);
+			return (!matches.isEmpty() ? new PatternsRequestCondition(matches, this) : null);
+		}
 		List<String> matches = getMatchingPatterns(lookupPath);
 		return (!matches.isEmpty() ?
-				new PatternsRequestCondition(matches, this.pathHelper, this.pathMatcher,
+				new PatternsRequestCondition(matches, this.pathHelper, this.pathMatcher, null,
 						this.useSuffixPatternMatch, this.useTrailingSlashMatch, this.fileExtensions) : null);
 	}
 
@@ -219,6 +299,10 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 * @return a collection of matching patterns sorted with the closest match at the top
 	 */
 	public List<String> getMatchingPatterns(String lookupPath) {
+		if (this.pathPatterns != null) {
+			PathContainer path = ServletRequestPathUtils.parseLookupPath(lookupPath);
+			return new ArrayList<>(getMatchingPathPatterns(this.pathPatterns, path).keySet());
+		}
 		List<String> matches = new ArrayList<>();
 		for (String pattern : this.patterns) {
 			String match = getMatchingPattern(pattern, lookupPath);
@@ -232,6 +316,28 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		return matches;
 	}
 
+	private static Map<String, PathPattern> getMatchingPathPatterns(
+			Map<String, PathPattern> pathPatterns, PathContainer path) {
+
+		List<PathPattern> matches = new ArrayList<>();
+		for (PathPattern pattern : pathPatterns.values()) {
+			if (pattern.matches(path)) {
+				matches.add(pattern);
+			}
+		}
+		if (matches.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		if (matches.size() > 1) {
+			matches.sort(PathPattern.SPECIFICITY_COMPARATOR);
+		}
+		Map<String, PathPattern> result = new LinkedHashMap<>(matches.size());
+		for (PathPattern match : matches) {
+			result.put(match.getPatternString(), match);
+		}
+		return result;
+	}
+
 	@Nullable
 	private String getMatchingPattern(String pattern, String lookupPath) {
 		if (pattern.equals(lookupPath)) {
@@ -276,10 +382,16 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 */
 	@Override
 	public int compareTo(PatternsRequestCondition other, HttpServletRequest request) {
-		String lookupPath = this.pathHelper.getLookupPathForRequest(request);
+		if (this.pathPatterns != null && other.pathPatterns != null) {
+			return compare(this.pathPatterns.values().iterator(), other.pathPatterns.values().iterator(),
+					PathPattern.SPECIFICITY_COMPARATOR);
+		}
+		String lookupPath = this.pathHelper.resolveAndCacheLookupPath(request);
 		Comparator<String> patternComparator = this.pathMatcher.getPatternComparator(lookupPath);
-		Iterator<String> iterator = this.patterns.iterator();
-		Iterator<String> iteratorOther = other.patterns.iterator();
+		return compare(this.patterns.iterator(), other.patterns.iterator(), patternComparator);
+	}
+
+	private static <P> int compare(Iterator<P> iterator, Iterator<P> iteratorOther, Comparator<P> patternComparator) {
 		while (iterator.hasNext() && iteratorOther.hasNext()) {
 			int result = patternComparator.compare(iterator.next(), iteratorOther.next());
 			if (result != 0) {
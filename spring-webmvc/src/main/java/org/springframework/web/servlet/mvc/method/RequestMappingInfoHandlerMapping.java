@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.web.servlet.mvc.method;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
@@ -44,7 +45,9 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.handler.AbstractHandlerMethodMapping;
 import org.springframework.web.servlet.mvc.condition.NameValueExpression;
+import org.springframework.web.util.ServletRequestPathUtils;
 import org.springframework.web.util.WebUtils;
+import org.springframework.web.util.pattern.PathPattern;
 
 
 public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMethodMapping<RequestMappingInfo> {
@@ -107,11 +110,29 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 
 		String bestPattern;
 		Map<String, String> uriVariables;
+		Map<String, MultiValueMap<String, String>> matrixVars = null;
 
 		Set<String> patterns = info.getPatternsCondition().getPatterns();
+		Collection<PathPattern> pathPatterns = info.getPatternsCondition().getPathPatterns();
 		if (patterns.isEmpty()) {
 			bestPattern = lookupPath;
 			uriVariables = Collections.emptyMap();
+		} else if (pathPatterns != null) {
+			PathPattern bestPathPattern = pathPatterns.iterator().next();
+			bestPattern = bestPathPattern.getPatternString();
+			PathPattern.PathMatchInfo matchInfo =
+					bestPathPattern.matchAndExtract(ServletRequestPathUtils.parseLookupPath(request, lookupPath));
+			if (matchInfo != null) {
+				uriVariables = new LinkedHashMap<>(matchInfo.getUriVariables());
+				if (isMatrixVariableContentAvailable()) {
+					matrixVars = new LinkedHashMap<>();
+					for (Map.Entry<String, MultiValueMap<String, String>> entry : matchInfo.getMatrixVariables().entrySet()) {
+						matrixVars.put(entry.getKey(), getUrlPathHelper().decodeMatrixVariables(request, entry.getValue()));
+					}
+				}
+			} else {
+				uriVariables = Collections.emptyMap();
+			}
 		} else {
 			bestPattern = patterns.iterator().next();
 			uriVariables = getPathMatcher().extractUriTemplateVariables(bestPattern, lookupPath);
@@ -120,7 +141,9 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 		request.setAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE, bestPattern);
 
 		if (isMatrixVariableContentAvailable()) {
-			Map<String, MultiValueMap<String, String>> matrixVars = extractMatrixVariables(request, uriVariables);
+			if (matrixVars == null) {
+				matrixVars = extractMatrixVariables(request, uriVariables);
+			}
 			request.setAttribute(HandlerMapping.MATRIX_VARIABLES_ATTRIBUTE, matrixVars);
 		}
 
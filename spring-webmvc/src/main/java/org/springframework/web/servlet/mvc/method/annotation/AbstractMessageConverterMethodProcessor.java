@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.web.servlet.mvc.method.annotation;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -50,6 +51,9 @@ import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.accept.ContentNegotiationManager;
@@ -87,6 +91,8 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 	private static final Type RESOURCE_REGION_LIST_TYPE =
 			new ParameterizedTypeReference<List<ResourceRegion>>() { }.getType();
 
+	private static final int NEGOTIATION_CACHE_LIMIT = 256;
+
 
 	private static final UrlPathHelper decodingUrlPathHelper = new UrlPathHelper();
 
@@ -104,6 +110,9 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 
 	private final Set<String> safeExtensions = new HashSet<>();
 
+	@Nullable
+	private final ConcurrentLruCache<NegotiationKey, Negotiation> negotiationCache;
+
 
 	/**
 	 * Constructor with list of converters only.
@@ -134,6 +143,8 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 		this.pathStrategy = initPathStrategy(this.contentNegotiationManager);
 		this.safeExtensions.addAll(this.contentNegotiationManager.getAllFileExtensions());
 		this.safeExtensions.addAll(WHITELISTED_EXTENSIONS);
+		this.negotiationCache = (isProducibleMediaTypesOverridden() ? null :
+				new ConcurrentLruCache<>(NEGOTIATION_CACHE_LIMIT));
 	}
 
 	private static PathExtensionContentNegotiationStrategy initPathStrategy(ContentNegotiationManager manager) {
@@ -142,6 +153,17 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 		return (strategy != null ? strategy : new PathExtensionContentNegotiationStrategy());
 	}
 
+	/**
+	 * Negotiation outcomes may only be cached as long as the producible media
+	 * types are determined by this class, i.e. independent of the request
+	 * beyond the producible media types of the handler mapping.
+	 */
+	private boolean isProducibleMediaTypesOverridden() {
+		Method method = ReflectionUtils.findMethod(getClass(), "getProducibleMediaTypes",
+				HttpServletRequest.class, Class.class, Type.class);
+		return (method == null || method.getDeclaringClass() != AbstractMessageConverterMethodProcessor.class);
+	}
+
 
 	/**
 	 * Creates a new {@link HttpOutputMessage} from the given {@link NativeWebRequest}.
@@ -216,6 +238,7 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 		}
 
 		MediaType selectedMediaType = null;
+		Negotiation negotiation = null;
 		MediaType contentType = outputMessage.getHeaders().getContentType();
 		if (contentType != null && contentType.isConcrete()) {
 			if (logger.isDebugEnabled()) {
@@ -226,21 +249,14 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 		else {
 			HttpServletRequest request = inputMessage.getServletRequest();
 			List<MediaType> acceptableTypes = getAcceptableMediaTypes(request);
-			List<MediaType> producibleTypes = getProducibleMediaTypes(request, valueType, targetType);
+			negotiation = negotiate(request, acceptableTypes, valueType, targetType);
+			List<MediaType> producibleTypes = negotiation.producibleTypes;
 
 			if (body != null && producibleTypes.isEmpty()) {
 				throw new HttpMessageNotWritableException(
 						"No converter found for return value of type: " + valueType);
 			}
-			List<MediaType> mediaTypesToUse = new ArrayList<>();
-			for (MediaType requestedType : acceptableTypes) {
-				for (MediaType producibleType : producibleTypes) {
-					if (requestedType.isCompatibleWith(producibleType)) {
-						mediaTypesToUse.add(getMostSpecificMediaType(requestedType, producibleType));
-					}
-				}
-			}
-			if (mediaTypesToUse.isEmpty()) {
+			if (!negotiation.compatible) {
 				if (body != null) {
 					throw new HttpMediaTypeNotAcceptableException(producibleTypes);
 				}
@@ -250,18 +266,7 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 				return;
 			}
 
-			MediaType.sortBySpecificityAndQuality(mediaTypesToUse);
-
-			for (MediaType mediaType : mediaTypesToUse) {
-				if (mediaType.isConcrete()) {
-					selectedMediaType = mediaType;
-					break;
-				}
-				else if (mediaType.equals(MediaType.ALL) || mediaType.equals(MEDIA_TYPE_APPLICATION)) {
-					selectedMediaType = MediaType.APPLICATION_OCTET_STREAM;
-					break;
-				}
-			}
+			selectedMediaType = negotiation.selectedMediaType;
 
 			if (logger.isDebugEnabled()) {
 				logger.debug("Using '" + selectedMediaType + "', given " +
@@ -270,35 +275,38 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 		}
 
 		if (selectedMediaType != null) {
-			selectedMediaType = selectedMediaType.removeQualityValue();
-			for (HttpMessageConverter<?> converter : this.messageConverters) {
+			HttpMessageConverter<?> converter;
+			if (negotiation != null) {
+				converter = negotiation.converter;
+			}
+			else {
+				selectedMediaType = selectedMediaType.removeQualityValue();
+				converter = getConverter(valueType, targetType, selectedMediaType);
+			}
+			if (converter != null) {
 				GenericHttpMessageConverter genericConverter = (converter instanceof GenericHttpMessageConverter ?
 						(GenericHttpMessageConverter<?>) converter : null);
-				if (genericConverter != null ?
-						((GenericHttpMessageConverter) converter).canWrite(targetType, valueType, selectedMediaType) :
-						converter.canWrite(valueType, selectedMediaType)) {
-					body = getAdvice().beforeBodyWrite(body, returnType, selectedMediaType,
-							(Class<? extends HttpMessageConverter<?>>) converter.getClass(),
-							inputMessage, outputMessage);
-					if (body != null) {
-						Object theBody = body;
-						LogFormatUtils.traceDebug(logger, traceOn ->
-								"Writing [" + LogFormatUtils.formatValue(theBody, traceOn) + "]");
-						addContentDispositionHeader(inputMessage, outputMessage);
-						if (genericConverter != null) {
-							genericConverter.write(body, targetType, selectedMediaType, outputMessage);
-						}
-						else {
-							((HttpMessageConverter) converter).write(body, selectedMediaType, outputMessage);
-						}
+				body = getAdvice().beforeBodyWrite(body, returnType, selectedMediaType,
+						(Class<? extends HttpMessageConverter<?>>) converter.getClass(),
+						inputMessage, outputMessage);
+				if (body != null) {
+					Object theBody = body;
+					LogFormatUtils.traceDebug(logger, traceOn ->
+							"Writing [" + LogFormatUtils.formatValue(theBody, traceOn) + "]");
+					addContentDispositionHeader(inputMessage, outputMessage);
+					if (genericConverter != null) {
+						genericConverter.write(body, targetType, selectedMediaType, outputMessage);
 					}
 					else {
-						if (logger.isDebugEnabled()) {
-							logger.debug("Nothing to write: null body");
-						}
+						((HttpMessageConverter) converter).write(body, selectedMediaType, outputMessage);
 					}
-					return;
 				}
+				else {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Nothing to write: null body");
+					}
+				}
+				return;
 			}
 		}
 
@@ -307,6 +315,81 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 		}
 	}
 
+	/**
+	 * Negotiate the media type to write with, and the converter to use for it,
+	 * given the acceptable media types and the type of the value to write.
+	 * <p>The outcome depends on the request only through the acceptable media
+	 * types and the producible media types of the handler mapping, and is
+	 * cached accordingly, unless {@link #getProducibleMediaTypes} is overridden.
+	 */
+	@SuppressWarnings("unchecked")
+	private Negotiation negotiate(HttpServletRequest request, List<MediaType> acceptableTypes,
+			Class<?> valueType, Type targetType) {
+
+		NegotiationKey key = null;
+		if (this.negotiationCache != null) {
+			Set<MediaType> producibleTypes =
+					(Set<MediaType>) request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+			key = new NegotiationKey(acceptableTypes, producibleTypes, valueType, targetType);
+			Negotiation negotiation = this.negotiationCache.get(key);
+			if (negotiation != null) {
+				return negotiation;
+			}
+		}
+
+		List<MediaType> producibleTypes = getProducibleMediaTypes(request, valueType, targetType);
+		List<MediaType> mediaTypesToUse = new ArrayList<>();
+		for (MediaType requestedType : acceptableTypes) {
+			for (MediaType producibleType : producibleTypes) {
+				if (requestedType.isCompatibleWith(producibleType)) {
+					mediaTypesToUse.add(getMostSpecificMediaType(requestedType, producibleType));
+				}
+			}
+		}
+
+		MediaType selectedMediaType = null;
+		MediaType.sortBySpecificityAndQuality(mediaTypesToUse);
+		for (MediaType mediaType : mediaTypesToUse) {
+			if (mediaType.isConcrete()) {
+				selectedMediaType = mediaType;
+				break;
+			}
+			else if (mediaType.equals(MediaType.ALL) || mediaType.equals(MEDIA_TYPE_APPLICATION)) {
+				selectedMediaType = MediaType.APPLICATION_OCTET_STREAM;
+				break;
+			}
+		}
+
+		HttpMessageConverter<?> converter = null;
+		if (selectedMediaType != null) {
+			selectedMediaType = selectedMediaType.removeQualityValue();
+			converter = getConverter(valueType, targetType, selectedMediaType);
+		}
+
+		Negotiation negotiation = new Negotiation(producibleTypes, !mediaTypesToUse.isEmpty(),
+				selectedMediaType, converter);
+		if (key != null) {
+			this.negotiationCache.put(key, negotiation);
+		}
+		return negotiation;
+	}
+
+	/**
+	 * Return the first converter which can write the given type of value
+	 * with the given media type, or {@code null} if none.
+	 */
+	@Nullable
+	private HttpMessageConverter<?> getConverter(Class<?> valueType, Type targetType, MediaType mediaType) {
+		for (HttpMessageConverter<?> converter : this.messageConverters) {
+			if (converter instanceof GenericHttpMessageConverter ?
+					((GenericHttpMessageConverter<?>) converter).canWrite(targetType, valueType, mediaType) :
+					converter.canWrite(valueType, mediaType)) {
+				return converter;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Return the type of the value to be written to the response. Typically this is
 	 * a simple check via getClass on the value but if the value is null, then the
@@ -494,4 +577,79 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 				mediaType.getSubtype().endsWith("+xml"));
 	}
 
+
+	/**
+	 * Key for the outcome of a {@link Negotiation}.
+	 */
+	private static final class NegotiationKey {
+
+		private final List<MediaType> acceptableTypes;
+
+		@Nullable
+		private final Set<MediaType> producibleTypes;
+
+		private final Class<?> valueType;
+
+		private final Type targetType;
+
+		private final int hashCode;
+
+		NegotiationKey(List<MediaType> acceptableTypes, @Nullable Set<MediaType> producibleTypes,
+				Class<?> valueType, Type targetType) {
+
+			this.acceptableTypes = acceptableTypes;
+			this.producibleTypes = producibleTypes;
+			this.valueType = valueType;
+			this.targetType = targetType;
+			this.hashCode = (31 * (31 * (31 * acceptableTypes.hashCode() +
+					ObjectUtils.nullSafeHashCode(producibleTypes)) + valueType.hashCode()) + targetType.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof NegotiationKey)) {
+				return false;
+			}
+			NegotiationKey otherKey = (NegotiationKey) other;
+			return (this.hashCode == otherKey.hashCode && this.valueType == otherKey.valueType &&
+					this.targetType.equals(otherKey.targetType) &&
+					this.acceptableTypes.equals(otherKey.acceptableTypes) &&
+					ObjectUtils.nullSafeEquals(this.producibleTypes, otherKey.producibleTypes));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+
+	/**
+	 * Outcome of content negotiation for a given {@link NegotiationKey}.
+	 */
+	private static final class Negotiation {
+
+		final List<MediaType> producibleTypes;
+
+		final boolean compatible;
+
+		@Nullable
+		final MediaType selectedMediaType;
+
+		@Nullable
+		final HttpMessageConverter<?> converter;
+
+		Negotiation(List<MediaType> producibleTypes, boolean compatible,
+				@Nullable MediaType selectedMediaType, @Nullable HttpMessageConverter<?> converter) {
+
+			this.producibleTypes = Collections.unmodifiableList(producibleTypes);
+			this.compatible = compatible;
+			this.selectedMediaType = selectedMediaType;
+			this.converter = converter;
+		}
+	}
+
 }
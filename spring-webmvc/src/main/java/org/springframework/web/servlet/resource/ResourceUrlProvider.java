@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -180,7 +180,7 @@ public class ResourceUrlProvider implements ApplicationListener<ContextRefreshed
 	private int getLookupPathIndex(HttpServletRequest request) {
 		UrlPathHelper pathHelper = getUrlPathHelper();
 		String requestUri = pathHelper.getRequestUri(request);
-		String lookupPath = pathHelper.getLookupPathForRequest(request);
+		String lookupPath = pathHelper.resolveAndCacheLookupPath(request);
 		return requestUri.indexOf(lookupPath);
 	}
 
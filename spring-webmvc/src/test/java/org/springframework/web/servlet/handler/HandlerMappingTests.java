@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,6 +35,8 @@ import org.springframework.web.context.support.StaticWebApplicationContext;
 import org.springframework.web.servlet.HandlerExecutionChain;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.support.WebContentGenerator;
+import org.springframework.web.util.pattern.PathPatternParser;
+import org.springframework.web.util.pattern.PatternParseException;
 
 /**
  * Unit tests for
@@ -70,6 +72,14 @@ public class HandlerMappingTests {
 				mappedInterceptor1.getInterceptor(), i2, mappedInterceptor3.getInterceptor(), i4));
 	}
 
+	@Test(expected = PatternParseException.class)
+	public void invalidMappedInterceptorPatternWithPatternParser() {
+		HandlerInterceptor interceptor = Mockito.mock(HandlerInterceptor.class);
+		this.handlerMapping.setInterceptors(new MappedInterceptor(new String[] {"/{foo"}, interceptor));
+		this.handlerMapping.setPatternParser(new PathPatternParser());
+		this.handlerMapping.setApplicationContext(this.context);
+	}
+
 	class TestHandlerMapping extends AbstractHandlerMapping {
 
 		@Override
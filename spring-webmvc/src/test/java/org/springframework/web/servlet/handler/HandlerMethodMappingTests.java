@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@
 package org.springframework.web.servlet.handler;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -99,6 +101,40 @@ public class HandlerMethodMappingTests {
 		assertEquals(result, request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
 	}
 
+	@Test
+	public void mappingsByPath() throws Exception {
+		this.mapping.registerMapping("/foo", this.handler, this.method1);
+		this.mapping.registerMapping("/f*", this.handler, this.method2);
+
+		assertEquals(Arrays.asList("/foo", "/f*"), new ArrayList<>(this.mapping.getMappingRegistry().getMappingsByPath("/foo")));
+		assertEquals(Collections.singletonList("/f*"), new ArrayList<>(this.mapping.getMappingRegistry().getMappingsByPath("/bar")));
+
+		this.mapping.setUsePatternIndex(false);
+		assertEquals(Arrays.asList("/foo", "/f*"), new ArrayList<>(this.mapping.getMappingRegistry().getMappingsByPath("/bar")));
+	}
+
+	@Test
+	public void patternMatchWithSuffix() throws Exception {
+		this.mapping.registerMapping("/foo", this.handler, this.method1);
+		this.mapping.registerMapping("/foo.*", this.handler, this.method2);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo.json");
+		HandlerMethod result = this.mapping.getHandlerInternal(request);
+		assertEquals(method2, result.getMethod());
+	}
+
+	@Test
+	public void patternMatchWithTrailingSlash() throws Exception {
+		this.mapping = new PatternExposingHandlerMethodMapping();
+		this.mapping.registerMapping("/*", this.handler, this.method1);
+		this.mapping.registerMapping("/users/*", this.handler, this.method2);
+
+		HandlerMethod result = this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/"));
+		assertEquals(method1, result.getMethod());
+		result = this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/users/"));
+		assertEquals(method2, result.getMethod());
+	}
+
 	@Test(expected = IllegalStateException.class)
 	public void ambiguousMatch() throws Exception {
 		this.mapping.registerMapping("/f?o", this.handler, this.method1);
@@ -295,6 +331,17 @@ public class HandlerMethodMappingTests {
 
 	}
 
+	/**
+	 * Variant exposing pattern keys as URL patterns, so that they get indexed.
+	 */
+	private static class PatternExposingHandlerMethodMapping extends MyHandlerMethodMapping {
+
+		@Override
+		protected Set<String> getMappingPathPatterns(String key) {
+			return Collections.singleton(key);
+		}
+	}
+
 	private static class SimpleMappingNamingStrategy implements HandlerMethodMappingNamingStrategy<String> {
 
 		@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,11 +23,14 @@ import javax.servlet.http.HttpServletResponse;
 import org.junit.Before;
 import org.junit.Test;
 
+import org.springframework.http.server.PathContainer;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.PathMatcher;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.i18n.LocaleChangeInterceptor;
+import org.springframework.web.util.pattern.PathPatternParser;
+import org.springframework.web.util.pattern.PatternParseException;
 
 import static org.junit.Assert.*;
 import static org.mockito.BDDMockito.*;
@@ -94,6 +97,34 @@ public class MappedInterceptorTests {
 		assertFalse(mappedInterceptor.matches("/foo/bar", pathMatcher));
 	}
 
+	@Test
+	public void pathPatterns() {
+		MappedInterceptor mappedInterceptor = new MappedInterceptor(
+				new String[] { "/**" }, new String[] { "/admin/**" }, this.interceptor);
+		PathPatternParser patternParser = new PathPatternParser();
+
+		assertTrue(mappedInterceptor.matches(PathContainer.parsePath("/foo"), patternParser));
+		assertFalse(mappedInterceptor.matches(PathContainer.parsePath("/admin/foo"), patternParser));
+		assertTrue(mappedInterceptor.matches(PathContainer.parsePath("/adminfoo"), new PathPatternParser()));
+	}
+
+	@Test
+	public void parsePatterns() {
+		MappedInterceptor mappedInterceptor = new MappedInterceptor(new String[] { "/**/*.css" }, this.interceptor);
+		PathPatternParser patternParser = new PathPatternParser();
+		mappedInterceptor.parsePatterns(patternParser);
+
+		assertTrue(mappedInterceptor.matches(PathContainer.parsePath("/foo/bar.css"), patternParser));
+		assertFalse(mappedInterceptor.matches(PathContainer.parsePath("/foo/bar/baz.css"), patternParser));
+	}
+
+	@Test(expected = PatternParseException.class)
+	public void parsePatternsWithInvalidPattern() {
+		MappedInterceptor mappedInterceptor = new MappedInterceptor(
+				new String[] { "/**" }, new String[] { "/{foo" }, this.interceptor);
+		mappedInterceptor.parsePatterns(new PathPatternParser());
+	}
+
 	@Test
 	public void preHandle() throws Exception {
 		HandlerInterceptor interceptor = mock(HandlerInterceptor.class);
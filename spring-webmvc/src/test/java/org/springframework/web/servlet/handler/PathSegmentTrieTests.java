@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PathSegmentTrie}.
+ *
+ * @author agent
+ */
+public class PathSegmentTrieTests {
+
+	private final PathSegmentTrie<String> trie = new PathSegmentTrie<>();
+
+
+	@Test
+	public void literalSegments() {
+		addPatterns("/users", "/users/list", "/projects");
+		assertCandidates("/users", "/users");
+		assertCandidates("/users/list", "/users/list");
+		assertCandidates("/users/list/", "/users/list");
+		assertCandidates("/orders");
+	}
+
+	@Test
+	public void uriVariablesAndWildcards() {
+		addPatterns("/users/{id}", "/users/{id}/orders/{orderId}", "/users/*.html", "/users/a?c", "/users/list");
+		assertCandidates("/users/42", "/users/{id}", "/users/*.html", "/users/a?c");
+		assertCandidates("/users/list", "/users/{id}", "/users/*.html", "/users/a?c", "/users/list");
+		assertCandidates("/users/42/orders/7", "/users/{id}/orders/{orderId}");
+		assertCandidates("/users/42/invoices/7");
+	}
+
+	@Test
+	public void trailingSlashWithTrailingWildcard() {
+		addPatterns("/*", "/users/*", "/users/{id}", "/users/*/orders");
+		assertCandidates("/", "/*");
+		assertCandidates("/users", "/*");
+		assertCandidates("/users/", "/*", "/users/*", "/users/{id}");
+		assertCandidates("/users/42/", "/users/*", "/users/{id}");
+	}
+
+	@Test
+	public void multiSegmentWildcards() {
+		addPatterns("/static/**", "/docs/{*path}", "/**/favicon.ico");
+		assertCandidates("/static", "/static/**", "/**/favicon.ico");
+		assertCandidates("/static/css/main.css", "/static/**", "/**/favicon.ico");
+		assertCandidates("/docs/guide/index.html", "/docs/{*path}", "/**/favicon.ico");
+	}
+
+	@Test
+	public void suffixPatterns() {
+		addPatterns("/users/list", "/users/list.json", "/users/list.json/all");
+		assertCandidates("/users/list.json", "/users/list", "/users/list.json");
+		assertCandidates("/users/list.json.gz", "/users/list", "/users/list.json");
+		assertCandidates("/users/list.json/all", "/users/list.json/all");
+		assertCandidates("/users.json/list");
+	}
+
+	@Test
+	public void caseAndWhitespace() {
+		addPatterns("/Users/List", "/ users/ /list");
+		assertCandidates("/users/LIST", "/Users/List", "/ users/ /list");
+		assertNull(this.trie.getCandidates("/users/ /list"));
+	}
+
+	@Test
+	public void matrixVariables() {
+		addPatterns("/cars/{id}", "/cars/list");
+		assertCandidates("/cars;color=red/list;limit=10", "/cars/{id}", "/cars/list");
+	}
+
+	@Test
+	public void anyPath() {
+		this.trie.addForAnyPath("any");
+		addPatterns("/users");
+		assertCandidates("/users", "any", "/users");
+		assertCandidates("/", "any");
+		this.trie.removeForAnyPath("any");
+		assertCandidates("/");
+	}
+
+	@Test
+	public void remove() {
+		addPatterns("/users/{id}", "/users/list", "/static/**");
+		this.trie.remove("/users/{id}", "/users/{id}");
+		this.trie.remove("/static/**", "/static/**");
+		assertCandidates("/users/list", "/users/list");
+		assertCandidates("/users/42");
+		assertCandidates("/static/main.css");
+		this.trie.remove("/users/list", "/users/list");
+		assertCandidates("/users/list");
+	}
+
+
+	private void addPatterns(String... patterns) {
+		for (String pattern : patterns) {
+			this.trie.add(pattern, pattern);
+		}
+	}
+
+	private void assertCandidates(String lookupPath, String... expected) {
+		Set<String> candidates = this.trie.getCandidates(lookupPath);
+		assertNotNull(candidates);
+		assertEquals(new HashSet<>(Arrays.asList(expected)), candidates);
+	}
+
+}
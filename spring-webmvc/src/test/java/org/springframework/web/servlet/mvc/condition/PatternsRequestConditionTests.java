@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,13 +16,16 @@
 
 package org.springframework.web.servlet.mvc.condition;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 
 import org.junit.Test;
 
 import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import static org.junit.Assert.*;
 
@@ -212,4 +215,49 @@ public class PatternsRequestConditionTests {
 		assertEquals(1, match1.compareTo(match2, request));
 	}
 
+	@Test
+	public void matchPathPatterns() {
+		PatternsRequestCondition condition = new PatternsRequestCondition(
+				new String[] {"/**", "/foo/bar", "/foo/{id}"}, null, new PathPatternParser());
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo/bar");
+		PatternsRequestCondition match = condition.getMatchingCondition(request);
+		assertNotNull(match);
+		assertEquals(Arrays.asList("/foo/bar", "/foo/{id}", "/**"), new ArrayList<>(match.getPatterns()));
+		assertEquals(3, match.getPathPatterns().size());
+		assertEquals(Arrays.asList("/foo/{id}", "/**"), condition.getMatchingPatterns("/foo/baz"));
+
+		match = condition.getMatchingCondition(new MockHttpServletRequest("GET", "/foo"));
+		assertEquals(Collections.singleton("/**"), match.getPatterns());
+	}
+
+	@Test
+	public void matchPathPatternsWithoutSuffixPatternMatch() {
+		PatternsRequestCondition condition = new PatternsRequestCondition(
+				new String[] {"/foo"}, null, new PathPatternParser());
+
+		assertNull(condition.getMatchingCondition(new MockHttpServletRequest("GET", "/foo.html")));
+		assertNotNull(condition.getMatchingCondition(new MockHttpServletRequest("GET", "/foo/")));
+	}
+
+	@Test
+	public void combinePathPatterns() {
+		PathPatternParser parser = new PathPatternParser();
+		PatternsRequestCondition c1 = new PatternsRequestCondition(new String[] {"/t1"}, null, parser);
+		PatternsRequestCondition c2 = new PatternsRequestCondition(new String[] {"/m1"}, null, parser);
+		PatternsRequestCondition combined = c1.combine(c2);
+
+		assertEquals(Collections.singleton("/t1/m1"), combined.getPatterns());
+		assertNotNull(combined.getPathPatterns());
+	}
+
+	@Test
+	public void comparePathPatternSpecificity() {
+		PathPatternParser parser = new PathPatternParser();
+		PatternsRequestCondition c1 = new PatternsRequestCondition(new String[] {"/fo*"}, null, parser);
+		PatternsRequestCondition c2 = new PatternsRequestCondition(new String[] {"/foo"}, null, parser);
+
+		assertEquals(1, c1.compareTo(c2, new MockHttpServletRequest("GET", "/foo")));
+	}
+
 }
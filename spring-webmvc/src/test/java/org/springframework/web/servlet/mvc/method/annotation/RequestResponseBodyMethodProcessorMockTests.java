@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -321,6 +321,33 @@ public class RequestResponseBodyMethodProcessorMockTests {
 		verify(stringMessageConverter).write(eq(body), eq(MediaType.TEXT_HTML), isA(HttpOutputMessage.class));
 	}
 
+	@Test
+	public void handleReturnValueNegotiatedOnce() throws Exception {
+		MediaType accepted = MediaType.TEXT_PLAIN;
+		servletRequest.addHeader("Accept", accepted.toString());
+
+		given(stringMessageConverter.canWrite(String.class, null)).willReturn(true);
+		given(stringMessageConverter.canWrite(String.class, accepted)).willReturn(true);
+
+		processor.handleReturnValue("Foo", returnTypeString, mavContainer, webRequest);
+		processor.handleReturnValue("Bar", returnTypeString, mavContainer, webRequest);
+
+		verify(stringMessageConverter).canWrite(String.class, null);
+		verify(stringMessageConverter).canWrite(String.class, accepted);
+		verify(stringMessageConverter).write(eq("Foo"), eq(accepted), isA(HttpOutputMessage.class));
+		verify(stringMessageConverter).write(eq("Bar"), eq(accepted), isA(HttpOutputMessage.class));
+
+		servletRequest.setAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE,
+				Collections.singleton(MediaType.TEXT_HTML));
+		try {
+			processor.handleReturnValue("Baz", returnTypeString, mavContainer, webRequest);
+			fail("HttpMediaTypeNotAcceptableException expected");
+		}
+		catch (HttpMediaTypeNotAcceptableException ex) {
+			assertEquals(Collections.singletonList(MediaType.TEXT_HTML), ex.getSupportedMediaTypes());
+		}
+	}
+
 
 	@Test(expected = HttpMediaTypeNotAcceptableException.class)
 	public void handleReturnValueNotAcceptable() throws Exception {